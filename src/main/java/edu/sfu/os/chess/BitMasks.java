@@ -45,6 +45,62 @@ public class BitMasks {
     static long[] RANK;
     static long[] DIAG;
     static long[] ANTIDIAG;
+    // Magic bitboard tables for the sliding pieces, see rookAttacks(int, long) and bishopAttacks(int, long)
+    // Relevant occupancy of each square, the edges of each line are left out
+    static long[] ROOK_MASK;
+    static long[] BISHOP_MASK;
+    // Magic numbers found offline with a sparse random search, stored so startup only has to fill the tables
+    static final long[] ROOK_MAGIC = {
+            0x0980008011400020L, 0x8340004410002000L, 0x0880200090008268L, 0x0080080080100004L,
+            0x8100110004020800L, 0x0300010004000822L, 0x08801A0029000080L, 0x8100050001204882L,
+            0x0844800081400320L, 0x0804402010004000L, 0x0108802003100480L, 0x0004808008001000L,
+            0x0003001801001014L, 0x0002000200041008L, 0x0004008108042210L, 0x0105000100009042L,
+            0x0400808000400021L, 0xC100404010002000L, 0x0060008010002088L, 0x0400808008001000L,
+            0x4440808008000400L, 0x1002008004000280L, 0x40024400300D1248L, 0x0010020000408104L,
+            0x0101008200204200L, 0x8020002040005000L, 0x4100100080802000L, 0x4008006A80100280L,
+            0x1020080080040080L, 0x0004010040020040L, 0x0018A12400080290L, 0x6140004200008104L,
+            0x4000400020800090L, 0x2020002080804000L, 0x0000408202002010L, 0x0080100501000820L,
+            0x0000800400800800L, 0x000A200408014010L, 0x0100800200800100L, 0xA00800570200008CL,
+            0x008000406000C010L, 0x1040100028002000L, 0x0048200100110040L, 0x0068490210030020L,
+            0x1009080005010010L, 0x2142000804010100L, 0x1001080110840002L, 0x1801004400820001L,
+            0x010440208D020200L, 0x0000400020008080L, 0x0200200080100280L, 0x0000100020090100L,
+            0x0204008008020480L, 0x8104010040020040L, 0x78000201B0080400L, 0x0040800051002880L,
+            0x0050108001002041L, 0x208A801100614003L, 0x0006002042089082L, 0x0011090004201001L,
+            0x1002001004200802L, 0x0005000208040001L, 0x0002002701AC0822L, 0x000010250184004AL
+    };
+    static final long[] BISHOP_MAGIC = {
+            0x1002200101020088L, 0x4004010404049080L, 0x200404008A020422L, 0x000806004C002202L,
+            0x8001104110000090L, 0x8002080248000202L, 0x0000440484408000L, 0x0002010082012020L,
+            0x0488406912288201L, 0x0101600202004110L, 0x0810100400842440L, 0x0800240410822002L,
+            0x0000020210010030L, 0x8100008260210008L, 0x4404004404044201L, 0x2440008084104200L,
+            0x88220A08207C0280L, 0x4104801001080120L, 0x4110020808304010L, 0x2518050402400980L,
+            0x0002000422010010L, 0x0403020080A00100L, 0x0244200200822880L, 0x0608200200820860L,
+            0x81202818C6100400L, 0x4081501088100100L, 0x2002491448020400L, 0x0070040000440008L,
+            0x0880820004010400L, 0x8490108202C80400L, 0x0004004204050C41L, 0x800102400C241402L,
+            0x1014200A00041013L, 0x0008110400300400L, 0x0042060900220800L, 0x00D2200800010105L,
+            0x0C0A0484008A0020L, 0x801001010802100CL, 0x0919920202440101L, 0x06020A0202604050L,
+            0x4202083240260821L, 0x0118520260221008L, 0x00000C4402021001L, 0x1010006018020100L,
+            0x9600204C10130500L, 0x00C0810403000020L, 0x0002640420801401L, 0x8001040400900840L,
+            0x1002221004048000L, 0x0020808808420401L, 0x0100010080908040L, 0x2000800884040820L,
+            0x1000002020444B28L, 0x01180890D0008888L, 0x4090448800940100L, 0x0160380A00404240L,
+            0x5002042109101080L, 0x800800220D300800L, 0x0808200840441004L, 0x8008022006150402L,
+            0x2000000070020213L, 0x0202414119211100L, 0x8820620204180484L, 0x8012100115010208L
+    };
+    static int[] ROOK_SHIFT;
+    static int[] BISHOP_SHIFT;
+    // Start of each square's block of attack sets in the shared attack tables
+    static int[] ROOK_OFFSET;
+    static int[] BISHOP_OFFSET;
+    static long[] ROOK_ATTACKS;
+    static long[] BISHOP_ATTACKS;
+    // Attacks of the leaping pieces from each square, PAWN_ATTACKS[0] is for white pawns and PAWN_ATTACKS[1] for black pawns
+    static long[] KNIGHT_ATTACKS;
+    static long[] KING_ATTACKS;
+    static long[][] PAWN_ATTACKS;
+    // Squares strictly between two squares on a shared rank, file or diagonal, 0 if the squares are not aligned
+    static long[][] BETWEEN;
+    // The full rank, file or diagonal through two squares, 0 if the squares are not aligned
+    static long[][] LINE;
 
 
     /**
@@ -247,6 +303,267 @@ public class BitMasks {
         return res;
     }
 
+    /**
+     * Given a square and the occupied squares, returns all squares attacked by a rook
+     * uses the magic bitboard tables: a mask, a multiply, a shift and one table load
+     *
+     * @param index index of the rook
+     * @param occupied bitboard of all pieces on the board
+     * @return a bitmask of the attacked squares, including the first blocker in each direction
+     */
+    public static long rookAttacks(int index, long occupied){
+        return ROOK_ATTACKS[ROOK_OFFSET[index] + (int)(((occupied & ROOK_MASK[index]) * ROOK_MAGIC[index]) >>> ROOK_SHIFT[index])];
+    }
+
+    /**
+     * Given a square and the occupied squares, returns all squares attacked by a bishop
+     * uses the magic bitboard tables: a mask, a multiply, a shift and one table load
+     *
+     * @param index index of the bishop
+     * @param occupied bitboard of all pieces on the board
+     * @return a bitmask of the attacked squares, including the first blocker in each direction
+     */
+    public static long bishopAttacks(int index, long occupied){
+        return BISHOP_ATTACKS[BISHOP_OFFSET[index] + (int)(((occupied & BISHOP_MASK[index]) * BISHOP_MAGIC[index]) >>> BISHOP_SHIFT[index])];
+    }
+
+    /**
+     * Given a square and the occupied squares, returns all squares attacked by a queen
+     *
+     * @param index index of the queen
+     * @param occupied bitboard of all pieces on the board
+     * @return a bitmask of the attacked squares, including the first blocker in each direction
+     */
+    public static long queenAttacks(int index, long occupied){
+        return rookAttacks(index, occupied) | bishopAttacks(index, occupied);
+    }
+
+    /**
+     * Given a slider and a line through it, returns the squares attacked along the line
+     * used to fill the magic bitboard tables in {@link #buildAttackTable(long[], boolean, long[], int[], int[])}
+     *
+     * reference: https://www.youtube.com/watch?v=bCH4YK6oq8M&ab_channel=LogicCrazyChess
+     *
+     * ========= The Trick ===========
+     * occupied=11000101 as (o)
+     * slider=00000100   as (s)
+     * o-s=11000001
+     * o-2s=10111101     // equals to shifting to left by 1
+     * left=o^(o-2s)=01111000
+     * ===============================
+     *
+     * Combining left and right
+     * lineAttacks=(((o&m)-2s) ^ ((o&m)'-2s')')&m
+     *
+     * @param occupied bitboard of all pieces on the board
+     * @param slider bitboard with only the sliding piece set
+     * @param lineMask mask of the line (rank, file, diagonal or anti-diagonal) through the slider
+     * @return a bitmask of the attacked squares on the line
+     */
+    private static long lineAttacks(long occupied, long slider, long lineMask){
+        long occupiedLine = occupied & lineMask;
+        long occupiedLineReversed = reverse64bits(occupiedLine);
+        return ((occupiedLine - 2 * slider) ^ reverse64bits(occupiedLineReversed - 2 * reverse64bits(slider))) & lineMask;
+    }
+
+    /**
+     * Generates the relevant occupancy masks for rooks, the squares at the end of each ray are left out
+     * since a piece there can never block anything
+     *
+     * @return a set of rook occupancy masks in an array of long
+     */
+    private static long[] getRookOccupancyMasks(){
+        final int n = 64;
+        long[] res = new long[n];
+        for(int i = 0; i < n; i++){
+            res[i] = (RANK[i] & ~(FILE_A | FILE_H)) | (FILE[i] & ~(RANK_1 | RANK_8));
+        }
+        return res;
+    }
+
+    /**
+     * Generates the relevant occupancy masks for bishops, the squares on the edge of the board are left out
+     * since a piece there can never block anything
+     *
+     * @return a set of bishop occupancy masks in an array of long
+     */
+    private static long[] getBishopOccupancyMasks(){
+        final int n = 64;
+        long[] res = new long[n];
+        for(int i = 0; i < n; i++){
+            res[i] = (DIAG[i] | ANTIDIAG[i]) & ~(FILE_A | FILE_H | RANK_1 | RANK_8);
+        }
+        return res;
+    }
+
+    /**
+     * Tries to fill one square's block of the attack table with the given magic number
+     *
+     * @param table the attack table shared by all squares
+     * @param offset start of the square's block in the table
+     * @param occupancies every subset of the square's occupancy mask
+     * @param attacks the attack set of each subset
+     * @param subsets the number of subsets
+     * @param magic the magic number to try
+     * @param shift the shift of the square
+     * @param used scratch array, holds the attempt that last wrote each table entry
+     * @param attempt a number that is different on every call
+     * @return true if no two subsets with different attacks map to the same entry
+     */
+    private static boolean fillAttacks(long[] table, int offset, long[] occupancies, long[] attacks, int subsets, long magic, int shift, int[] used, int attempt){
+        for(int j = 0; j < subsets; j++){
+            int key = (int)((occupancies[j] * magic) >>> shift);
+            if(used[key] != attempt){
+                used[key] = attempt;
+                table[offset + key] = attacks[j];
+            }
+            else if(table[offset + key] != attacks[j]){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Fills the shared attack table for rooks or bishops with the stored magic numbers
+     * used in {@link #initMagics()}
+     *
+     * @param masks relevant occupancy mask of each square
+     * @param rook true to fill a rook table, false for a bishop table
+     * @param magics the magic number of each square
+     * @param shifts output, the shift of each square
+     * @param offsets output, the start of each square's block in the attack table
+     * @return the attack table shared by all squares
+     * @throws IllegalStateException if a magic number maps two subsets with different attacks to the same entry
+     */
+    static long[] buildAttackTable(long[] masks, boolean rook, long[] magics, int[] shifts, int[] offsets){
+        final int n = 64;
+        int size = 0;
+        for(int i = 0; i < n; i++){
+            offsets[i] = size;
+            size += 1 << Long.bitCount(masks[i]);
+        }
+        long[] table = new long[size];
+
+        long[] occupancies = new long[4096];
+        long[] attacks = new long[4096];
+        int[] used = new int[4096];
+        int attempt = 0;
+
+        for(int i = 0; i < n; i++){
+            int bits = Long.bitCount(masks[i]);
+            int subsets = 1 << bits;
+            shifts[i] = 64 - bits;
+
+            // Enumerate every subset of the mask (Carry-Rippler) together with its attack set
+            long occupied = 0L;
+            for(int j = 0; j < subsets; j++){
+                occupancies[j] = occupied;
+                attacks[j] = rook
+                        ? lineAttacks(occupied, 1L << i, RANK[i]) | lineAttacks(occupied, 1L << i, FILE[i])
+                        : lineAttacks(occupied, 1L << i, DIAG[i]) | lineAttacks(occupied, 1L << i, ANTIDIAG[i]);
+                occupied = (occupied - masks[i]) & masks[i];
+            }
+
+            if(!fillAttacks(table, offsets[i], occupancies, attacks, subsets, magics[i], shifts[i], used, ++attempt)){
+                throw new IllegalStateException("the stored " + (rook ? "rook" : "bishop") + " magic number of square " + i + " collides");
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Builds the magic bitboard tables for rooks and bishops
+     * the tables only depend on the line masks, so they are built once
+     */
+    private static void initMagics(){
+        if(ROOK_ATTACKS != null){
+            return;
+        }
+        final int n = 64;
+        ROOK_MASK = getRookOccupancyMasks();
+        BISHOP_MASK = getBishopOccupancyMasks();
+        ROOK_SHIFT = new int[n];
+        BISHOP_SHIFT = new int[n];
+        ROOK_OFFSET = new int[n];
+        BISHOP_OFFSET = new int[n];
+        BISHOP_ATTACKS = buildAttackTable(BISHOP_MASK, false, BISHOP_MAGIC, BISHOP_SHIFT, BISHOP_OFFSET);
+        ROOK_ATTACKS = buildAttackTable(ROOK_MASK, true, ROOK_MAGIC, ROOK_SHIFT, ROOK_OFFSET);
+    }
+
+    /**
+     * Builds the attack tables of knights, kings and pawns, using the shift-and-mask patterns once per square
+     */
+    private static void initLeapers(){
+        final int n = 64;
+        KNIGHT_ATTACKS = new long[n];
+        KING_ATTACKS = new long[n];
+        PAWN_ATTACKS = new long[2][n];
+        for(int i = 0; i < n; i++){
+            long square = 1L << i;
+            /*  Ordering of the knight moves
+             *  * 8 * 0 *
+             *  7 * * * 1
+             *  * * N * *
+             *  6 * * * 2
+             *  * 5 * 4 *
+             */
+            KNIGHT_ATTACKS[i] = (square >>> 15 & ~FILE_A)
+                    | (square >>> 6 & ~FILE_AB)
+                    | (square << 10 & ~FILE_AB)
+                    | (square << 17 & ~FILE_A)
+                    | (square << 15 & ~FILE_H)
+                    | (square << 6 & ~FILE_GH)
+                    | (square >>> 10 & ~FILE_GH)
+                    | (square >>> 17 & ~FILE_H);
+            /* Ordering of the king moves
+             *  0 1 2
+             *  3 K 4
+             *  5 6 7
+             */
+            KING_ATTACKS[i] = (square >>> 9 & ~FILE_H)
+                    | (square >>> 8)
+                    | (square >>> 7 & ~FILE_A)
+                    | (square >>> 1 & ~FILE_H)
+                    | (square << 1 & ~FILE_A)
+                    | (square << 7 & ~FILE_H)
+                    | (square << 8)
+                    | (square << 9 & ~FILE_A);
+            // White pawns capture towards rank 8, black pawns towards rank 1
+            PAWN_ATTACKS[0][i] = (square >>> 9 & ~FILE_H) | (square >>> 7 & ~FILE_A);
+            PAWN_ATTACKS[1][i] = (square << 7 & ~FILE_H) | (square << 9 & ~FILE_A);
+        }
+    }
+
+    /**
+     * Builds the BETWEEN and LINE tables, used to find pin rays and the squares that block a check
+     * needs the magic bitboard tables
+     */
+    private static void initLines(){
+        if(BETWEEN != null){
+            return;
+        }
+        final int n = 64;
+        BETWEEN = new long[n][n];
+        LINE = new long[n][n];
+        for(int a = 0; a < n; a++){
+            for(int b = 0; b < n; b++){
+                if(a == b){
+                    continue;
+                }
+                long squares = 1L << a | 1L << b;
+                if((rookAttacks(a, 0L) & 1L << b) != 0){
+                    BETWEEN[a][b] = rookAttacks(a, 1L << b) & rookAttacks(b, 1L << a);
+                    LINE[a][b] = (rookAttacks(a, 0L) & rookAttacks(b, 0L)) | squares;
+                }
+                else if((bishopAttacks(a, 0L) & 1L << b) != 0){
+                    BETWEEN[a][b] = bishopAttacks(a, 1L << b) & bishopAttacks(b, 1L << a);
+                    LINE[a][b] = (bishopAttacks(a, 0L) & bishopAttacks(b, 0L)) | squares;
+                }
+            }
+        }
+    }
+
     /**
      * Initializes the long arrays of bitMasks for used
      * should be called before usage of this class, ideally on start/initialization of application
@@ -256,6 +573,9 @@ public class BitMasks {
         RANK = getRankMasks();
         DIAG = getDiagMasks();
         ANTIDIAG = getAntiDiagMasks();
+        initLeapers();
+        initMagics();
+        initLines();
     }
 
 }
@@ -1,22 +1,29 @@
 package edu.sfu.os.chess;
 
+import java.util.Arrays;
+
 /**
  * Represents a given board position.
  * */
 public class Board {
 
-    public long WP=0L;
-    public long WN=0L;
-    public long WB=0L;
-    public long WR=0L;
-    public long WQ=0L;
-    public long WK=0L;
-    public long BP=0L;
-    public long BN=0L;
-    public long BB=0L;
-    public long BR=0L;
-    public long BQ=0L;
-    public long BK=0L;
+    /* One bitboard per piece, indexed by the codes in Piece
+     * 0 Wpawn, 1 Wknight, 2 Wbishop, 3 Wrook, 4 Wqueen, 5 Wking, 6 Bpawn, 7 Bknight, 8 Bbishop,
+     * 9 Brook, 10 Bqueen, 11 Bking.
+     */
+    public final long[] pieces = new long[12];
+
+    /* Aggregates of the piece bitboards, kept up to date by makeMove/unmakeMove
+     * occupancy[Piece.WHITE] and occupancy[Piece.BLACK] hold all pieces of one side, allPieces holds both
+     * code that writes to pieces directly has to call updateOccupancy() afterwards
+     */
+    public final long[] occupancy = new long[2];
+    public long allPieces=0L;
+
+    /* Piece code on every square, Piece.EMPTY if the square is empty
+     * indexed like the bitboards, kept up to date together with the occupancy
+     */
+    public final byte[] mailbox = new byte[64];
 
     public long lastMove=0L;
 
@@ -28,38 +35,219 @@ public class Board {
      */
     public long castleCheck=0L;
 
-    public Board(){}
-
-    public Board(long WP, long WN, long WB, long WR, long WQ, long WK, long BP, long BN, long BB, long BR, long BQ, long BK) {
-        this.WP = WP;
-        this.WN = WN;
-        this.WB = WB;
-        this.WR = WR;
-        this.WQ = WQ;
-        this.WK = WK;
-        this.BP = BP;
-        this.BN = BN;
-        this.BB = BB;
-        this.BR = BR;
-        this.BQ = BQ;
-        this.BK = BK;
+    /* Zobrist key of the position, see Zobrist
+     * makeMove/unmakeMove keep it up to date, it includes the side to move which flips with every move
+     * code that sets up a position has to call updateKey(colour) afterwards
+     */
+    public long key=0L;
+
+    // Maximum number of moves that can be made with makeMove before they are unmade
+    public static final int MAX_UNDO = 1024;
+
+    /* Undo stack for makeMove/unmakeMove, allocated on the first makeMove so copies stay cheap
+     * The captured piece is kept in the packed move itself
+     */
+    private int[] undoMove;
+    private long[] undoLastMove;
+    private long[] undoCastleCheck;
+    private long[] undoKey;
+    private int undoCount = 0;
+
+    public Board(){
+        Arrays.fill(mailbox, (byte)Piece.EMPTY);
+    }
+
+    public Board(long[] pieces) {
+        System.arraycopy(pieces, 0, this.pieces, 0, this.pieces.length);
+        updateOccupancy();
+        updateKey(Piece.WHITE);
     }
     public Board(Board currPosition){
-        this.WP = currPosition.WP;
-        this.WN = currPosition.WN;
-        this.WB = currPosition.WB;
-        this.WR = currPosition.WR;
-        this.WQ = currPosition.WQ;
-        this.WK = currPosition.WK;
-        this.BP = currPosition.BP;
-        this.BN = currPosition.BN;
-        this.BB = currPosition.BB;
-        this.BR = currPosition.BR;
-        this.BQ = currPosition.BQ;
-        this.BK = currPosition.BK;
+        System.arraycopy(currPosition.pieces, 0, this.pieces, 0, this.pieces.length);
+        this.occupancy[Piece.WHITE] = currPosition.occupancy[Piece.WHITE];
+        this.occupancy[Piece.BLACK] = currPosition.occupancy[Piece.BLACK];
+        this.allPieces = currPosition.allPieces;
+        System.arraycopy(currPosition.mailbox, 0, this.mailbox, 0, this.mailbox.length);
 
         this.lastMove = currPosition.lastMove;
 
         this.castleCheck = currPosition.castleCheck;
+        this.key = currPosition.key;
+    }
+
+    /**
+     * Recomputes the occupancy of both sides and the mailbox from the piece bitboards
+     * needed after the piece bitboards are written directly, eg. while setting up a position
+     */
+    public void updateOccupancy(){
+        occupancy[Piece.WHITE] = pieces[Piece.WP] | pieces[Piece.WN] | pieces[Piece.WB] | pieces[Piece.WR] | pieces[Piece.WQ] | pieces[Piece.WK];
+        occupancy[Piece.BLACK] = pieces[Piece.BP] | pieces[Piece.BN] | pieces[Piece.BB] | pieces[Piece.BR] | pieces[Piece.BQ] | pieces[Piece.BK];
+        allPieces = occupancy[Piece.WHITE] | occupancy[Piece.BLACK];
+
+        Arrays.fill(mailbox, (byte)Piece.EMPTY);
+        for(int piece = Piece.WP; piece <= Piece.BK; piece++){
+            long bb = pieces[piece];
+            while(bb != 0){
+                mailbox[Long.numberOfTrailingZeros(bb)] = (byte)piece;
+                bb &= bb - 1;
+            }
+        }
+    }
+
+    /**
+     * Recomputes the Zobrist key from scratch, needed after a position is set up
+     *
+     * @param colour the side to move
+     */
+    public void updateKey(int colour){
+        key = Zobrist.key(this, colour);
+    }
+
+    /**
+     * Plays a packed move on this board, the board is changed in place
+     * the previous state is pushed on the undo stack, see {@link #unmakeMove()}
+     *
+     * @param move a packed move of either colour, see {@link Move}
+     * @throws IllegalStateException if {@link #MAX_UNDO} moves are already on the undo stack, the board is left unchanged
+     */
+    public void makeMove(int move){
+        if(undoCount == MAX_UNDO){
+            throw new IllegalStateException("undo stack full, " + MAX_UNDO + " moves made without unmakeMove");
+        }
+        if(undoMove == null){
+            undoMove = new int[MAX_UNDO];
+            undoLastMove = new long[MAX_UNDO];
+            undoCastleCheck = new long[MAX_UNDO];
+            undoKey = new long[MAX_UNDO];
+        }
+        undoMove[undoCount] = move;
+        undoLastMove[undoCount] = lastMove;
+        undoCastleCheck[undoCount] = castleCheck;
+        undoKey[undoCount] = key;
+        undoCount++;
+
+        int colour = Piece.colour(Move.piece(move));
+        // The en passant key of the position before the move goes away with it
+        long newKey = key ^ Zobrist.BLACK_TO_MOVE ^ Zobrist.moveKey(move) ^ Zobrist.enPassantKey(this, colour);
+
+        long moveMask = applyMove(move);
+        updateMailbox(move, false);
+        lastMove = moveMask;
+        if((moveMask & Zobrist.CASTLE_SQUARES & ~castleCheck) != 0){
+            newKey ^= Zobrist.CASTLE_RIGHTS[Zobrist.castleRights(castleCheck)] ^ Zobrist.CASTLE_RIGHTS[Zobrist.castleRights(castleCheck | moveMask)];
+        }
+        castleCheck |= moveMask;
+        if(Move.flag(move) == Move.DOUBLE_PUSH){
+            newKey ^= Zobrist.enPassantKey(this, colour ^ 1);
+        }
+        key = newKey;
+    }
+
+    /**
+     * Takes back the last move played with {@link #makeMove(int)}
+     */
+    public void unmakeMove(){
+        undoCount--;
+        // Every change made by applyMove is an xor, so applying it again reverts it
+        applyMove(undoMove[undoCount]);
+        updateMailbox(undoMove[undoCount], true);
+        lastMove = undoLastMove[undoCount];
+        castleCheck = undoCastleCheck[undoCount];
+        key = undoKey[undoCount];
+    }
+
+    /**
+     * @return the number of moves that can be taken back with {@link #unmakeMove()}
+     */
+    public int getUndoCount(){
+        return undoCount;
+    }
+
+    /**
+     * Flips the bitboards changed by a move, calling it twice leaves the board unchanged
+     *
+     * @param move a packed move
+     * @return the bitmask of the start and destination square
+     */
+    private long applyMove(int move){
+        long fromMask = 1L << Move.from(move);
+        long toMask = 1L << Move.to(move);
+        long moveMask = fromMask | toMask;
+        int piece = Move.piece(move);
+        int captured = Move.captured(move);
+        switch(Move.flag(move)){
+            case Move.EN_PASSANT -> {
+                togglePiece(piece, moveMask);
+                togglePiece(captured, 1L << Move.enPassantCaptureSquare(move));
+            }
+            case Move.CASTLE -> {
+                togglePiece(piece, moveMask);
+                togglePiece(Piece.of(Piece.colour(piece), Piece.ROOK), Move.castleRookMove(move));
+            }
+            case Move.PROMOTION -> {
+                togglePiece(piece, fromMask);
+                if(captured != Piece.EMPTY){
+                    togglePiece(captured, toMask);
+                }
+                togglePiece(Move.promotion(move), toMask);
+            }
+            default -> {
+                togglePiece(piece, moveMask);
+                if(captured != Piece.EMPTY){
+                    togglePiece(captured, toMask);
+                }
+            }
+        }
+        return moveMask;
+    }
+
+    /**
+     * Moves the pieces of a move in the mailbox, or back when it is taken back
+     * unlike the bitboards the mailbox cannot be flipped, so both directions are written out
+     *
+     * @param move a packed move
+     * @param undo true if the move is taken back
+     */
+    private void updateMailbox(int move, boolean undo){
+        int from = Move.from(move);
+        int to = Move.to(move);
+        byte piece = (byte)Move.piece(move);
+        byte captured = (byte)Move.captured(move);
+        int flag = Move.flag(move);
+
+        if(flag == Move.EN_PASSANT){
+            // The captured pawn is not on the destination square
+            mailbox[Move.enPassantCaptureSquare(move)] = undo ? captured : Piece.EMPTY;
+            captured = Piece.EMPTY;
+        }
+        else if(flag == Move.CASTLE){
+            // The rook starts in the corner and ends next to the king
+            int rookFrom = to > from ? to + 1 : to - 2;
+            int rookTo = to > from ? to - 1 : to + 1;
+            byte rook = (byte)Piece.of(Piece.colour(piece), Piece.ROOK);
+            mailbox[rookFrom] = undo ? rook : Piece.EMPTY;
+            mailbox[rookTo] = undo ? Piece.EMPTY : rook;
+        }
+
+        if(undo){
+            mailbox[from] = piece;
+            mailbox[to] = captured;
+        }
+        else{
+            mailbox[from] = Piece.EMPTY;
+            mailbox[to] = flag == Move.PROMOTION ? (byte)Move.promotion(move) : piece;
+        }
+    }
+
+    /**
+     * Flips the bits of a mask in the bitboard of the given piece and in the occupancy
+     *
+     * @param piece code of the piece whose bitboard is updated
+     * @param mask the bits to flip
+     */
+    private void togglePiece(int piece, long mask){
+        pieces[piece] ^= mask;
+        occupancy[Piece.colour(piece)] ^= mask;
+        allPieces ^= mask;
     }
 }
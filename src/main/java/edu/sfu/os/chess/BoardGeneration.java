@@ -1,5 +1,6 @@
 package edu.sfu.os.chess;
 
+import java.io.PrintStream;
 import java.util.*;
 /**
  * This class is instantiated once at the beginning of a new game.
@@ -45,32 +46,34 @@ public class BoardGeneration {
             BinaryStr=BinaryStr.substring(i+1)+"1"+BinaryStr.substring(0, i); //moves the "1" one bit to the left with each iteration
             switch (chessBoard[i/8][i%8]) {
                 //since there should be no overlap we can add the longs individually with each bit representing a piece of that type
-                case "P": bitboards.WP+=convertStringToBitboard(BinaryStr);
+                case "P": bitboards.pieces[Piece.WP]+=convertStringToBitboard(BinaryStr);
                     break;
-                case "N": bitboards.WN+=convertStringToBitboard(BinaryStr);
+                case "N": bitboards.pieces[Piece.WN]+=convertStringToBitboard(BinaryStr);
                     break;
-                case "B": bitboards.WB+=convertStringToBitboard(BinaryStr);
+                case "B": bitboards.pieces[Piece.WB]+=convertStringToBitboard(BinaryStr);
                     break;
-                case "R": bitboards.WR+=convertStringToBitboard(BinaryStr);
+                case "R": bitboards.pieces[Piece.WR]+=convertStringToBitboard(BinaryStr);
                     break;
-                case "Q": bitboards.WQ+=convertStringToBitboard(BinaryStr);
+                case "Q": bitboards.pieces[Piece.WQ]+=convertStringToBitboard(BinaryStr);
                     break;
-                case "K": bitboards.WK+=convertStringToBitboard(BinaryStr);
+                case "K": bitboards.pieces[Piece.WK]+=convertStringToBitboard(BinaryStr);
                     break;
-                case "p": bitboards.BP+=convertStringToBitboard(BinaryStr);
+                case "p": bitboards.pieces[Piece.BP]+=convertStringToBitboard(BinaryStr);
                     break;
-                case "n": bitboards.BN+=convertStringToBitboard(BinaryStr);
+                case "n": bitboards.pieces[Piece.BN]+=convertStringToBitboard(BinaryStr);
                     break;
-                case "b": bitboards.BB+=convertStringToBitboard(BinaryStr);
+                case "b": bitboards.pieces[Piece.BB]+=convertStringToBitboard(BinaryStr);
                     break;
-                case "r": bitboards.BR+=convertStringToBitboard(BinaryStr);
+                case "r": bitboards.pieces[Piece.BR]+=convertStringToBitboard(BinaryStr);
                     break;
-                case "q": bitboards.BQ+=convertStringToBitboard(BinaryStr);
+                case "q": bitboards.pieces[Piece.BQ]+=convertStringToBitboard(BinaryStr);
                     break;
-                case "k": bitboards.BK+=convertStringToBitboard(BinaryStr);
+                case "k": bitboards.pieces[Piece.BK]+=convertStringToBitboard(BinaryStr);
                     break;
             }
         }
+        bitboards.updateOccupancy();
+        bitboards.updateKey(Piece.WHITE);
         drawArray(bitboards);
         return bitboards;
     }
@@ -94,6 +97,16 @@ public class BoardGeneration {
      * @return Nothing.
      */
     public static void drawArray(Board bitboards) {
+        drawArray(bitboards, System.out);
+    }
+
+    /**
+     * Draws the board position to a stream from the provided bit boards
+     * @param bitboards contains all the bitboards that reflect a chess position
+     * @param out where the board is drawn
+     * @return Nothing.
+     */
+    public static void drawArray(Board bitboards, PrintStream out) {
         String[][] chessBoard =new String[8][8];
         for (int i=0;i<64;i++) {
             chessBoard[i/8][i%8]=" ";
@@ -101,23 +114,23 @@ public class BoardGeneration {
         for (int i=0;i<64;i++) {
             //the bitwise operation ((LONG>>i)&1)==1) shifts the long to the "i" bit and checks if it's 1
             // if it is then it adds the appropriate piece to the chessBoard
-            if (((bitboards.WP>>i)&1)==1) {chessBoard[i/8][i%8]="P";}
-            if (((bitboards.WN>>i)&1)==1) {chessBoard[i/8][i%8]="N";}
-            if (((bitboards.WB>>i)&1)==1) {chessBoard[i/8][i%8]="B";}
-            if (((bitboards.WR>>i)&1)==1) {chessBoard[i/8][i%8]="R";}
-            if (((bitboards.WQ>>i)&1)==1) {chessBoard[i/8][i%8]="Q";}
-            if (((bitboards.WK>>i)&1)==1) {chessBoard[i/8][i%8]="K";}
-            if (((bitboards.BP>>i)&1)==1) {chessBoard[i/8][i%8]="p";}
-            if (((bitboards.BN>>i)&1)==1) {chessBoard[i/8][i%8]="n";}
-            if (((bitboards.BB>>i)&1)==1) {chessBoard[i/8][i%8]="b";}
-            if (((bitboards.BR>>i)&1)==1) {chessBoard[i/8][i%8]="r";}
-            if (((bitboards.BQ>>i)&1)==1) {chessBoard[i/8][i%8]="q";}
-            if (((bitboards.BK>>i)&1)==1) {chessBoard[i/8][i%8]="k";}
+            if (((bitboards.pieces[Piece.WP]>>i)&1)==1) {chessBoard[i/8][i%8]="P";}
+            if (((bitboards.pieces[Piece.WN]>>i)&1)==1) {chessBoard[i/8][i%8]="N";}
+            if (((bitboards.pieces[Piece.WB]>>i)&1)==1) {chessBoard[i/8][i%8]="B";}
+            if (((bitboards.pieces[Piece.WR]>>i)&1)==1) {chessBoard[i/8][i%8]="R";}
+            if (((bitboards.pieces[Piece.WQ]>>i)&1)==1) {chessBoard[i/8][i%8]="Q";}
+            if (((bitboards.pieces[Piece.WK]>>i)&1)==1) {chessBoard[i/8][i%8]="K";}
+            if (((bitboards.pieces[Piece.BP]>>i)&1)==1) {chessBoard[i/8][i%8]="p";}
+            if (((bitboards.pieces[Piece.BN]>>i)&1)==1) {chessBoard[i/8][i%8]="n";}
+            if (((bitboards.pieces[Piece.BB]>>i)&1)==1) {chessBoard[i/8][i%8]="b";}
+            if (((bitboards.pieces[Piece.BR]>>i)&1)==1) {chessBoard[i/8][i%8]="r";}
+            if (((bitboards.pieces[Piece.BQ]>>i)&1)==1) {chessBoard[i/8][i%8]="q";}
+            if (((bitboards.pieces[Piece.BK]>>i)&1)==1) {chessBoard[i/8][i%8]="k";}
         }
         for (int i=0;i<8;i++) {
-            System.out.println(Arrays.toString(chessBoard[i]));
+            out.println(Arrays.toString(chessBoard[i]));
         }
-        System.out.println();
+        out.println();
     }
 
     /**
@@ -0,0 +1,219 @@
+package edu.sfu.os.chess;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Parallel search that gives the same move, score, principal variation and node count every time for a given position,
+ * depth and number of threads, to measure the speedup of more threads without the noise of {@link ParallelSearch}.
+ *
+ * Every iteration splits the root in the young brothers wait way: the first root move, the best one of the iteration
+ * before, is searched alone with the full window. Its score becomes alpha, the other root moves are then searched at the
+ * same time with a null window around it. The moves that fail high are searched again one after the other, in the order of
+ * the moves, with the full window above the best score so far.
+ *
+ * Nothing depends on which thread is faster. Thread k searches the root moves k + 1, k + 1 + threads, k + 1 + 2 * threads,
+ * ... in that order, with its own {@link Search} and {@link TranspositionTable}, so what a thread finds in its table
+ * only depends on what it searched before. The first move and the searches again are done by thread 0. The scores are
+ * collected before the next step starts, a thread never sees the alpha of another one while it searches.
+ *
+ * The price of the determinism is that the threads share no table, every thread has a table of the given size.
+ */
+public final class DeterministicSearch {
+
+    private final Search[] searches;
+    private final TranspositionTable[] tables;
+    private PrintStream output;
+    // Milliseconds from the start of the last search to the end of the iteration of every depth
+    private long[] timeToDepth = new long[0];
+
+    /**
+     * @param megabytes size of the transposition table of every thread
+     * @param threads number of threads, the calling one included
+     */
+    public DeterministicSearch(int megabytes, int threads){
+        this(heapTables(megabytes, threads));
+    }
+
+    /**
+     * @param tables one transposition table per thread, eg. {@link OffHeapTranspositionTable}s for large ones
+     */
+    public DeterministicSearch(TranspositionTable[] tables){
+        if(tables.length < 1){
+            throw new IllegalArgumentException("threads must be at least 1");
+        }
+        this.tables = tables.clone();
+        searches = new Search[tables.length];
+        for(int i = 0; i < tables.length; i++){
+            searches[i] = new Search(tables[i]);
+        }
+    }
+
+    private static TranspositionTable[] heapTables(int megabytes, int threads){
+        if(threads < 1){
+            throw new IllegalArgumentException("threads must be at least 1");
+        }
+        TranspositionTable[] tables = new TranspositionTable[threads];
+        for(int i = 0; i < threads; i++){
+            tables[i] = new TranspositionTable(megabytes);
+        }
+        return tables;
+    }
+
+    /**
+     * @param output where a line is printed after every iteration, null for none
+     */
+    public void setOutput(PrintStream output){
+        this.output = output;
+    }
+
+    public int threads(){
+        return searches.length;
+    }
+
+    /**
+     * Given a Chess Board, searches for the best move on all the threads to a depth. The tables are cleared first, so the
+     * result does not depend on earlier searches either.
+     *
+     * @param currentPosition a Chess Board, left unchanged
+     * @param colour the side to move
+     * @param maxDepth deepest iteration, at least 1
+     *
+     * @return the result of the deepest iteration, with the nodes of all the threads
+     */
+    public SearchResult search(Board currentPosition, int colour, int maxDepth){
+        long startTime = System.nanoTime();
+        maxDepth = Math.max(1, Math.min(maxDepth, Search.MAX_PLY - 1));
+        timeToDepth = new long[maxDepth + 1];
+
+        Board root = new Board(currentPosition);
+        int[] moves = new int[Moves.MAX_MOVES];
+        int count = Moves.generateLegalMoves(root, colour, moves);
+        if(count == 0){
+            timeToDepth = new long[]{0, 0};
+            int score = Moves.checkers(root, colour) != 0 ? -Search.MATE : Search.DRAW;
+            return new SearchResult(Move.NONE, score, new int[0], 1, 1, 0, 0, 0, (System.nanoTime() - startTime) / 1000000);
+        }
+        for(int i = 0; i < searches.length; i++){
+            tables[i].clear();
+            tables[i].newSearch();
+            searches[i].setRoot(root, colour);
+        }
+
+        ExecutorService pool = searches.length > 1 ? Executors.newFixedThreadPool(searches.length - 1) : null;
+        try{
+            SearchResult result = null;
+            for(int depth = 1; depth <= maxDepth; depth++){
+                result = iterate(pool, moves, count, depth, startTime);
+                timeToDepth[depth] = result.millis;
+                if(output != null){
+                    output.println("info " + result);
+                }
+                // A mate that a deeper search cannot change
+                if(Math.abs(result.score) >= Search.MATE_BOUND && Search.MATE - Math.abs(result.score) <= depth){
+                    timeToDepth = Arrays.copyOf(timeToDepth, depth + 1);
+                    break;
+                }
+            }
+            return result;
+        }
+        finally{
+            if(pool != null){
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * @return milliseconds from the start of the last search to the end of the iteration of every depth, index 0 is unused
+     */
+    public long[] timeToDepth(){
+        return timeToDepth.clone();
+    }
+
+    /**
+     * Searches the root moves to a depth, the best one is moved to the front for the next iteration
+     */
+    private SearchResult iterate(ExecutorService pool, int[] moves, int count, int depth, long startTime){
+        Search first = searches[0];
+        int alpha = first.searchMove(moves[0], depth, -Search.INFINITE, Search.INFINITE);
+        int best = 0;
+        int[] line = first.line(moves[0]);
+
+        // The young brothers, each thread takes every threads-th of them
+        int[] scores = new int[count];
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for(int k = 0; k < searches.length; k++){
+            Search search = searches[k];
+            int start = 1 + k;
+            int bound = alpha;
+            tasks.add(() -> {
+                for(int i = start; i < count; i += searches.length){
+                    scores[i] = search.searchMove(moves[i], depth, bound, bound + 1);
+                }
+                return null;
+            });
+        }
+        runAll(pool, tasks);
+
+        for(int i = 1; i < count; i++){
+            if(scores[i] > alpha){
+                int score = first.searchMove(moves[i], depth, alpha, Search.INFINITE);
+                if(score > alpha){
+                    alpha = score;
+                    best = i;
+                    line = first.line(moves[i]);
+                }
+            }
+        }
+
+        int bestMove = moves[best];
+        System.arraycopy(moves, 0, moves, 1, best);
+        moves[0] = bestMove;
+
+        long nodes = 1;
+        long quiescenceNodes = 0;
+        long cutoffs = 0;
+        long firstMoveCutoffs = 0;
+        for(Search search : searches){
+            nodes += search.nodes();
+            quiescenceNodes += search.quiescenceNodes();
+            cutoffs += search.ordering().cutoffs();
+            firstMoveCutoffs += search.ordering().firstMoveCutoffs();
+        }
+        return new SearchResult(bestMove, alpha, line, depth, nodes, quiescenceNodes, cutoffs, firstMoveCutoffs, (System.nanoTime() - startTime) / 1000000);
+    }
+
+    /**
+     * Runs the first task on the calling thread and the others on the pool, and waits for all of them
+     */
+    private static void runAll(ExecutorService pool, List<Callable<Void>> tasks){
+        List<Future<Void>> futures = new ArrayList<>();
+        for(int i = 1; i < tasks.size(); i++){
+            futures.add(pool.submit(tasks.get(i)));
+        }
+        try{
+            tasks.get(0).call();
+            for(Future<Void> future : futures){
+                future.get();
+            }
+        }
+        catch(ExecutionException e){
+            throw new IllegalStateException(e.getCause());
+        }
+        catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        catch(Exception e){
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,20 +1,181 @@
 package edu.sfu.os.chess;
 
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+
 /**
  * Entry point for the engine.
  *
+ * java -cp target/classes edu.sfu.os.chess.Engine [options]
+ * searches the start position, or the given one, to the given depth and prints the best move.
+ *
+ *   --depth N            deepest iteration, 6 by default
+ *   --fen FEN            position to search, the start position by default
+ *   --threads N          search threads, 1 by default
+ *   --deterministic      use a {@link DeterministicSearch}, same moves and node counts on every run
+ *   --hash MB            transposition table size, 64 by default, per thread with --deterministic
+ *   --off-heap           keep the table in direct memory, for tables of many gigabytes
+ *   --large-pages        align the off-heap table to 2 MB pages, implies --off-heap
+ *   --hash-file FILE     keep the table in a memory-mapped file, saved when the engine exits and used again by the next
+ *                        run with the same --hash, not with --deterministic
+ *   --board              draw the position before the search
+ *
+ * With more than one thread the search is a {@link ParallelSearch}, and the time it took to reach every depth
+ * is printed as well, to compare runs with different numbers of threads.
+ *
  * @author  SFU Open Source
  * @version 1.0.0
  * @since   2020-02-14
  */
 public class Engine
 {
+    public static final int DEFAULT_DEPTH = 6;
+    public static final int HASH_MEGABYTES = 64;
+    public static final String START_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    // Exit codes
+    public static final int EXIT_OK = 0;
+    public static final int EXIT_USAGE = 2;
+
+    private static final String USAGE = "usage: Engine [--depth N] [--fen FEN] [--threads N] [--deterministic] [--hash MB] [--off-heap] [--large-pages] [--hash-file FILE] [--board]";
+
     public static Board currentPosition;
 
     public static void main( String[] args )
     {
+        System.exit(run(args, System.out));
+    }
+
+    /**
+     * Runs a search with command line arguments, see the class comment
+     *
+     * @param args the arguments
+     * @param out where the search prints its lines
+     *
+     * @return the exit code
+     */
+    public static int run(String[] args, PrintStream out){
         BitMasks.initBitMasks();
-        String fen = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
-        currentPosition = BoardGeneration.initiateStandardChessFEN(fen);
+
+        String fen = START_POSITION;
+        int depth = DEFAULT_DEPTH;
+        int threads = 1;
+        boolean deterministic = false;
+        int hashMegabytes = HASH_MEGABYTES;
+        boolean offHeap = false;
+        boolean largePages = false;
+        String hashFile = null;
+        boolean drawBoard = false;
+
+        FENParser parser;
+        try{
+            for(int i = 0; i < args.length; i++){
+                switch(args[i]){
+                    case "--depth" -> depth = Integer.parseInt(args[++i]);
+                    case "--fen" -> fen = args[++i];
+                    case "--threads" -> threads = Integer.parseInt(args[++i]);
+                    case "--deterministic" -> deterministic = true;
+                    case "--hash" -> hashMegabytes = Integer.parseInt(args[++i]);
+                    case "--off-heap" -> offHeap = true;
+                    case "--large-pages" -> largePages = true;
+                    case "--hash-file" -> hashFile = args[++i];
+                    case "--board" -> drawBoard = true;
+                    default -> throw new IllegalArgumentException("unknown option " + args[i]);
+                }
+            }
+            if(depth < 1 || threads < 1 || hashMegabytes < 1){
+                throw new IllegalArgumentException("invalid option value");
+            }
+            if(hashFile != null && (deterministic || offHeap || largePages)){
+                throw new IllegalArgumentException("--hash-file cannot be combined with --deterministic, --off-heap or --large-pages");
+            }
+            parser = new FENParser(fen);
+        }
+        catch(IllegalArgumentException | ArrayIndexOutOfBoundsException e){
+            out.println(e.getMessage() == null ? "missing option value" : e.getMessage());
+            out.println(USAGE);
+            return EXIT_USAGE;
+        }
+        currentPosition = parser.getBitboards();
+        if(drawBoard){
+            BoardGeneration.drawArray(currentPosition, out);
+        }
+
+        SearchResult result;
+        long[] timeToDepth;
+        if(deterministic){
+            TranspositionTable[] tables = new TranspositionTable[threads];
+            for(int i = 0; i < threads; i++){
+                tables[i] = newTable(hashMegabytes, offHeap, largePages);
+            }
+            DeterministicSearch search = new DeterministicSearch(tables);
+            search.setOutput(out);
+            result = search.search(currentPosition, parser.getSideToMove(), depth);
+            timeToDepth = search.timeToDepth();
+        }
+        else if(hashFile != null){
+            MappedTranspositionTable table;
+            try{
+                table = MappedTranspositionTable.open(Path.of(hashFile), hashMegabytes);
+            }
+            catch(IOException | RuntimeException e){
+                out.println("cannot open hash file " + hashFile + ": " + e.getMessage());
+                return EXIT_USAGE;
+            }
+            out.println("info string hash file " + hashFile + (table.isWarm() ? " warm" : " cold"));
+            // Saves the table if the engine is stopped during the search
+            Thread hook = new Thread(() -> close(table, out), "hash-file-close");
+            Runtime.getRuntime().addShutdownHook(hook);
+            try{
+                ParallelSearch search = new ParallelSearch(table, threads);
+                search.setOutput(out);
+                result = search.search(currentPosition, parser.getSideToMove(), SearchLimits.depth(depth));
+                timeToDepth = search.timeToDepth();
+            }
+            finally{
+                try{
+                    Runtime.getRuntime().removeShutdownHook(hook);
+                }
+                catch(IllegalStateException e){
+                    // Already shutting down, the hook closes the table
+                }
+                close(table, out);
+            }
+        }
+        else{
+            ParallelSearch search = new ParallelSearch(newTable(hashMegabytes, offHeap, largePages), threads);
+            search.setOutput(out);
+            result = search.search(currentPosition, parser.getSideToMove(), SearchLimits.depth(depth));
+            timeToDepth = search.timeToDepth();
+        }
+        if(threads > 1 || deterministic){
+            StringBuilder line = new StringBuilder("info string threads " + threads + " nodes " + result.nodes + " timetodepth");
+            for(int d = 1; d < timeToDepth.length; d++){
+                line.append(' ').append(d).append(':').append(timeToDepth[d]);
+            }
+            out.println(line);
+        }
+        out.println("bestmove " + (result.bestMove == Move.NONE ? "(none)" : Move.toString(result.bestMove)));
+        return EXIT_OK;
+    }
+
+    private static void close(MappedTranspositionTable table, PrintStream out){
+        try{
+            table.close();
+        }
+        catch(IOException e){
+            out.println("cannot save hash file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return a transposition table on the heap, or in direct memory if either flag is set
+     */
+    static TranspositionTable newTable(int megabytes, boolean offHeap, boolean largePages){
+        if(offHeap || largePages){
+            return new OffHeapTranspositionTable(megabytes, largePages);
+        }
+        return new TranspositionTable(megabytes);
     }
 }
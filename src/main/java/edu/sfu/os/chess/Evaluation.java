@@ -0,0 +1,105 @@
+package edu.sfu.os.chess;
+
+/**
+ * Static evaluation of a position: material and piece-square tables, in centipawns.
+ *
+ * The tables are Tomasz Michniewski's "simplified evaluation function". They are written from white's side with a8 first,
+ * like the squares of the bitboards, black uses the same tables mirrored vertically.
+ */
+public final class Evaluation {
+
+    // Piece values, indexed by piece type
+    public static final int[] PIECE_VALUE = {100, 320, 330, 500, 900, 0};
+
+    private static final int[][] TABLES = {
+            // Pawn
+            {  0,  0,  0,  0,  0,  0,  0,  0,
+              50, 50, 50, 50, 50, 50, 50, 50,
+              10, 10, 20, 30, 30, 20, 10, 10,
+               5,  5, 10, 25, 25, 10,  5,  5,
+               0,  0,  0, 20, 20,  0,  0,  0,
+               5, -5,-10,  0,  0,-10, -5,  5,
+               5, 10, 10,-20,-20, 10, 10,  5,
+               0,  0,  0,  0,  0,  0,  0,  0},
+            // Knight
+            {-50,-40,-30,-30,-30,-30,-40,-50,
+             -40,-20,  0,  0,  0,  0,-20,-40,
+             -30,  0, 10, 15, 15, 10,  0,-30,
+             -30,  5, 15, 20, 20, 15,  5,-30,
+             -30,  0, 15, 20, 20, 15,  0,-30,
+             -30,  5, 10, 15, 15, 10,  5,-30,
+             -40,-20,  0,  5,  5,  0,-20,-40,
+             -50,-40,-30,-30,-30,-30,-40,-50},
+            // Bishop
+            {-20,-10,-10,-10,-10,-10,-10,-20,
+             -10,  0,  0,  0,  0,  0,  0,-10,
+             -10,  0,  5, 10, 10,  5,  0,-10,
+             -10,  5,  5, 10, 10,  5,  5,-10,
+             -10,  0, 10, 10, 10, 10,  0,-10,
+             -10, 10, 10, 10, 10, 10, 10,-10,
+             -10,  5,  0,  0,  0,  0,  5,-10,
+             -20,-10,-10,-10,-10,-10,-10,-20},
+            // Rook
+            {  0,  0,  0,  0,  0,  0,  0,  0,
+               5, 10, 10, 10, 10, 10, 10,  5,
+              -5,  0,  0,  0,  0,  0,  0, -5,
+              -5,  0,  0,  0,  0,  0,  0, -5,
+              -5,  0,  0,  0,  0,  0,  0, -5,
+              -5,  0,  0,  0,  0,  0,  0, -5,
+              -5,  0,  0,  0,  0,  0,  0, -5,
+               0,  0,  0,  5,  5,  0,  0,  0},
+            // Queen
+            {-20,-10,-10, -5, -5,-10,-10,-20,
+             -10,  0,  0,  0,  0,  0,  0,-10,
+             -10,  0,  5,  5,  5,  5,  0,-10,
+              -5,  0,  5,  5,  5,  5,  0, -5,
+               0,  0,  5,  5,  5,  5,  0, -5,
+             -10,  5,  5,  5,  5,  5,  0,-10,
+             -10,  0,  5,  0,  0,  0,  0,-10,
+             -20,-10,-10, -5, -5,-10,-10,-20},
+            // King, middle game
+            {-30,-40,-40,-50,-50,-40,-40,-30,
+             -30,-40,-40,-50,-50,-40,-40,-30,
+             -30,-40,-40,-50,-50,-40,-40,-30,
+             -30,-40,-40,-50,-50,-40,-40,-30,
+             -20,-30,-30,-40,-40,-30,-30,-20,
+             -10,-20,-20,-20,-20,-20,-20,-10,
+              20, 20,  0,  0,  0,  0, 20, 20,
+              20, 30, 10,  0,  0, 10, 30, 20}};
+
+    // Value and table together, indexed by piece code and square, positive for both colours
+    private static final int[][] PIECE_SQUARE = new int[12][64];
+
+    static{
+        for(int type = Piece.PAWN; type <= Piece.KING; type++){
+            for(int square = 0; square < 64; square++){
+                PIECE_SQUARE[Piece.of(Piece.WHITE, type)][square] = PIECE_VALUE[type] + TABLES[type][square];
+                // Same file, the rank counted from the other side
+                PIECE_SQUARE[Piece.of(Piece.BLACK, type)][square] = PIECE_VALUE[type] + TABLES[type][square ^ 56];
+            }
+        }
+    }
+
+    private Evaluation(){}
+
+    /**
+     * Given a Chess Board, returns its static evaluation
+     *
+     * @param currentPosition a Chess Board
+     * @param colour the side to move
+     *
+     * @return the evaluation in centipawns, positive if the side to move is better
+     */
+    public static int evaluate(Board currentPosition, int colour){
+        int score = 0;
+        for(int piece = Piece.WP; piece <= Piece.BK; piece++){
+            int sign = Piece.colour(piece) == colour ? 1 : -1;
+            long bb = currentPosition.pieces[piece];
+            while(bb != 0){
+                score += sign * PIECE_SQUARE[piece][Long.numberOfTrailingZeros(bb)];
+                bb &= bb - 1;
+            }
+        }
+        return score;
+    }
+}
@@ -1,7 +1,8 @@
 package edu.sfu.os.chess;
 
 /** FENParser is a class that parses FEN strings into bitboards.
- * Since bitboards has not been implemented, most of FENParser methods are place holder.
+ * The castling rights and the en passant square are written to the Board as castleCheck and lastMove,
+ * so the move generators see the same position as the FEN string describes.
  */
 public class FENParser {
     /** A placeholder bitboard that will be result of the parse
@@ -19,17 +20,19 @@ public class FENParser {
     private boolean castleWhiteQueen;
 
     /** Constructor for FENParser, most of the work will be performed inside
-     * @param fenString string following FEN
+     * @param fenString string following FEN, the move counters may be left out like in EPD
      */
     public FENParser(String fenString) {
-        String[] fenElements = fenString.split(" ");
+        String[] fenElements = fenString.trim().split("\\s+");
 
         piecePlacement(fenElements[0]);
         currentMove = fenElements[1];
         checkCastling(fenElements[2]);
         enPassant = fenElements[3];
-        halfmoveClock = Integer.parseInt(fenElements[4]);
-        fullmoveCounter = Integer.parseInt(fenElements[5]);
+        halfmoveClock = fenElements.length > 4 ? Integer.parseInt(fenElements[4]) : 0;
+        fullmoveCounter = fenElements.length > 5 ? Integer.parseInt(fenElements[5]) : 1;
+        setEnPassant(enPassant);
+        bitboards.updateKey(getSideToMove());
     }
 
     /**
@@ -46,22 +49,23 @@ public class FENParser {
                 binary = binary.substring(currentBits+1) + "1" + binary.substring(0, currentBits);
                 switch (s.charAt(i)) {
                     case '1', '2', '3', '4', '5', '6', '7', '8' -> currentBits += Character.getNumericValue(s.charAt(i)) - 1;
-                    case 'P' -> bitboards.WP += convertStringToBitboard(binary);
-                    case 'N' -> bitboards.WN += convertStringToBitboard(binary);
-                    case 'B' -> bitboards.WB += convertStringToBitboard(binary);
-                    case 'R' -> bitboards.WR += convertStringToBitboard(binary);
-                    case 'Q' -> bitboards.WQ += convertStringToBitboard(binary);
-                    case 'K' -> bitboards.WK += convertStringToBitboard(binary);
-                    case 'p' -> bitboards.BP += convertStringToBitboard(binary);
-                    case 'n' -> bitboards.BN += convertStringToBitboard(binary);
-                    case 'b' -> bitboards.BB += convertStringToBitboard(binary);
-                    case 'r' -> bitboards.BR += convertStringToBitboard(binary);
-                    case 'q' -> bitboards.BQ += convertStringToBitboard(binary);
-                    case 'k' -> bitboards.BK += convertStringToBitboard(binary);
+                    case 'P' -> bitboards.pieces[Piece.WP] += convertStringToBitboard(binary);
+                    case 'N' -> bitboards.pieces[Piece.WN] += convertStringToBitboard(binary);
+                    case 'B' -> bitboards.pieces[Piece.WB] += convertStringToBitboard(binary);
+                    case 'R' -> bitboards.pieces[Piece.WR] += convertStringToBitboard(binary);
+                    case 'Q' -> bitboards.pieces[Piece.WQ] += convertStringToBitboard(binary);
+                    case 'K' -> bitboards.pieces[Piece.WK] += convertStringToBitboard(binary);
+                    case 'p' -> bitboards.pieces[Piece.BP] += convertStringToBitboard(binary);
+                    case 'n' -> bitboards.pieces[Piece.BN] += convertStringToBitboard(binary);
+                    case 'b' -> bitboards.pieces[Piece.BB] += convertStringToBitboard(binary);
+                    case 'r' -> bitboards.pieces[Piece.BR] += convertStringToBitboard(binary);
+                    case 'q' -> bitboards.pieces[Piece.BQ] += convertStringToBitboard(binary);
+                    case 'k' -> bitboards.pieces[Piece.BK] += convertStringToBitboard(binary);
                 }
                 currentBits++;
             }
         }
+        bitboards.updateOccupancy();
     }
 
     /** checkCastling check available Castling Rights, placeholder
@@ -84,6 +88,38 @@ public class FENParser {
         if (castling.contains("q")){
             castleBlackQueen = true;
         }
+        // A right that is gone is marked as if its rook had moved, see Board.castleCheck
+        if (!castleWhiteKing) {
+            bitboards.castleCheck |= 1L << 63;
+        }
+        if (!castleWhiteQueen) {
+            bitboards.castleCheck |= 1L << 56;
+        }
+        if (!castleBlackKing) {
+            bitboards.castleCheck |= 1L << 7;
+        }
+        if (!castleBlackQueen) {
+            bitboards.castleCheck |= 1L;
+        }
+    }
+
+    /** setEnPassant marks the double push that allows the en passant capture as the last move
+     * @param square the square behind the pawn, eg. "e3", or "-" if there is none
+     */
+    private void setEnPassant(String square) {
+        if (square.equals("-")) {
+            return;
+        }
+        int index = (square.charAt(0) - 'a') + 8 * ('8' - square.charAt(1));
+        // The pawn went from the square behind the target to the square in front of it
+        bitboards.lastMove = 1L << (index - 8) | 1L << (index + 8);
+    }
+
+    /**
+     * @return {@link Piece#WHITE} or {@link Piece#BLACK}, the side to move
+     */
+    public int getSideToMove() {
+        return currentMove.equals("b") ? Piece.BLACK : Piece.WHITE;
     }
 
     /** convertStringToBitboard convert binary string to unsigned long value
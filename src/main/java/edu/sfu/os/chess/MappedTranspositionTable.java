@@ -0,0 +1,166 @@
+package edu.sfu.os.chess;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Transposition table kept in a memory-mapped file, so its entries survive a restart of the engine.
+ *
+ * The file starts with a header page that holds a magic number, the format version, the bucket layout, the number of buckets
+ * and the generation of the last search. The entries follow it, exactly as they are kept in memory. When a file is opened
+ * with a header that matches, its entries are used as they are, there is nothing to read or convert. Otherwise the file is
+ * emptied and a new header is written.
+ *
+ * The kernel writes changed pages back on its own, {@link #save()} forces them to disk. A crash can leave some entries
+ * half written, like a concurrent write they fail the xor check and read as misses. {@link #VERSION} has to change when
+ * the entry layout, the Zobrist keys or the move encoding change, because the stored keys and moves would no longer match.
+ */
+public class MappedTranspositionTable extends OffHeapTranspositionTable implements AutoCloseable {
+
+    public static final int VERSION = 1;
+    // "SFUCHESS" in ASCII
+    private static final long MAGIC = 0x5346554348455353L;
+    private static final int HEADER_SIZE = 4096;
+    // Offsets of the header fields
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 8;
+    private static final int BUCKET_SIZE_OFFSET = 12;
+    private static final int BUCKETS_OFFSET = 16;
+    private static final int GENERATION_OFFSET = 24;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final MappedByteBuffer[] maps;
+    private final boolean warm;
+
+    private MappedTranspositionTable(long buckets, int chunkShift, Mapping mapping){
+        super(buckets, chunkShift, mapping.chunks);
+        this.channel = mapping.channel;
+        this.header = mapping.header;
+        this.maps = mapping.maps;
+        this.warm = mapping.warm;
+        if(warm){
+            setGeneration(header.getInt(GENERATION_OFFSET));
+        }
+        else{
+            writeHeader(buckets);
+        }
+    }
+
+    /**
+     * Opens the table in a file, the entries in the file are used if its header matches the format and size
+     *
+     * @param file the file, created if it does not exist
+     * @param megabytes memory budget, rounded down to a power of two number of buckets
+     *
+     * @return the table, see {@link #isWarm()}
+     */
+    public static MappedTranspositionTable open(Path file, long megabytes) throws IOException {
+        return open(file, megabytes, CHUNK_SHIFT);
+    }
+
+    static MappedTranspositionTable open(Path file, long megabytes, int chunkShift) throws IOException {
+        long buckets = bucketCount(megabytes, MAX_BUCKETS);
+        return new MappedTranspositionTable(buckets, chunkShift, new Mapping(file, buckets, chunkShift));
+    }
+
+    /**
+     * @return true if the entries were taken from the file, false if the table started empty
+     */
+    public boolean isWarm(){
+        return warm;
+    }
+
+    /**
+     * Writes the generation and every changed page to the file
+     */
+    public void save(){
+        header.putInt(GENERATION_OFFSET, currentGeneration());
+        for(MappedByteBuffer map : maps){
+            map.force();
+        }
+        header.force();
+    }
+
+    /**
+     * Saves the table and closes the file, the table must not be used afterwards. Closing it again does nothing, so a
+     * shutdown hook can close it as well.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if(!channel.isOpen()){
+            return;
+        }
+        save();
+        channel.close();
+    }
+
+    @Override
+    public void clear(){
+        super.clear();
+        header.putInt(GENERATION_OFFSET, 0);
+    }
+
+    private void writeHeader(long buckets){
+        header.putInt(VERSION_OFFSET, VERSION);
+        header.putInt(BUCKET_SIZE_OFFSET, BUCKET_SIZE);
+        header.putLong(BUCKETS_OFFSET, buckets);
+        header.putInt(GENERATION_OFFSET, 0);
+        // The magic number goes last, a header without it is never trusted
+        header.putLong(MAGIC_OFFSET, MAGIC);
+        header.force();
+    }
+
+    /**
+     * The mapped file, it has to be opened before the constructor of the superclass is called
+     */
+    private static final class Mapping {
+
+        final FileChannel channel;
+        final MappedByteBuffer header;
+        final MappedByteBuffer[] maps;
+        final LongBuffer[] chunks;
+        final boolean warm;
+
+        Mapping(Path file, long buckets, int chunkShift) throws IOException {
+            long longs = buckets * BUCKET_SIZE;
+            long size = HEADER_SIZE + longs * Long.BYTES;
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try{
+                boolean matches = channel.size() == size && headerMatches(channel, buckets);
+                if(!matches){
+                    // Dropping the old entries leaves a sparse file of zeros, an empty table
+                    channel.truncate(0);
+                }
+                header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+                header.order(ByteOrder.nativeOrder());
+                maps = new MappedByteBuffer[chunkCount(longs, chunkShift)];
+                chunks = new LongBuffer[maps.length];
+                for(int i = 0; i < maps.length; i++){
+                    long position = HEADER_SIZE + ((long)i << chunkShift) * Long.BYTES;
+                    maps[i] = channel.map(FileChannel.MapMode.READ_WRITE, position, (long)chunkSize(longs, chunkShift, i) * Long.BYTES);
+                    chunks[i] = maps[i].order(ByteOrder.nativeOrder()).asLongBuffer();
+                }
+                warm = matches;
+            }
+            catch(IOException | RuntimeException e){
+                channel.close();
+                throw e;
+            }
+        }
+
+        private static boolean headerMatches(FileChannel channel, long buckets) throws IOException {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            header.order(ByteOrder.nativeOrder());
+            return header.getLong(MAGIC_OFFSET) == MAGIC
+                    && header.getInt(VERSION_OFFSET) == VERSION
+                    && header.getInt(BUCKET_SIZE_OFFSET) == BUCKET_SIZE
+                    && header.getLong(BUCKETS_OFFSET) == buckets;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package edu.sfu.os.chess;
+
+/**
+ * Packs a move into a single int so move lists can be kept in primitive arrays.
+ *
+ * Squares use the same indexing as the bitboards, index 0 is Rank 8 File A and index 63 is Rank 1 File H.
+ *
+ *  bits  0 -  5   from square
+ *  bits  6 - 11   to square
+ *  bits 12 - 15   moving piece, see {@link Piece}
+ *  bits 16 - 19   captured piece, {@link Piece#EMPTY} if none
+ *  bits 20 - 23   promotion piece, {@link Piece#EMPTY} if none
+ *  bits 24 - 26   flag, one of {@link #NORMAL}, {@link #DOUBLE_PUSH}, {@link #EN_PASSANT}, {@link #CASTLE}, {@link #PROMOTION}
+ *
+ * A value of {@link #NONE} never describes a legal move since from and to are equal.
+ */
+public final class Move {
+
+    public static final int NONE = 0;
+
+    // Flags
+    public static final int NORMAL = 0;
+    public static final int DOUBLE_PUSH = 1;
+    public static final int EN_PASSANT = 2;
+    public static final int CASTLE = 3;
+    public static final int PROMOTION = 4;
+
+    private Move(){}
+
+    /**
+     * Packs the fields of a move into an int
+     *
+     * @param from index of the start square
+     * @param to index of the destination square
+     * @param piece code of the moving piece
+     * @param captured code of the captured piece, {@link Piece#EMPTY} if none
+     * @param promotion code of the promoted piece, {@link Piece#EMPTY} if none
+     * @param flag type of the move
+     * @return the packed move
+     */
+    public static int encode(int from, int to, int piece, int captured, int promotion, int flag){
+        return from | to << 6 | piece << 12 | captured << 16 | promotion << 20 | flag << 24;
+    }
+
+    public static int from(int move){
+        return move & 0x3F;
+    }
+
+    public static int to(int move){
+        return (move >>> 6) & 0x3F;
+    }
+
+    public static int piece(int move){
+        return (move >>> 12) & 0xF;
+    }
+
+    public static int captured(int move){
+        return (move >>> 16) & 0xF;
+    }
+
+    public static int promotion(int move){
+        return (move >>> 20) & 0xF;
+    }
+
+    public static int flag(int move){
+        return (move >>> 24) & 0x7;
+    }
+
+    public static boolean isCapture(int move){
+        return captured(move) != Piece.EMPTY;
+    }
+
+    /**
+     * @param move a packed move
+     * @return a bitmask with the start and destination square of the move set
+     */
+    public static long toMoveMask(int move){
+        return 1L << from(move) | 1L << to(move);
+    }
+
+    /**
+     * Given an en passant move, returns the square of the pawn that is captured
+     *
+     * @param move a packed en passant move
+     * @return index of the captured pawn
+     */
+    public static int enPassantCaptureSquare(int move){
+        // The captured pawn is directly behind the destination
+        return Piece.isWhite(piece(move)) ? to(move) + 8 : to(move) - 8;
+    }
+
+    /**
+     * Given a castling move, returns the bitmask of the matching rook move
+     *
+     * @param move a packed castling move
+     * @return the rook's move bitmask
+     */
+    public static long castleRookMove(int move){
+        return switch(to(move)){
+            case 62 -> BitMasks.WR_K_Castle_Move;
+            case 58 -> BitMasks.WR_Q_Castle_Move;
+            case 6 -> BitMasks.BR_K_Castle_Move;
+            default -> BitMasks.BR_Q_Castle_Move;
+        };
+    }
+
+    /**
+     * Given a packed move, returns the move in coordinate notation, eg. "e2e4" or "e7e8q"
+     *
+     * @param move a packed move
+     * @return the move in coordinate notation
+     */
+    public static String toString(int move){
+        String notation = squareToString(from(move)) + squareToString(to(move));
+        if(flag(move) == PROMOTION){
+            notation += Character.toLowerCase(Piece.toChar(promotion(move)));
+        }
+        return notation;
+    }
+
+    private static String squareToString(int index){
+        char file = (char)('a' + index % 8);
+        int rank = 8 - index / 8;
+        return "" + file + rank;
+    }
+}
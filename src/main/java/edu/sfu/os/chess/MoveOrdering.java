@@ -0,0 +1,143 @@
+package edu.sfu.os.chess;
+
+import java.util.Arrays;
+
+/**
+ * What a search has learnt about which quiet moves cause cutoffs, for the {@link MovePicker} to try them early.
+ *
+ * Killers: the last two quiet moves that caused a cutoff at a ply, siblings in the tree often refute the same way.
+ * History: a score for every side, from square and to square, raised for a quiet move that causes a cutoff and lowered
+ * for the quiet moves tried before it, the quiet moves are tried in order of it.
+ * Countermoves: the quiet move that last refuted a move, by the piece and destination of the move it answers.
+ *
+ * Everything is kept in int arrays and nothing is allocated during a search. It also counts the cutoffs, and how many of
+ * them came from the first move, which tells how well the moves are ordered. An instance belongs to one search.
+ */
+public final class MoveOrdering {
+
+    // History scores stay between -HISTORY_MAX and HISTORY_MAX
+    public static final int HISTORY_MAX = 16384;
+    // Largest change of a history score at once, depth squared up to this
+    private static final int HISTORY_BONUS_MAX = 1024;
+
+    // Two slots per ply, the newest first
+    private final int[] killers = new int[Search.MAX_PLY * 2];
+    // Indexed by historyIndex
+    private final int[] history = new int[2 * 64 * 64];
+    // Indexed by the piece code and the destination of the move that is answered
+    private final int[] counterMoves = new int[12 * 64];
+
+    private long cutoffs;
+    private long firstMoveCutoffs;
+
+    public MoveOrdering(){
+        clear();
+    }
+
+    /**
+     * Forgets everything, to start a search that does not depend on earlier ones
+     */
+    public void clear(){
+        Arrays.fill(killers, Move.NONE);
+        Arrays.fill(history, 0);
+        Arrays.fill(counterMoves, Move.NONE);
+        cutoffs = 0;
+        firstMoveCutoffs = 0;
+    }
+
+    /**
+     * @return the index of a move in the history table, by side, from square and to square
+     */
+    public static int historyIndex(int colour, int move){
+        return colour << 12 | Move.from(move) << 6 | Move.to(move);
+    }
+
+    /**
+     * @return the history table, read by the {@link MovePicker} to order the quiet moves
+     */
+    public int[] history(){
+        return history;
+    }
+
+    public int history(int colour, int move){
+        return history[historyIndex(colour, move)];
+    }
+
+    /**
+     * @param slot 0 for the newest killer, 1 for the older one
+     */
+    public int killer(int ply, int slot){
+        return killers[ply * 2 + slot];
+    }
+
+    /**
+     * @param previousMove the move that was just played, {@link Move#NONE} at the root
+     *
+     * @return the quiet move that last refuted it, {@link Move#NONE} if there is none
+     */
+    public int counterMove(int previousMove){
+        if(previousMove == Move.NONE){
+            return Move.NONE;
+        }
+        return counterMoves[Move.piece(previousMove) << 6 | Move.to(previousMove)];
+    }
+
+    /**
+     * Records a beta cutoff
+     *
+     * @param firstMove true if the move was the first legal move of the node
+     */
+    public void cutoff(boolean firstMove){
+        cutoffs++;
+        if(firstMove){
+            firstMoveCutoffs++;
+        }
+    }
+
+    /**
+     * Learns from a quiet move that caused a beta cutoff
+     *
+     * @param ply distance from the root
+     * @param colour the side that played the move
+     * @param move the quiet move that caused the cutoff
+     * @param previousMove the move before it, {@link Move#NONE} at the root
+     * @param depth remaining depth of the node
+     * @param quietsTried the quiet moves searched before it at the node, without a cutoff
+     * @param quietCount number of them
+     */
+    public void update(int ply, int colour, int move, int previousMove, int depth, int[] quietsTried, int quietCount){
+        if(killers[ply * 2] != move){
+            killers[ply * 2 + 1] = killers[ply * 2];
+            killers[ply * 2] = move;
+        }
+        if(previousMove != Move.NONE){
+            counterMoves[Move.piece(previousMove) << 6 | Move.to(previousMove)] = move;
+        }
+        int bonus = Math.min(depth * depth, HISTORY_BONUS_MAX);
+        addHistory(historyIndex(colour, move), bonus);
+        for(int i = 0; i < quietCount; i++){
+            addHistory(historyIndex(colour, quietsTried[i]), -bonus);
+        }
+    }
+
+    /**
+     * Moves a score towards the bonus, the closer it already is to the limit the smaller the step
+     */
+    private void addHistory(int index, int bonus){
+        history[index] += bonus - history[index] * Math.abs(bonus) / HISTORY_MAX;
+    }
+
+    /**
+     * @return the number of beta cutoffs since the last clear
+     */
+    public long cutoffs(){
+        return cutoffs;
+    }
+
+    /**
+     * @return the number of beta cutoffs on the first move since the last clear
+     */
+    public long firstMoveCutoffs(){
+        return firstMoveCutoffs;
+    }
+}
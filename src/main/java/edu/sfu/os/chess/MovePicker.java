@@ -0,0 +1,358 @@
+package edu.sfu.os.chess;
+
+/**
+ * Hands out the pseudo-legal moves of a position one at a time, in the order a search wants to try them:
+ * hash move, winning captures, promotions, killers, countermove, quiet moves and losing captures.
+ *
+ * Every stage is generated only when the one before it is used up, so a node that cuts off on the hash move or a capture
+ * never generates its quiet moves. The captures are ordered by most valuable victim, least valuable attacker, the quiet moves
+ * by the history table of a {@link MoveOrdering} if one is given. A picker owns its buffers, keep one per ply and call {@link #init} at every node.
+ * The moves are pseudo-legal, the caller still has to check that the king is not left in check.
+ *
+ * For the quiescence search, {@link #initQuiescence} hands out only the captures that do not lose material and the promotions.
+ */
+public final class MovePicker {
+
+    // Stages, in the order they are run
+    public static final int HASH_MOVE = 0;
+    public static final int GENERATE_CAPTURES = 1;
+    public static final int WINNING_CAPTURES = 2;
+    public static final int GENERATE_PROMOTIONS = 3;
+    public static final int PROMOTIONS = 4;
+    public static final int FIRST_KILLER = 5;
+    public static final int SECOND_KILLER = 6;
+    public static final int COUNTER_MOVE = 7;
+    public static final int GENERATE_QUIETS = 8;
+    public static final int QUIETS = 9;
+    public static final int LOSING_CAPTURES = 10;
+    public static final int DONE = 11;
+
+    // Piece values for the static exchange evaluation, indexed by piece type
+    private static final int[] SEE_VALUE = {100, 325, 325, 500, 1000, 20000};
+
+    private final int[] moves = new int[Moves.MAX_MOVES];
+    private final int[] scores = new int[Moves.MAX_MOVES];
+    private final int[] losingCaptures = new int[Moves.MAX_MOVES];
+    // Used to check the hash move and the killers against the generators
+    private final int[] scratch = new int[Moves.MAX_MOVES];
+    // Swap list of the static exchange evaluation, one entry per capture on the square
+    private final int[] gain = new int[32];
+
+    private Board board;
+    private int colour;
+    private int hashMove;
+    private int firstKiller;
+    private int secondKiller;
+    private int counterMove;
+    // Scores of the quiet moves, null to try them in the order they are generated
+    private int[] history;
+    // Stop after the promotions
+    private boolean quiescence;
+
+    private int stage;
+    private int index;
+    private int count;
+    private int losingCount;
+
+    /**
+     * Prepares the picker for a new position, nothing is generated yet
+     *
+     * @param currentPosition a Chess Board, it must not change until the picker is done or re-initialised
+     * @param colour the side to move
+     * @param hashMove the best move from an earlier search of the position, {@link Move#NONE} if there is none
+     * @param firstKiller a quiet move that caused a cutoff at the same ply, {@link Move#NONE} if there is none
+     * @param secondKiller an older killer, {@link Move#NONE} if there is none
+     */
+    public void init(Board currentPosition, int colour, int hashMove, int firstKiller, int secondKiller){
+        init(currentPosition, colour, hashMove, firstKiller, secondKiller, Move.NONE, null);
+    }
+
+    /**
+     * Prepares the picker for a new position, nothing is generated yet
+     *
+     * @param currentPosition a Chess Board, it must not change until the picker is done or re-initialised
+     * @param colour the side to move
+     * @param hashMove the best move from an earlier search of the position, {@link Move#NONE} if there is none
+     * @param firstKiller a quiet move that caused a cutoff at the same ply, {@link Move#NONE} if there is none
+     * @param secondKiller an older killer, {@link Move#NONE} if there is none
+     * @param counterMove a quiet move that refuted the move before, {@link Move#NONE} if there is none
+     * @param history history scores indexed by {@link MoveOrdering#historyIndex}, null for none
+     */
+    public void init(Board currentPosition, int colour, int hashMove, int firstKiller, int secondKiller, int counterMove, int[] history){
+        this.board = currentPosition;
+        this.colour = colour;
+        this.hashMove = hashMove;
+        this.firstKiller = firstKiller;
+        this.secondKiller = secondKiller;
+        this.counterMove = counterMove;
+        this.history = history;
+        this.quiescence = false;
+        this.stage = HASH_MOVE;
+        this.index = 0;
+        this.count = 0;
+        this.losingCount = 0;
+    }
+
+    /**
+     * Prepares the picker for a quiescence search of a position: the captures that win or keep material, best victim first,
+     * then the promotions. Quiet moves and losing captures are never returned.
+     *
+     * @param currentPosition a Chess Board, it must not change until the picker is done or re-initialised
+     * @param colour the side to move
+     */
+    public void initQuiescence(Board currentPosition, int colour){
+        init(currentPosition, colour, Move.NONE, Move.NONE, Move.NONE);
+        this.quiescence = true;
+    }
+
+    /**
+     * @return the stage the next call to {@link #next()} starts in, see the stage constants
+     */
+    public int stage(){
+        return stage;
+    }
+
+    /**
+     * Returns the next move to try, every pseudo-legal move of the position is returned exactly once
+     * a stage that has nothing more to return falls through to the next one
+     *
+     * @return a packed move, {@link Move#NONE} once all moves have been returned
+     */
+    @SuppressWarnings("fallthrough")
+    public int next(){
+        switch(stage){
+            case HASH_MOVE:
+                stage = GENERATE_CAPTURES;
+                if(hashMove != Move.NONE && isPseudoLegal(hashMove)){
+                    return hashMove;
+                }
+                // fall through
+            case GENERATE_CAPTURES:
+                count = Moves.generateCaptures(board, colour, moves, 0);
+                index = 0;
+                for(int i = 0; i < count; i++){
+                    scores[i] = mvvLva(moves[i]);
+                }
+                stage = WINNING_CAPTURES;
+                // fall through
+            case WINNING_CAPTURES:
+                while(index < count){
+                    int move = pickBest();
+                    if(move == hashMove){
+                        continue;
+                    }
+                    if(see(board, move, gain) < 0){
+                        losingCaptures[losingCount++] = move;
+                        continue;
+                    }
+                    return move;
+                }
+                stage = GENERATE_PROMOTIONS;
+                // fall through
+            case GENERATE_PROMOTIONS:
+                count = Moves.generatePromotionMoves(board, colour, moves, 0);
+                index = 0;
+                for(int i = 0; i < count; i++){
+                    // Queens first, captures before pushes for the same promotion piece
+                    scores[i] = Piece.type(Move.promotion(moves[i])) * 16 + mvvLva(moves[i]);
+                }
+                stage = PROMOTIONS;
+                // fall through
+            case PROMOTIONS:
+                while(index < count){
+                    int move = pickBest();
+                    if(move != hashMove){
+                        return move;
+                    }
+                }
+                if(quiescence){
+                    stage = DONE;
+                    return Move.NONE;
+                }
+                stage = FIRST_KILLER;
+                // fall through
+            case FIRST_KILLER:
+                stage = SECOND_KILLER;
+                if(isKiller(firstKiller)){
+                    return firstKiller;
+                }
+                // fall through
+            case SECOND_KILLER:
+                stage = COUNTER_MOVE;
+                if(secondKiller != firstKiller && isKiller(secondKiller)){
+                    return secondKiller;
+                }
+                // fall through
+            case COUNTER_MOVE:
+                stage = GENERATE_QUIETS;
+                if(counterMove != firstKiller && counterMove != secondKiller && isKiller(counterMove)){
+                    return counterMove;
+                }
+                // fall through
+            case GENERATE_QUIETS:
+                count = Moves.generateQuiets(board, colour, moves, 0);
+                index = 0;
+                if(history != null){
+                    for(int i = 0; i < count; i++){
+                        scores[i] = history[MoveOrdering.historyIndex(colour, moves[i])];
+                    }
+                }
+                stage = QUIETS;
+                // fall through
+            case QUIETS:
+                while(index < count){
+                    int move = history != null ? pickBest() : moves[index++];
+                    if(move != hashMove && move != firstKiller && move != secondKiller && move != counterMove){
+                        return move;
+                    }
+                }
+                index = 0;
+                stage = LOSING_CAPTURES;
+                // fall through
+            case LOSING_CAPTURES:
+                if(index < losingCount){
+                    return losingCaptures[index++];
+                }
+                stage = DONE;
+                // fall through
+            default:
+                return Move.NONE;
+        }
+    }
+
+    /**
+     * Moves the best scored move left to the front of the unread part of the buffer and returns it
+     */
+    private int pickBest(){
+        int best = index;
+        for(int i = index + 1; i < count; i++){
+            if(scores[i] > scores[best]){
+                best = i;
+            }
+        }
+        int move = moves[best];
+        moves[best] = moves[index];
+        scores[best] = scores[index];
+        index++;
+        return move;
+    }
+
+    /**
+     * Most valuable victim, least valuable attacker
+     */
+    private static int mvvLva(int move){
+        int captured = Move.captured(move);
+        if(captured == Piece.EMPTY){
+            return 0;
+        }
+        return (Piece.type(captured) + 1) * 8 - Piece.type(Move.piece(move));
+    }
+
+    /**
+     * A killer or countermove is only tried if it is a quiet move in this position, captures and promotions already had their turn
+     */
+    private boolean isKiller(int move){
+        return move != Move.NONE && move != hashMove && !Move.isCapture(move) && Move.flag(move) != Move.PROMOTION && isPseudoLegal(move);
+    }
+
+    /**
+     * Given a move from another position, eg. from the transposition table or a killer slot, checks if the generators
+     * would produce it in this position. Only the moves of the same piece type are generated.
+     */
+    private boolean isPseudoLegal(int move){
+        int piece = Move.piece(move);
+        if(piece == Piece.EMPTY || Piece.colour(piece) != colour || (board.pieces[piece] & 1L << Move.from(move)) == 0){
+            return false;
+        }
+        int type = Piece.type(piece);
+        int n;
+        if(type == Piece.PAWN){
+            n = Moves.generatePawnMoves(board, colour, scratch, 0);
+            n = Moves.generateEnPassantMoves(board, colour, scratch, n);
+            n = Moves.generatePromotionMoves(board, colour, scratch, n);
+        }
+        else if(type == Piece.KING){
+            n = Moves.generateKingMoves(board, colour, scratch, 0);
+            n = Moves.generateCastleMoves(board, colour, scratch, n);
+        }
+        else{
+            n = Moves.generatePieceMoves(board, colour, type, scratch, 0);
+        }
+        for(int i = 0; i < n; i++){
+            if(scratch[i] == move){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Static exchange evaluation, plays out all captures on the destination square of a move,
+     * always with the least valuable attacker, and returns the material balance for the side that moves.
+     * Either side may stop capturing when it would lose material. Pins are not taken into account.
+     *
+     * @param currentPosition a Chess Board
+     * @param move a packed move, normally a capture
+     *
+     * @return the material won, in centipawns, negative if the move loses material
+     */
+    public static int see(Board currentPosition, int move){
+        return see(currentPosition, move, new int[32]);
+    }
+
+    private static int see(Board currentPosition, int move, int[] gain){
+        if(Move.flag(move) == Move.CASTLE){
+            return 0;
+        }
+        long[] pieces = currentPosition.pieces;
+        final int to = Move.to(move);
+        final long ROOKS = pieces[Piece.WR] | pieces[Piece.BR] | pieces[Piece.WQ] | pieces[Piece.BQ];
+        final long BISHOPS = pieces[Piece.WB] | pieces[Piece.BB] | pieces[Piece.WQ] | pieces[Piece.BQ];
+
+        long occupied = currentPosition.allPieces ^ 1L << Move.from(move);
+        int captured = Move.captured(move);
+        gain[0] = captured == Piece.EMPTY ? 0 : SEE_VALUE[Piece.type(captured)];
+        if(Move.flag(move) == Move.EN_PASSANT){
+            occupied ^= 1L << Move.enPassantCaptureSquare(move);
+        }
+        // Value of the piece that stands on the square and can be taken next
+        int onSquare = SEE_VALUE[Piece.type(Move.piece(move))];
+        if(Move.flag(move) == Move.PROMOTION){
+            onSquare = SEE_VALUE[Piece.type(Move.promotion(move))];
+            gain[0] += onSquare - SEE_VALUE[Piece.PAWN];
+        }
+
+        long attackers = Moves.attackersTo(currentPosition, to, occupied) & occupied;
+        int side = Piece.colour(Move.piece(move)) ^ 1;
+        int depth = 0;
+        while(true){
+            long sideAttackers = attackers & currentPosition.occupancy[side];
+            if(sideAttackers == 0){
+                break;
+            }
+            // Least valuable attacker
+            int type = Piece.PAWN;
+            long from = 0L;
+            for(; type <= Piece.KING; type++){
+                from = sideAttackers & pieces[Piece.of(side, type)];
+                if(from != 0){
+                    break;
+                }
+            }
+            depth++;
+            // Score if the piece on the square is taken, assuming the opponent would then stop
+            gain[depth] = onSquare - gain[depth - 1];
+            onSquare = SEE_VALUE[type];
+            occupied ^= Long.lowestOneBit(from);
+            // Sliding pieces behind the one that moved can now reach the square
+            attackers |= (ROOKS & BitMasks.rookAttacks(to, occupied)) | (BISHOPS & BitMasks.bishopAttacks(to, occupied));
+            attackers &= occupied;
+            side ^= 1;
+        }
+        while(depth > 0){
+            gain[depth - 1] = -Math.max(-gain[depth - 1], gain[depth]);
+            depth--;
+        }
+        return gain[0];
+    }
+}
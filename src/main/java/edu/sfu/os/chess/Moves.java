@@ -3,27 +3,40 @@ package edu.sfu.os.chess;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Stream;
 
+/**
+ * Move generation for both colours.
+ *
+ * Every generator takes the colour to move, {@link Piece#WHITE} or {@link Piece#BLACK}, and writes packed moves
+ * (see {@link Move}) into a buffer owned by the caller. The per-colour list methods are kept as thin wrappers.
+ */
 public class Moves {
 
+    // Size of a move buffer, larger than the number of pseudo-legal moves in any reachable position
+    public static final int MAX_MOVES = 256;
+
+    // Offset from the destination of a pawn move back to its start square, indexed by colour
+    private static final int[] PAWN_PUSH_OFFSET = {8, -8};
+    private static final int[] PAWN_WEST_OFFSET = {9, -7};
+    private static final int[] PAWN_EAST_OFFSET = {7, -9};
+
+    // Castling masks indexed by colour, see BitMasks
+    private static final long[] KING_SIDE_CASTLE = {BitMasks.W_K_Castle, BitMasks.B_K_Castle};
+    private static final long[] QUEEN_SIDE_CASTLE = {BitMasks.W_Q_Castle, BitMasks.B_Q_Castle};
+    private static final long[] KING_SIDE_CASTLE_INTER = {BitMasks.W_K_Castle_Inter, BitMasks.B_K_Castle_Inter};
+    private static final long[] QUEEN_SIDE_CASTLE_INTER = {BitMasks.W_Q_Castle_Inter, BitMasks.B_Q_Castle_Inter};
+    private static final long[] KING_SIDE_CASTLE_BLOCK = {BitMasks.W_K_Castle_Block, BitMasks.B_K_Castle_Block};
+    private static final long[] QUEEN_SIDE_CASTLE_BLOCK = {BitMasks.W_Q_Castle_Block, BitMasks.B_Q_Castle_Block};
+    // Start square of the king, e1 and e8
+    private static final int[] KING_START = {60, 4};
+
     /**
      * Given an Board, returns all possible basic for white
      *
      * @return returns all possible basic moves for white
      */
     public static List<Long> generateAllWhiteMoves(Board currentPosition){
-
-        List<Long> whiteMoves = new ArrayList<>();
-
-        whiteMoves.addAll(generateMovesWP(currentPosition));
-        whiteMoves.addAll(generateMovesWN(currentPosition));
-        whiteMoves.addAll(generateMovesWK(currentPosition));
-        whiteMoves.addAll(generateMovesWR(currentPosition));
-        whiteMoves.addAll(generateMovesWB(currentPosition));
-        whiteMoves.addAll(generateMovesWQ(currentPosition));
-
-        return whiteMoves;
+        return generateAllBasicMoves(currentPosition, Piece.WHITE);
     }
 
     /**
@@ -32,1488 +45,1149 @@ public class Moves {
      * @return returns all possible basic moves for black
      */
     public static List<Long> generateAllBlackMoves(Board currentPosition){
+        return generateAllBasicMoves(currentPosition, Piece.BLACK);
+    }
+
+    public static List<SpecialMoves> generateAllWhiteSpecialMoves(Board currentPosition){
+        return generateAllSpecialMoves(currentPosition, Piece.WHITE);
+    }
+
+    public static List<SpecialMoves> generateAllBlackSpecialMoves(Board currentPosition){
+        return generateAllSpecialMoves(currentPosition, Piece.BLACK);
+    }
+
+    private static List<Long> generateAllBasicMoves(Board currentPosition, int colour){
 
-        List<Long> blackMoves = new ArrayList<>();
+        int[] moveBuffer = new int[MAX_MOVES];
+        int count = 0;
 
-        blackMoves.addAll(generateMovesBP(currentPosition));
-        blackMoves.addAll(generateMovesBN(currentPosition));
-        blackMoves.addAll(generateMovesBK(currentPosition));
-        blackMoves.addAll(generateMovesBR(currentPosition));
-        blackMoves.addAll(generateMovesBB(currentPosition));
-        blackMoves.addAll(generateMovesBQ(currentPosition));
+        count = generatePawnMoves(currentPosition, colour, moveBuffer, count);
+        count = generatePieceMoves(currentPosition, colour, Piece.KNIGHT, moveBuffer, count);
+        count = generateKingMoves(currentPosition, colour, moveBuffer, count);
+        count = generatePieceMoves(currentPosition, colour, Piece.ROOK, moveBuffer, count);
+        count = generatePieceMoves(currentPosition, colour, Piece.BISHOP, moveBuffer, count);
+        count = generatePieceMoves(currentPosition, colour, Piece.QUEEN, moveBuffer, count);
 
-        return blackMoves;
+        return toMoveMasks(moveBuffer, count);
     }
 
-    public static List<SpecialMoves> generateAllWhiteSpecialMoves(Board currentPosition){
+    private static List<SpecialMoves> generateAllSpecialMoves(Board currentPosition, int colour){
 
-        List<SpecialMoves> whiteMoves = new ArrayList<>();
+        int[] moveBuffer = new int[MAX_MOVES];
+        int count = 0;
 
-        whiteMoves.addAll(generateMovesWCastle(currentPosition));
-        whiteMoves.addAll(generateMovesWEnPassant(currentPosition));
-        whiteMoves.addAll(generateMovesWPromotion(currentPosition));
+        count = generateCastleMoves(currentPosition, colour, moveBuffer, count);
+        count = generateEnPassantMoves(currentPosition, colour, moveBuffer, count);
+        count = generatePromotionMoves(currentPosition, colour, moveBuffer, count);
 
-        return whiteMoves;
+        return toSpecialMoves(moveBuffer, count);
     }
 
-    public static List<SpecialMoves> generateAllBlackSpecialMoves(Board currentPosition){
+    /**
+     * Given an Board, writes all pseudo-legal moves for one side, special moves included, into a move buffer.
+     * Nothing is allocated, so the buffer should be owned by the caller and reused, eg. one per ply.
+     *
+     * @param currentPosition a Chess Board
+     * @param colour the side to move, {@link Piece#WHITE} or {@link Piece#BLACK}
+     * @param moveBuffer a buffer of at least {@link #MAX_MOVES} packed moves, see {@link Move}
+     *
+     * @return the number of moves written to the buffer
+     */
+    public static int generateAllMoves(Board currentPosition, int colour, int[] moveBuffer){
 
-        List<SpecialMoves> blackMoves = new ArrayList<>();
+        int count = 0;
 
-        blackMoves.addAll(generateMovesBCastle(currentPosition));
-        blackMoves.addAll(generateMovesBEnPassant(currentPosition));
-        blackMoves.addAll(generateMovesBPromotion(currentPosition));
+        count = generatePawnMoves(currentPosition, colour, moveBuffer, count);
+        count = generatePieceMoves(currentPosition, colour, Piece.KNIGHT, moveBuffer, count);
+        count = generateKingMoves(currentPosition, colour, moveBuffer, count);
+        count = generatePieceMoves(currentPosition, colour, Piece.ROOK, moveBuffer, count);
+        count = generatePieceMoves(currentPosition, colour, Piece.BISHOP, moveBuffer, count);
+        count = generatePieceMoves(currentPosition, colour, Piece.QUEEN, moveBuffer, count);
+        count = generateCastleMoves(currentPosition, colour, moveBuffer, count);
+        count = generateEnPassantMoves(currentPosition, colour, moveBuffer, count);
+        count = generatePromotionMoves(currentPosition, colour, moveBuffer, count);
 
-        return blackMoves;
+        return count;
     }
 
     /**
-     * Given a bit board, returns a list of bitmasks
+     * Given an Board, writes the pseudo-legal captures of one side into a move buffer, en passant included.
+     * Promotions, also the ones that capture, are left to {@link #generatePromotionMoves(Board, int, int[], int)}
      *
-     * @param bb a bit board that marks all possible move destinations from originalPosition
-     * @param originalPosition denotes a bitmask of the start location of the piece
+     * @param currentPosition a Chess Board
+     * @param colour the side to move, {@link Piece#WHITE} or {@link Piece#BLACK}
+     * @param moveBuffer the move buffer
+     * @param count the number of moves already in the buffer
      *
-     * @return a list of move bitmasks
+     * @return the number of moves in the buffer
      */
-    private static List<Long> bitboardToBitMask(long bb, long originalPosition){
+    public static int generateCaptures(Board currentPosition, int colour, int[] moveBuffer, int count){
 
-        List<Long> possibleMoves = new ArrayList<>();
-        while(bb != 0){
-            // Get index of next piece
-            int index = Long.numberOfTrailingZeros(bb);
-            long pieceMask = 1L << index;
-            possibleMoves.add(pieceMask | originalPosition);
-            bb ^= pieceMask;
-        }
-        return possibleMoves;
+        final long ENEMY_PIECES = currentPosition.occupancy[colour ^ 1];
+
+        count = generatePawnMoves(currentPosition, colour, ENEMY_PIECES, moveBuffer, count);
+        count = generatePieceMoves(currentPosition, colour, Piece.KNIGHT, ENEMY_PIECES, moveBuffer, count);
+        count = generatePieceMoves(currentPosition, colour, Piece.BISHOP, ENEMY_PIECES, moveBuffer, count);
+        count = generatePieceMoves(currentPosition, colour, Piece.ROOK, ENEMY_PIECES, moveBuffer, count);
+        count = generatePieceMoves(currentPosition, colour, Piece.QUEEN, ENEMY_PIECES, moveBuffer, count);
+        count = generateKingMoves(currentPosition, colour, ENEMY_PIECES, moveBuffer, count);
+        count = generateEnPassantMoves(currentPosition, colour, moveBuffer, count);
+
+        return count;
     }
 
     /**
-     * Given a bit board, returns a list of bitmasks
+     * Given an Board, writes the pseudo-legal moves of one side that neither capture nor promote into a move buffer, castling included.
+     * Together with {@link #generateCaptures(Board, int, int[], int)} and {@link #generatePromotionMoves(Board, int, int[], int)}
+     * these are the same moves as {@link #generateAllMoves(Board, int, int[])}
      *
-     * @param bb a bit board that marks all possible move destinations from an original position(from offset)
-     * @param offset denotes the amount of shift required for a destination index to get a piece's original position.
+     * @param currentPosition a Chess Board
+     * @param colour the side to move, {@link Piece#WHITE} or {@link Piece#BLACK}
+     * @param moveBuffer the move buffer
+     * @param count the number of moves already in the buffer
      *
-     * @return a list of move bitmasks
+     * @return the number of moves in the buffer
      */
-    private static List<Long> bitboardToBitMaskWithOffset(long bb, int offset){
+    public static int generateQuiets(Board currentPosition, int colour, int[] moveBuffer, int count){
 
-        List<Long> possibleMoves = new ArrayList<>();
-        while(bb != 0){
-            // Get index of next piece
-            int index = Long.numberOfTrailingZeros(bb);
-            long pieceMask = 1L << index;
-            if(offset < 0){
-                possibleMoves.add(pieceMask | (pieceMask >>> (-offset)));
+        final long EMPTY_SQUARES = ~currentPosition.allPieces;
+
+        count = generatePawnMoves(currentPosition, colour, EMPTY_SQUARES, moveBuffer, count);
+        count = generatePieceMoves(currentPosition, colour, Piece.KNIGHT, EMPTY_SQUARES, moveBuffer, count);
+        count = generatePieceMoves(currentPosition, colour, Piece.BISHOP, EMPTY_SQUARES, moveBuffer, count);
+        count = generatePieceMoves(currentPosition, colour, Piece.ROOK, EMPTY_SQUARES, moveBuffer, count);
+        count = generatePieceMoves(currentPosition, colour, Piece.QUEEN, EMPTY_SQUARES, moveBuffer, count);
+        count = generateKingMoves(currentPosition, colour, EMPTY_SQUARES, moveBuffer, count);
+        count = generateCastleMoves(currentPosition, colour, moveBuffer, count);
+
+        return count;
+    }
+
+    /**
+     * Given an Board, writes the captures and all promotions of one side into a move buffer, the moves a quiescence search looks at
+     *
+     * @param currentPosition a Chess Board
+     * @param colour the side to move, {@link Piece#WHITE} or {@link Piece#BLACK}
+     * @param moveBuffer the move buffer
+     * @param count the number of moves already in the buffer
+     *
+     * @return the number of moves in the buffer
+     */
+    public static int generateCapturesAndPromotions(Board currentPosition, int colour, int[] moveBuffer, int count){
+        count = generateCaptures(currentPosition, colour, moveBuffer, count);
+        return generatePromotionMoves(currentPosition, colour, moveBuffer, count);
+    }
+
+    /**
+     * Given an Board, writes the moves of one side that give check without capturing or promoting into a move buffer.
+     *
+     * Direct checks are found by limiting every piece type to the empty squares it would attack the enemy king from.
+     * A piece that is the only one between an own slider and the enemy king gives a discovered check with every move off that line.
+     * Castling is left out, the rook almost never gives check.
+     *
+     * @param currentPosition a Chess Board
+     * @param colour the side to move, {@link Piece#WHITE} or {@link Piece#BLACK}
+     * @param moveBuffer the move buffer
+     * @param count the number of moves already in the buffer
+     *
+     * @return the number of moves in the buffer
+     */
+    public static int generateQuietChecks(Board currentPosition, int colour, int[] moveBuffer, int count){
+
+        long[] pieces = currentPosition.pieces;
+        long enemyKing = pieces[Piece.of(colour ^ 1, Piece.KING)];
+        if(enemyKing == 0){
+            return count;
+        }
+        final int kingIndex = Long.numberOfTrailingZeros(enemyKing);
+        final long ALL_PIECES = currentPosition.allPieces;
+        final long EMPTY_SQUARES = ~ALL_PIECES;
+
+        // Squares each piece type gives check from, a pawn checks from where an enemy pawn on the king's square would attack
+        final long PAWN_CHECKS = BitMasks.PAWN_ATTACKS[colour ^ 1][kingIndex] & EMPTY_SQUARES;
+        final long KNIGHT_CHECKS = BitMasks.KNIGHT_ATTACKS[kingIndex] & EMPTY_SQUARES;
+        final long BISHOP_CHECKS = BitMasks.bishopAttacks(kingIndex, ALL_PIECES) & EMPTY_SQUARES;
+        final long ROOK_CHECKS = BitMasks.rookAttacks(kingIndex, ALL_PIECES) & EMPTY_SQUARES;
+
+        count = generatePawnMoves(currentPosition, colour, PAWN_CHECKS, moveBuffer, count);
+        count = generatePieceMoves(currentPosition, colour, Piece.KNIGHT, KNIGHT_CHECKS, moveBuffer, count);
+        count = generatePieceMoves(currentPosition, colour, Piece.BISHOP, BISHOP_CHECKS, moveBuffer, count);
+        count = generatePieceMoves(currentPosition, colour, Piece.ROOK, ROOK_CHECKS, moveBuffer, count);
+        count = generatePieceMoves(currentPosition, colour, Piece.QUEEN, BISHOP_CHECKS | ROOK_CHECKS, moveBuffer, count);
+
+        // Discovered checks
+        final long OWN_PIECES = currentPosition.occupancy[colour];
+        final long OWN_ROOKS = pieces[Piece.of(colour, Piece.ROOK)] | pieces[Piece.of(colour, Piece.QUEEN)];
+        final long OWN_BISHOPS = pieces[Piece.of(colour, Piece.BISHOP)] | pieces[Piece.of(colour, Piece.QUEEN)];
+        long snipers = (OWN_ROOKS & BitMasks.rookAttacks(kingIndex, 0L)) | (OWN_BISHOPS & BitMasks.bishopAttacks(kingIndex, 0L));
+        while(snipers != 0){
+            long blockers = BitMasks.BETWEEN[kingIndex][Long.numberOfTrailingZeros(snipers)] & ALL_PIECES;
+            snipers &= snipers - 1;
+            if(Long.bitCount(blockers) != 1 || (blockers & OWN_PIECES) == 0){
+                continue;
+            }
+            int from = Long.numberOfTrailingZeros(blockers);
+            int piece = pieceAt(currentPosition, from);
+            int type = Piece.type(piece);
+            // Moves that give a direct check are already in the buffer
+            long targets = EMPTY_SQUARES & ~BitMasks.LINE[kingIndex][from];
+            if(type == Piece.PAWN){
+                final long PROMOTION_RANK = colour == Piece.WHITE ? BitMasks.RANK_8 : BitMasks.RANK_1;
+                final long DOUBLE_PUSH_RANK = colour == Piece.WHITE ? BitMasks.RANK_4 : BitMasks.RANK_5;
+                long pushOne = pawnPush(blockers, colour) & EMPTY_SQUARES & ~PROMOTION_RANK;
+                long pushTwo = pawnPush(pushOne, colour) & EMPTY_SQUARES & DOUBLE_PUSH_RANK & targets & ~PAWN_CHECKS;
+                pushOne &= targets & ~PAWN_CHECKS;
+                count = addMovesWithOffset(currentPosition, pushOne, PAWN_PUSH_OFFSET[colour], piece, false, Move.NORMAL, moveBuffer, count);
+                count = addMovesWithOffset(currentPosition, pushTwo, 2 * PAWN_PUSH_OFFSET[colour], piece, false, Move.DOUBLE_PUSH, moveBuffer, count);
             }
             else{
-                possibleMoves.add(pieceMask | (pieceMask << offset));
+                long directChecks = switch(type){
+                    case Piece.KNIGHT -> KNIGHT_CHECKS;
+                    case Piece.BISHOP -> BISHOP_CHECKS;
+                    case Piece.ROOK -> ROOK_CHECKS;
+                    case Piece.QUEEN -> BISHOP_CHECKS | ROOK_CHECKS;
+                    // The king may not step onto an attacked square
+                    default -> kingSafety(currentPosition, colour);
+                };
+                long moves = attacks(type, from, ALL_PIECES) & targets & ~directChecks;
+                count = addMoves(currentPosition, moves, from, piece, 0L, moveBuffer, count);
             }
-            bb ^= pieceMask;
         }
-        return possibleMoves;
+        return count;
     }
 
     /**
-     * Given a bit board, returns a list of bitmasks with promotion flag
+     * Given a Chess Board and a square, returns the pieces of both colours that attack the square
      *
-     * @param bb a bit board that marks all possible move destinations from an original position(from offset)
-     * @param offset denotes the amount of shift required for a destination index to get a piece's original position.
+     * @param currentPosition a Chess Board
+     * @param square index of the square
+     * @param occupied bitboard of the pieces that block sliding pieces, usually {@link Board#allPieces}
      *
-     * @return a list of move bitmasks and promotion type
+     * @return a bitmask of the attacking pieces
      */
-    private static List<SpecialMoves> bitboardToBitMaskWithOffsetPromotion(long bb, int offset){
+    public static long attackersTo(Board currentPosition, int square, long occupied){
+        long[] pieces = currentPosition.pieces;
+        final long ROOKS = pieces[Piece.WR] | pieces[Piece.BR] | pieces[Piece.WQ] | pieces[Piece.BQ];
+        final long BISHOPS = pieces[Piece.WB] | pieces[Piece.BB] | pieces[Piece.WQ] | pieces[Piece.BQ];
+
+        // A pawn attacks the square if a pawn of the other colour on the square would attack it
+        return (pieces[Piece.BP] & BitMasks.PAWN_ATTACKS[Piece.WHITE][square])
+                | (pieces[Piece.WP] & BitMasks.PAWN_ATTACKS[Piece.BLACK][square])
+                | ((pieces[Piece.WN] | pieces[Piece.BN]) & BitMasks.KNIGHT_ATTACKS[square])
+                | ((pieces[Piece.WK] | pieces[Piece.BK]) & BitMasks.KING_ATTACKS[square])
+                | (ROOKS & BitMasks.rookAttacks(square, occupied))
+                | (BISHOPS & BitMasks.bishopAttacks(square, occupied));
+    }
 
-        List<SpecialMoves> possibleMoves = new ArrayList<>();
-        while(bb != 0){
-            // Get index of next piece
-            int index = Long.numberOfTrailingZeros(bb);
-            long pieceMask = 1L << index;
-            Stream.of(PromotionType.values()).forEach(i -> {
-                SpecialMoves move = new SpecialMoves();
-                move.moveMask1 = (offset > 0) ? pieceMask | (pieceMask << offset) : pieceMask | (pieceMask >>> (-offset));
-                move.promotionType = i;
-                move.moveType = MoveType.PROMOTION;
-                possibleMoves.add(move);
-            });
-            bb ^= pieceMask;
+    /**
+     * Given an Board, writes all legal moves for one side into a move buffer.
+     * Checkers and pinned pieces are found once for the position, so no move has to be played to test if it leaves the king in check.
+     *
+     * @param currentPosition a Chess Board
+     * @param colour the side to move, {@link Piece#WHITE} or {@link Piece#BLACK}
+     * @param moveBuffer a buffer of at least {@link #MAX_MOVES} packed moves, see {@link Move}
+     *
+     * @return the number of moves written to the buffer
+     */
+    public static int generateLegalMoves(Board currentPosition, int colour, int[] moveBuffer){
+        // In double check only the king can move
+        if(Long.bitCount(checkers(currentPosition, colour)) > 1){
+            return generateKingMoves(currentPosition, colour, moveBuffer, 0);
         }
-        return possibleMoves;
+        return filterLegalMoves(currentPosition, colour, moveBuffer, generateAllMoves(currentPosition, colour, moveBuffer));
     }
 
     /**
-     * Given a Chess Board Object, returns all spaces the white king cannot move to
+     * Given a Chess Board, returns the enemy pieces that give check to the king of the given side
      *
      * @param currentPosition a Chess Board
+     * @param colour the colour of the king
      *
-     * @return a bitmask of all spaces that are invalid
+     * @return a bitmask of the checking pieces, 0 if the king is not in check
      */
+    public static long checkers(Board currentPosition, int colour){
+        long[] pieces = currentPosition.pieces;
+        long king = pieces[Piece.of(colour, Piece.KING)];
+        if(king == 0){
+            return 0L;
+        }
+        int kingIndex = Long.numberOfTrailingZeros(king);
+        int enemy = colour ^ 1;
+        final long ALL_PIECES = currentPosition.allPieces;
+        final long ENEMY_QUEENS = pieces[Piece.of(enemy, Piece.QUEEN)];
+
+        // The enemy pawns that attack the king sit on the squares an own pawn on the king's square would attack
+        long checkers = pieces[Piece.of(enemy, Piece.PAWN)] & BitMasks.PAWN_ATTACKS[colour][kingIndex];
+        checkers |= pieces[Piece.of(enemy, Piece.KNIGHT)] & BitMasks.KNIGHT_ATTACKS[kingIndex];
+        checkers |= (pieces[Piece.of(enemy, Piece.ROOK)] | ENEMY_QUEENS) & BitMasks.rookAttacks(kingIndex, ALL_PIECES);
+        checkers |= (pieces[Piece.of(enemy, Piece.BISHOP)] | ENEMY_QUEENS) & BitMasks.bishopAttacks(kingIndex, ALL_PIECES);
+        return checkers;
+    }
 
-    public static long whiteKingSafety(Board currentPosition){
-        long BP = currentPosition.BP;
-        long BN = currentPosition.BN;
-        long BB = currentPosition.BB;
-        long BR = currentPosition.BR;
-        long BQ = currentPosition.BQ;
-        long BK = currentPosition.BK;
-        long WP = currentPosition.WP;
-        long WN = currentPosition.WN;
-        long WB = currentPosition.WB;
-        long WR = currentPosition.WR;
-        long WQ = currentPosition.WQ;
-
-        // Temp variable to use for sliding pieces
-        long bb;
-
-        // WK is excluded, to allow sliding pieces to pierce through the king
-        final long BLACK_PIECES = BP | BN | BB | BR | BQ | BK; // Black's current pieces position
-        final long WHITE_PIECES = WP | WN | WB | WR | WQ; // White's current pieces position
-        final long ALL_PIECES = BLACK_PIECES | WHITE_PIECES;
+    /**
+     * Given a buffer of pseudo-legal moves, removes the moves that leave the king in check
+     *
+     * King moves are already checked against the attacked squares by the generator. Other moves have to land on the check mask
+     * (the checker or a square between it and the king) and a pinned piece may only move along the line through the king.
+     *
+     * @param currentPosition a Chess Board
+     * @param colour the side the moves belong to
+     * @param moveBuffer the move buffer
+     * @param count the number of moves in the buffer
+     *
+     * @return the number of legal moves left at the start of the buffer
+     */
+    private static int filterLegalMoves(Board currentPosition, int colour, int[] moveBuffer, int count){
+        long[] pieces = currentPosition.pieces;
+        long king = pieces[Piece.of(colour, Piece.KING)];
+        if(king == 0){
+            return count;
+        }
+        int kingIndex = Long.numberOfTrailingZeros(king);
+
+        long checkers = checkers(currentPosition, colour);
+        // Squares a non-king move has to land on, all of them when not in check
+        long checkMask = checkers == 0 ? -1L : checkers | BitMasks.BETWEEN[kingIndex][Long.numberOfTrailingZeros(checkers)];
+        long pinned = pinnedPieces(currentPosition, colour, kingIndex);
+
+        int legalCount = 0;
+        for(int i = 0; i < count; i++){
+            int move = moveBuffer[i];
+            int from = Move.from(move);
+            long toMask = 1L << Move.to(move);
+            boolean legal;
+            if((king & 1L << from) != 0){
+                legal = true;
+            }
+            else if(Move.flag(move) == Move.EN_PASSANT){
+                legal = isLegalEnPassant(currentPosition, colour, kingIndex, checkers, from, Move.to(move), Move.enPassantCaptureSquare(move));
+            }
+            else{
+                legal = (toMask & checkMask) != 0 && ((pinned & 1L << from) == 0 || (BitMasks.LINE[kingIndex][from] & toMask) != 0);
+            }
+            if(legal){
+                moveBuffer[legalCount++] = move;
+            }
+        }
+        return legalCount;
+    }
 
-        long unsafeSquares = 0L;
+    /**
+     * Given a Chess Board, returns the pieces of one side that are pinned to their king.
+     * A piece is pinned if it is the only piece between the king and an enemy slider
+     *
+     * @param currentPosition a Chess Board
+     * @param colour the colour of the king
+     * @param kingIndex the square of the king
+     *
+     * @return a bitmask of the pinned pieces
+     */
+    private static long pinnedPieces(Board currentPosition, int colour, int kingIndex){
+        long[] pieces = currentPosition.pieces;
+        int enemy = colour ^ 1;
+        final long OWN_PIECES = currentPosition.occupancy[colour];
+        final long ALL_PIECES = currentPosition.allPieces;
+        final long ENEMY_ROOKS = pieces[Piece.of(enemy, Piece.ROOK)] | pieces[Piece.of(enemy, Piece.QUEEN)];
+        final long ENEMY_BISHOPS = pieces[Piece.of(enemy, Piece.BISHOP)] | pieces[Piece.of(enemy, Piece.QUEEN)];
+
+        long pinned = 0L;
+        long snipers = (ENEMY_ROOKS & BitMasks.rookAttacks(kingIndex, 0L)) | (ENEMY_BISHOPS & BitMasks.bishopAttacks(kingIndex, 0L));
+        while(snipers != 0){
+            int index = Long.numberOfTrailingZeros(snipers);
+            long blockers = BitMasks.BETWEEN[kingIndex][index] & ALL_PIECES;
+            if(Long.bitCount(blockers) == 1){
+                pinned |= blockers & OWN_PIECES;
+            }
+            snipers &= snipers - 1;
+        }
+        return pinned;
+    }
 
-        // check if can be attacked by pawn
-        /*
-         *  p*p
-         *  *K*
-         */
-        unsafeSquares |= BP << 7 & ~BitMasks.FILE_H;
-        unsafeSquares |= BP << 9 & ~BitMasks.FILE_A;
+    /**
+     * Checks if an en passant capture leaves the own king safe.
+     * The captured pawn leaves the board as well, so the sliders are checked against the new occupancy
+     *
+     * @param currentPosition a Chess Board
+     * @param colour the side to move
+     * @param kingIndex the square of the king
+     * @param checkers the pieces that give check, see {@link #checkers(Board, int)}
+     * @param from start square of the capturing pawn
+     * @param to destination of the capturing pawn
+     * @param capturedSquare square of the captured pawn
+     *
+     * @return true if the capture is legal
+     */
+    private static boolean isLegalEnPassant(Board currentPosition, int colour, int kingIndex, long checkers, int from, int to, int capturedSquare){
+        long[] pieces = currentPosition.pieces;
+        int enemy = colour ^ 1;
+        final long ENEMY_ROOKS = pieces[Piece.of(enemy, Piece.ROOK)] | pieces[Piece.of(enemy, Piece.QUEEN)];
+        final long ENEMY_BISHOPS = pieces[Piece.of(enemy, Piece.BISHOP)] | pieces[Piece.of(enemy, Piece.QUEEN)];
+
+        long capturedMask = 1L << capturedSquare;
+        long occupied = currentPosition.allPieces ^ 1L << from ^ 1L << to ^ capturedMask;
+        // A checking knight or pawn other than the captured one is still there
+        return (checkers & ~capturedMask & ~(ENEMY_ROOKS | ENEMY_BISHOPS)) == 0
+                && (BitMasks.rookAttacks(kingIndex, occupied) & ENEMY_ROOKS) == 0
+                && (BitMasks.bishopAttacks(kingIndex, occupied) & ENEMY_BISHOPS) == 0;
+    }
 
-        // check if can be attacked by knight
-        /*  Ordering of the knight moves
-         *  * 8 * 0 *
-         *  7 * * * 1
-         *  * * N * *
-         *  6 * * * 2
-         *  * 5 * 4 *
-         */
-
-        unsafeSquares |= (BN >>> 15 & ~BitMasks.FILE_A);
-        unsafeSquares |= (BN >>> 6 & ~BitMasks.FILE_AB);
-        unsafeSquares |= (BN << 10 & ~BitMasks.FILE_AB);
-        unsafeSquares |= (BN << 17 & ~BitMasks.FILE_A);
-        unsafeSquares |= (BN << 15 & ~BitMasks.FILE_H);
-        unsafeSquares |= (BN << 6 & ~BitMasks.FILE_GH);
-        unsafeSquares |= (BN >>> 10 & ~BitMasks.FILE_GH);
-        unsafeSquares |= (BN >>> 17 & ~BitMasks.FILE_H);
+    /**
+     * Given an Board, counts the legal moves of one side without writing them anywhere.
+     * The destinations of every piece are masked with the check mask and the pin lines and then counted with a popcount,
+     * which is all perft needs at the last ply.
+     *
+     * @param currentPosition a Chess Board
+     * @param colour the side to move, {@link Piece#WHITE} or {@link Piece#BLACK}
+     *
+     * @return the number of legal moves, the same as {@link #generateLegalMoves(Board, int, int[])}
+     */
+    public static int countLegalMoves(Board currentPosition, int colour){
+        long[] pieces = currentPosition.pieces;
+        long king = pieces[Piece.of(colour, Piece.KING)];
+        if(king == 0){
+            return generateLegalMoves(currentPosition, colour, new int[MAX_MOVES]);
+        }
+        final int kingIndex = Long.numberOfTrailingZeros(king);
+        final long OWN_PIECES = currentPosition.occupancy[colour];
+        final long ENEMY_PIECES = currentPosition.occupancy[colour ^ 1];
+        final long ALL_PIECES = currentPosition.allPieces;
+
+        long unsafeSquares = kingSafety(currentPosition, colour);
+        int count = Long.bitCount(BitMasks.KING_ATTACKS[kingIndex] & ~OWN_PIECES & ~unsafeSquares);
+
+        long checkers = checkers(currentPosition, colour);
+        // In double check only the king can move
+        if(Long.bitCount(checkers) > 1){
+            return count;
+        }
+        long checkMask = checkers == 0 ? -1L : checkers | BitMasks.BETWEEN[kingIndex][Long.numberOfTrailingZeros(checkers)];
+        long pinned = pinnedPieces(currentPosition, colour, kingIndex);
+        final long TARGETS = ~OWN_PIECES & checkMask;
 
-        // check if can be attacked by king
-        /* Ordering of the king moves
-         *  0 1 2
-         *  3 K 4
-         *  5 6 7
-         */
-
-        unsafeSquares |= (BK >>> 9 & ~BitMasks.FILE_H);
-        unsafeSquares |= (BK >>> 8);
-        unsafeSquares |= (BK >>> 7 & ~BitMasks.FILE_A);
-        unsafeSquares |= (BK >>> 1 & ~BitMasks.FILE_H);
-        unsafeSquares |= (BK << 1 & ~BitMasks.FILE_A);
-        unsafeSquares |= (BK << 7 & ~BitMasks.FILE_H);
-        unsafeSquares |= (BK << 8);
-        unsafeSquares |= (BK << 9 & ~BitMasks.FILE_A);
-
-        // check if can be attacked by rook
-        bb = BR;
+        // A pinned knight can never move
+        long bb = pieces[Piece.of(colour, Piece.KNIGHT)] & ~pinned;
+        while(bb != 0){
+            count += Long.bitCount(BitMasks.KNIGHT_ATTACKS[Long.numberOfTrailingZeros(bb)] & TARGETS);
+            bb &= bb - 1;
+        }
+        final long QUEENS = pieces[Piece.of(colour, Piece.QUEEN)];
+        bb = pieces[Piece.of(colour, Piece.BISHOP)] | QUEENS;
         while(bb != 0){
-            // Get index of next piece
             int index = Long.numberOfTrailingZeros(bb);
-            long pieceMask = 1L << index;
-            // Isolate piece from bitboard
-            long rookPosition = bb & pieceMask;
-            long rookPositionReversed = BitMasks.reverse64bits(rookPosition);
-
-            // Get the masks
-            long rankMask = BitMasks.RANK[index];
-            long fileMask = BitMasks.FILE[index];
-
-            // search Horizontally / in the Rank
-            long occupiedRank = ALL_PIECES & rankMask;
-            long occupiedRankReversed = BitMasks.reverse64bits(occupiedRank);
-            long horizontalMoves = ((occupiedRank - (2 * rookPosition)) ^ BitMasks.reverse64bits(occupiedRankReversed - 2 * rookPositionReversed)) & rankMask;
-            // search Vertically / in the File
-            long occupiedFile = ALL_PIECES & fileMask;
-            long occupiedFileReversed = BitMasks.reverse64bits(occupiedFile);
-            long verticalMoves = ((occupiedFile - (2 * rookPosition)) ^ BitMasks.reverse64bits(occupiedFileReversed - 2 * rookPositionReversed)) & fileMask;
-
-            unsafeSquares |= (horizontalMoves | verticalMoves);
-            bb ^= pieceMask;
+            long pinLine = (pinned & 1L << index) != 0 ? BitMasks.LINE[kingIndex][index] : -1L;
+            count += Long.bitCount(BitMasks.bishopAttacks(index, ALL_PIECES) & TARGETS & pinLine);
+            bb &= bb - 1;
         }
-
-        // check if can be attacked by bishop
-        bb = BB;
-        while(bb != 0) {
-            // Get index of next piece
+        bb = pieces[Piece.of(colour, Piece.ROOK)] | QUEENS;
+        while(bb != 0){
             int index = Long.numberOfTrailingZeros(bb);
-            long pieceMask = 1L << index;
-            // Isolate piece from bitboard
-            long bishopPosition = bb & pieceMask;
-            long bishopPositionReversed = BitMasks.reverse64bits(bishopPosition);
-
-            // Get the masks
-            long diagMask = BitMasks.DIAG[index];
-            long antiDiagMask = BitMasks.ANTIDIAG[index];
-
-            // search Diagonally
-            long occupiedDiag = ALL_PIECES & diagMask;
-            long occupiedDiagReversed = BitMasks.reverse64bits(occupiedDiag);
-            long diagMoves = ((occupiedDiag - (2 * bishopPosition)) ^ BitMasks.reverse64bits(occupiedDiagReversed - 2 * bishopPositionReversed)) & diagMask;
-            // search AntiDiagonally
-            long occupiedAntiDiag = ALL_PIECES & antiDiagMask;
-            long occupiedAntiDiagReversed = BitMasks.reverse64bits(occupiedAntiDiag);
-            long antiDiagMoves = ((occupiedAntiDiag - (2 * bishopPosition)) ^ BitMasks.reverse64bits(occupiedAntiDiagReversed - 2 * bishopPositionReversed)) & antiDiagMask;
-
-            unsafeSquares |= (diagMoves | antiDiagMoves);
-            bb ^= pieceMask;
+            long pinLine = (pinned & 1L << index) != 0 ? BitMasks.LINE[kingIndex][index] : -1L;
+            count += Long.bitCount(BitMasks.rookAttacks(index, ALL_PIECES) & TARGETS & pinLine);
+            bb &= bb - 1;
         }
 
-        // check if can be attacked by queen
-        bb = BQ;
-        while(bb != 0) {
-            // Get index of next piece
+        // Pawns that are not pinned are counted all at once, pinned ones each on their own
+        final long pawns = pieces[Piece.of(colour, Piece.PAWN)];
+        count += countPawnMoves(pawns & ~pinned, colour, ALL_PIECES, ENEMY_PIECES, checkMask);
+        bb = pawns & pinned;
+        while(bb != 0){
             int index = Long.numberOfTrailingZeros(bb);
-            long pieceMask = 1L << index;
-            // Isolate piece from bitboard
-            long queenPosition = bb & pieceMask;
-            long queenPositionReversed = BitMasks.reverse64bits(queenPosition);
-
-            // Get the masks
-            long rankMask = BitMasks.RANK[index];
-            long fileMask = BitMasks.FILE[index];
-            long diagMask = BitMasks.DIAG[index];
-            long antiDiagMask = BitMasks.ANTIDIAG[index];
-
-            // search Horizontally / in the Rank
-            long occupiedRank = ALL_PIECES & rankMask;
-            long occupiedRankReversed = BitMasks.reverse64bits(occupiedRank);
-            long horizontalMoves = ((occupiedRank - (2 * queenPosition)) ^ BitMasks.reverse64bits(occupiedRankReversed - 2 * queenPositionReversed)) & rankMask;
-            // search Vertically / in the File
-            long occupiedFile = ALL_PIECES & fileMask;
-            long occupiedFileReversed = BitMasks.reverse64bits(occupiedFile);
-            long verticalMoves = ((occupiedFile - (2 * queenPosition)) ^ BitMasks.reverse64bits(occupiedFileReversed - 2 * queenPositionReversed)) & fileMask;
-            // search Diagonally
-            long occupiedDiag = ALL_PIECES & diagMask;
-            long occupiedDiagReversed = BitMasks.reverse64bits(occupiedDiag);
-            long diagMoves = ((occupiedDiag - (2 * queenPosition)) ^ BitMasks.reverse64bits(occupiedDiagReversed - 2 * queenPositionReversed)) & diagMask;
-            // search AntiDiagonally
-            long occupiedAntiDiag = ALL_PIECES & antiDiagMask;
-            long occupiedAntiDiagReversed = BitMasks.reverse64bits(occupiedAntiDiag);
-            long antiDiagMoves = ((occupiedAntiDiag - (2 * queenPosition)) ^ BitMasks.reverse64bits(occupiedAntiDiagReversed - 2 * queenPositionReversed)) & antiDiagMask;
-
-            unsafeSquares |= horizontalMoves | verticalMoves | diagMoves | antiDiagMoves;
-            bb ^= pieceMask;
+            count += countPawnMoves(1L << index, colour, ALL_PIECES, ENEMY_PIECES, checkMask & BitMasks.LINE[kingIndex][index]);
+            bb &= bb - 1;
         }
-        return unsafeSquares;
+
+        long enPassant = enPassantPawn(currentPosition, colour);
+        if(enPassant != 0){
+            int capturedSquare = Long.numberOfTrailingZeros(enPassant);
+            int to = Long.numberOfTrailingZeros(pawnPush(enPassant, colour));
+            long attackers = pawns & BitMasks.PAWN_ATTACKS[colour ^ 1][to];
+            while(attackers != 0){
+                if(isLegalEnPassant(currentPosition, colour, kingIndex, checkers, Long.numberOfTrailingZeros(attackers), to, capturedSquare)){
+                    count++;
+                }
+                attackers &= attackers - 1;
+            }
+        }
+
+        if(checkers == 0){
+            if(canCastleKingSide(currentPosition, colour, unsafeSquares)){
+                count++;
+            }
+            if(canCastleQueenSide(currentPosition, colour, unsafeSquares)){
+                count++;
+            }
+        }
+        return count;
     }
 
     /**
-     * Given a Chess Board Object, returns all spaces the black king cannot move to
+     * Counts the pushes and captures of a set of pawns that land on the given squares, a promotion counts as four moves
+     */
+    private static int countPawnMoves(long pawns, int colour, long allPieces, long enemyPieces, long targets){
+        final long PROMOTION_RANK = colour == Piece.WHITE ? BitMasks.RANK_8 : BitMasks.RANK_1;
+        final long DOUBLE_PUSH_RANK = colour == Piece.WHITE ? BitMasks.RANK_4 : BitMasks.RANK_5;
+
+        long pushOne = pawnPush(pawns, colour) & ~allPieces;
+        long pushTwo = pawnPush(pushOne, colour) & ~allPieces & DOUBLE_PUSH_RANK;
+        int count = Long.bitCount(pushTwo & targets);
+        // Pushes and captures west and east can land on the same square, so they are counted separately
+        long captureWest = pawnAttacksWest(pawns, colour) & enemyPieces & targets;
+        long captureEast = pawnAttacksEast(pawns, colour) & enemyPieces & targets;
+        pushOne &= targets;
+        count += Long.bitCount(pushOne & ~PROMOTION_RANK) + 4 * Long.bitCount(pushOne & PROMOTION_RANK);
+        count += Long.bitCount(captureWest & ~PROMOTION_RANK) + 4 * Long.bitCount(captureWest & PROMOTION_RANK);
+        count += Long.bitCount(captureEast & ~PROMOTION_RANK) + 4 * Long.bitCount(captureEast & PROMOTION_RANK);
+        return count;
+    }
+
+    /**
+     * Given a move buffer, returns the moves as a list of bitmasks
      *
-     * @param currentPosition a Chess Board
+     * @param moveBuffer a buffer of packed moves
+     * @param count the number of moves in the buffer
      *
-     * @return a bitmask of all spaces that are invalid
+     * @return a list of move bitmasks
      */
+    private static List<Long> toMoveMasks(int[] moveBuffer, int count){
 
-    public static long blackKingSafety(Board currentPosition){
-        long BP = currentPosition.BP;
-        long BN = currentPosition.BN;
-        long BB = currentPosition.BB;
-        long BR = currentPosition.BR;
-        long BQ = currentPosition.BQ;
-        long WP = currentPosition.WP;
-        long WN = currentPosition.WN;
-        long WB = currentPosition.WB;
-        long WR = currentPosition.WR;
-        long WQ = currentPosition.WQ;
-        long WK = currentPosition.WK;
-
-        // Temp variable to use for sliding pieces
-        long bb;
+        List<Long> possibleMoves = new ArrayList<>(count);
+        for(int i = 0; i < count; i++){
+            possibleMoves.add(Move.toMoveMask(moveBuffer[i]));
+        }
+        return possibleMoves;
+    }
 
-        // BK is excluded, to allow sliding pieces to pierce through the king
-        final long BLACK_PIECES = BP | BN | BB | BR | BQ; // Black's current pieces position
-        final long WHITE_PIECES = WP | WN | WB | WR | WQ | WK; // White's current pieces position
-        final long ALL_PIECES = BLACK_PIECES | WHITE_PIECES;
+    /**
+     * Given a move buffer of special moves, returns the moves as a list of {@link SpecialMoves}
+     *
+     * @param moveBuffer a buffer of packed moves
+     * @param count the number of moves in the buffer
+     *
+     * @return a list of special moves
+     */
+    private static List<SpecialMoves> toSpecialMoves(int[] moveBuffer, int count){
+
+        List<SpecialMoves> possibleMoves = new ArrayList<>(count);
+        for(int i = 0; i < count; i++){
+            int move = moveBuffer[i];
+            SpecialMoves specialMove = new SpecialMoves();
+            specialMove.moveMask1 = Move.toMoveMask(move);
+            switch(Move.flag(move)){
+                case Move.CASTLE -> {
+                    specialMove.moveMask2 = Move.castleRookMove(move);
+                    specialMove.moveType = MoveType.CASTLE;
+                }
+                case Move.EN_PASSANT -> {
+                    specialMove.moveMask2 = 1L << Move.enPassantCaptureSquare(move);
+                    specialMove.moveType = MoveType.ENPASSANT;
+                }
+                case Move.PROMOTION -> {
+                    specialMove.promotionType = switch(Piece.type(Move.promotion(move))){
+                        case Piece.KNIGHT -> PromotionType.KNIGHT;
+                        case Piece.BISHOP -> PromotionType.BISHOP;
+                        case Piece.ROOK -> PromotionType.ROOK;
+                        default -> PromotionType.QUEEN;
+                    };
+                    specialMove.moveType = MoveType.PROMOTION;
+                }
+            }
+            possibleMoves.add(specialMove);
+        }
+        return possibleMoves;
+    }
 
-        long unsafeSquares = 0L;
+    /**
+     * Given a Chess Board and a square, returns the piece on that square
+     *
+     * @param currentPosition a Chess Board
+     * @param square index of the square
+     *
+     * @return the code of the piece on the square, {@link Piece#EMPTY} if there is none
+     */
+    public static int pieceAt(Board currentPosition, int square){
+        return currentPosition.mailbox[square];
+    }
 
-        // check if can be attacked by pawn
-        /*
-         *  p*p
-         *  *K*
-         */
-        unsafeSquares |= WP >>> 9 & ~BitMasks.FILE_H;
-        unsafeSquares |= WP >>> 7 & ~BitMasks.FILE_A;
+    /**
+     * Given a bit board of destinations for a single piece, writes the moves to a move buffer
+     *
+     * @param currentPosition a Chess Board, used to look up captured pieces
+     * @param bb a bit board that marks all possible move destinations from the start square
+     * @param from index of the start square
+     * @param piece code of the moving piece
+     * @param enemyPieces bitmask of the opponent's pieces
+     * @param moveBuffer the move buffer
+     * @param count the number of moves already in the buffer
+     *
+     * @return the number of moves in the buffer
+     */
+    private static int addMoves(Board currentPosition, long bb, int from, int piece, long enemyPieces, int[] moveBuffer, int count){
+
+        // Quiet moves
+        long quiets = bb & ~enemyPieces;
+        while(quiets != 0){
+            int to = Long.numberOfTrailingZeros(quiets);
+            moveBuffer[count++] = Move.encode(from, to, piece, Piece.EMPTY, Piece.EMPTY, Move.NORMAL);
+            quiets &= quiets - 1;
+        }
+        // Captures
+        long captures = bb & enemyPieces;
+        while(captures != 0){
+            int to = Long.numberOfTrailingZeros(captures);
+            moveBuffer[count++] = Move.encode(from, to, piece, pieceAt(currentPosition, to), Piece.EMPTY, Move.NORMAL);
+            captures &= captures - 1;
+        }
+        return count;
+    }
 
-        // check if can be attacked by knight
-        /*  Ordering of the knight moves
-         *  * 8 * 0 *
-         *  7 * * * 1
-         *  * * N * *
-         *  6 * * * 2
-         *  * 5 * 4 *
-         */
-
-        unsafeSquares |= (WN >>> 15 & ~BitMasks.FILE_A);
-        unsafeSquares |= (WN >>> 6 & ~BitMasks.FILE_AB);
-        unsafeSquares |= (WN << 10 & ~BitMasks.FILE_AB);
-        unsafeSquares |= (WN << 17 & ~BitMasks.FILE_A);
-        unsafeSquares |= (WN << 15 & ~BitMasks.FILE_H);
-        unsafeSquares |= (WN << 6 & ~BitMasks.FILE_GH);
-        unsafeSquares |= (WN >>> 10 & ~BitMasks.FILE_GH);
-        unsafeSquares |= (WN >>> 17 & ~BitMasks.FILE_H);
+    /**
+     * Given a bit board of pawn destinations, writes the moves to a move buffer
+     *
+     * @param currentPosition a Chess Board, used to look up captured pieces
+     * @param bb a bit board that marks all possible move destinations from an original position(from offset)
+     * @param offset denotes the amount of shift required for a destination index to get a piece's original position.
+     * @param piece code of the moving pawn
+     * @param capture true if the destinations hold enemy pieces
+     * @param flag the move flag, see {@link Move}
+     * @param moveBuffer the move buffer
+     * @param count the number of moves already in the buffer
+     *
+     * @return the number of moves in the buffer
+     */
+    private static int addMovesWithOffset(Board currentPosition, long bb, int offset, int piece, boolean capture, int flag, int[] moveBuffer, int count){
 
-        // check if can be attacked by king
-        /* Ordering of the king moves
-         *  0 1 2
-         *  3 K 4
-         *  5 6 7
-         */
-
-        unsafeSquares |= (WK >>> 9 & ~BitMasks.FILE_H);
-        unsafeSquares |= (WK >>> 8);
-        unsafeSquares |= (WK >>> 7 & ~BitMasks.FILE_A);
-        unsafeSquares |= (WK >>> 1 & ~BitMasks.FILE_H);
-        unsafeSquares |= (WK << 1 & ~BitMasks.FILE_A);
-        unsafeSquares |= (WK << 7 & ~BitMasks.FILE_H);
-        unsafeSquares |= (WK << 8);
-        unsafeSquares |= (WK << 9 & ~BitMasks.FILE_A);
-
-        // check if can be attacked by rook
-        bb = WR;
         while(bb != 0){
-            // Get index of next piece
-            int index = Long.numberOfTrailingZeros(bb);
-            long pieceMask = 1L << index;
-            // Isolate piece from bitboard
-            long rookPosition = bb & pieceMask;
-            long rookPositionReversed = BitMasks.reverse64bits(rookPosition);
-
-            // Get the masks
-            long rankMask = BitMasks.RANK[index];
-            long fileMask = BitMasks.FILE[index];
-
-            // search Horizontally / in the Rank
-            long occupiedRank = ALL_PIECES & rankMask;
-            long occupiedRankReversed = BitMasks.reverse64bits(occupiedRank);
-            long horizontalMoves = ((occupiedRank - (2 * rookPosition)) ^ BitMasks.reverse64bits(occupiedRankReversed - 2 * rookPositionReversed)) & rankMask;
-            // search Vertically / in the File
-            long occupiedFile = ALL_PIECES & fileMask;
-            long occupiedFileReversed = BitMasks.reverse64bits(occupiedFile);
-            long verticalMoves = ((occupiedFile - (2 * rookPosition)) ^ BitMasks.reverse64bits(occupiedFileReversed - 2 * rookPositionReversed)) & fileMask;
-
-            unsafeSquares |= (horizontalMoves | verticalMoves);
-            bb ^= pieceMask;
+            int to = Long.numberOfTrailingZeros(bb);
+            int captured = capture ? pieceAt(currentPosition, to) : Piece.EMPTY;
+            moveBuffer[count++] = Move.encode(to + offset, to, piece, captured, Piece.EMPTY, flag);
+            bb &= bb - 1;
         }
+        return count;
+    }
 
-        // check if can be attacked by bishop
-        bb = WB;
-        while(bb != 0) {
-            // Get index of next piece
-            int index = Long.numberOfTrailingZeros(bb);
-            long pieceMask = 1L << index;
-            // Isolate piece from bitboard
-            long bishopPosition = bb & pieceMask;
-            long bishopPositionReversed = BitMasks.reverse64bits(bishopPosition);
-
-            // Get the masks
-            long diagMask = BitMasks.DIAG[index];
-            long antiDiagMask = BitMasks.ANTIDIAG[index];
-
-            // search Diagonally
-            long occupiedDiag = ALL_PIECES & diagMask;
-            long occupiedDiagReversed = BitMasks.reverse64bits(occupiedDiag);
-            long diagMoves = ((occupiedDiag - (2 * bishopPosition)) ^ BitMasks.reverse64bits(occupiedDiagReversed - 2 * bishopPositionReversed)) & diagMask;
-            // search AntiDiagonally
-            long occupiedAntiDiag = ALL_PIECES & antiDiagMask;
-            long occupiedAntiDiagReversed = BitMasks.reverse64bits(occupiedAntiDiag);
-            long antiDiagMoves = ((occupiedAntiDiag - (2 * bishopPosition)) ^ BitMasks.reverse64bits(occupiedAntiDiagReversed - 2 * bishopPositionReversed)) & antiDiagMask;
-
-            unsafeSquares |= (diagMoves | antiDiagMoves);
-            bb ^= pieceMask;
-        }
+    /**
+     * Given a bit board of pawn destinations on the last rank, writes one move for every promotion type to a move buffer
+     *
+     * @param currentPosition a Chess Board, used to look up captured pieces
+     * @param bb a bit board that marks all possible move destinations from an original position(from offset)
+     * @param offset denotes the amount of shift required for a destination index to get a piece's original position.
+     * @param piece code of the moving pawn, the promotion pieces are of the same colour
+     * @param moveBuffer the move buffer
+     * @param count the number of moves already in the buffer
+     *
+     * @return the number of moves in the buffer
+     */
+    private static int addPromotionsWithOffset(Board currentPosition, long bb, int offset, int piece, int[] moveBuffer, int count){
 
-        // check if can be attacked by queen
-        bb = WQ;
-        while(bb != 0) {
-            // Get index of next piece
-            int index = Long.numberOfTrailingZeros(bb);
-            long pieceMask = 1L << index;
-            // Isolate piece from bitboard
-            long queenPosition = bb & pieceMask;
-            long queenPositionReversed = BitMasks.reverse64bits(queenPosition);
-
-            // Get the masks
-            long rankMask = BitMasks.RANK[index];
-            long fileMask = BitMasks.FILE[index];
-            long diagMask = BitMasks.DIAG[index];
-            long antiDiagMask = BitMasks.ANTIDIAG[index];
-
-            // search Horizontally / in the Rank
-            long occupiedRank = ALL_PIECES & rankMask;
-            long occupiedRankReversed = BitMasks.reverse64bits(occupiedRank);
-            long horizontalMoves = ((occupiedRank - (2 * queenPosition)) ^ BitMasks.reverse64bits(occupiedRankReversed - 2 * queenPositionReversed)) & rankMask;
-            // search Vertically / in the File
-            long occupiedFile = ALL_PIECES & fileMask;
-            long occupiedFileReversed = BitMasks.reverse64bits(occupiedFile);
-            long verticalMoves = ((occupiedFile - (2 * queenPosition)) ^ BitMasks.reverse64bits(occupiedFileReversed - 2 * queenPositionReversed)) & fileMask;
-            // search Diagonally
-            long occupiedDiag = ALL_PIECES & diagMask;
-            long occupiedDiagReversed = BitMasks.reverse64bits(occupiedDiag);
-            long diagMoves = ((occupiedDiag - (2 * queenPosition)) ^ BitMasks.reverse64bits(occupiedDiagReversed - 2 * queenPositionReversed)) & diagMask;
-            // search AntiDiagonally
-            long occupiedAntiDiag = ALL_PIECES & antiDiagMask;
-            long occupiedAntiDiagReversed = BitMasks.reverse64bits(occupiedAntiDiag);
-            long antiDiagMoves = ((occupiedAntiDiag - (2 * queenPosition)) ^ BitMasks.reverse64bits(occupiedAntiDiagReversed - 2 * queenPositionReversed)) & antiDiagMask;
-
-            unsafeSquares |= horizontalMoves | verticalMoves | diagMoves | antiDiagMoves;
-            bb ^= pieceMask;
+        while(bb != 0){
+            int to = Long.numberOfTrailingZeros(bb);
+            int captured = pieceAt(currentPosition, to);
+            // Knight, Bishop, Rook and Queen directly follow the pawn in the piece ordering
+            for(int promotion = piece + 1; promotion <= piece + 4; promotion++){
+                moveBuffer[count++] = Move.encode(to + offset, to, piece, captured, promotion, Move.PROMOTION);
+            }
+            bb &= bb - 1;
         }
-        return unsafeSquares;
+        return count;
     }
 
-    // Moves Generation
+    /**
+     * Given a bitmask of pawns, returns the squares one step forward
+     *
+     * @param pawns a bitmask of pawns
+     * @param colour the colour of the pawns, white moves towards rank 8 and black towards rank 1
+     *
+     * @return a bitmask of the squares in front of the pawns
+     */
+    private static long pawnPush(long pawns, int colour){
+        return colour == Piece.WHITE ? pawns >>> 8 : pawns << 8;
+    }
 
-    public static List<Long> generateMovesWP(Board currentPosition){
+    /**
+     * Given a bitmask of pawns, returns the squares they attack towards file A
+     */
+    private static long pawnAttacksWest(long pawns, int colour){
+        return (colour == Piece.WHITE ? pawns >>> 9 : pawns << 7) & ~BitMasks.FILE_H;
+    }
 
-        // Retrieve bitmap from Board;
-        long BP = currentPosition.BP;
-        long BN = currentPosition.BN;
-        long BB = currentPosition.BB;
-        long BR = currentPosition.BR;
-        long BQ = currentPosition.BQ;
-        long BK = currentPosition.BK;
-        long WP = currentPosition.WP;
-        long WN = currentPosition.WN;
-        long WB = currentPosition.WB;
-        long WR = currentPosition.WR;
-        long WQ = currentPosition.WQ;
-        long WK = currentPosition.WK;
-
-        //final long WP_INITIAL = BitMasks.RANK_1 >>> 8; // white's initial pawn position
-        final long BLACK_PIECES = BP | BN | BB | BR | BQ | BK; // Black's current pieces position
-        final long WHITE_PIECES = WP | WN | WB | WR | WQ | WK; // White's current pieces position
-        final long ALL_PIECES = WHITE_PIECES | BLACK_PIECES;
-
-        List<Long> possibleMoves = new ArrayList<>();
+    /**
+     * Given a bitmask of pawns, returns the squares they attack towards file H
+     */
+    private static long pawnAttacksEast(long pawns, int colour){
+        return (colour == Piece.WHITE ? pawns >>> 7 : pawns << 9) & ~BitMasks.FILE_A;
+    }
 
-        // moves
-        long moveUpOne = WP >>> 8 & ~(ALL_PIECES) & ~(BitMasks.RANK_8); // check for 1 step up, remove pieces that hit promotion
-        long moveUpTwo = (moveUpOne & BitMasks.RANK_1 >>> 16) >>> 8 & ~(ALL_PIECES);
-        // Attacks
-        long captureLeft = WP >>> 9 & BLACK_PIECES & ~(BitMasks.FILE_H) & ~(BitMasks.RANK_8);
-        long captureRight = WP >>> 7 & BLACK_PIECES & ~(BitMasks.FILE_A) & ~(BitMasks.RANK_8);
+    /**
+     * Given a piece type other than the pawn, returns all squares a piece of that type attacks from a square
+     *
+     * @param type the piece type, see {@link Piece}
+     * @param index index of the square
+     * @param occupied bitboard of all pieces on the board, used by the sliding pieces
+     *
+     * @return a bitmask of the attacked squares
+     */
+    public static long attacks(int type, int index, long occupied){
+        return switch(type){
+            case Piece.KNIGHT -> BitMasks.KNIGHT_ATTACKS[index];
+            case Piece.BISHOP -> BitMasks.bishopAttacks(index, occupied);
+            case Piece.ROOK -> BitMasks.rookAttacks(index, occupied);
+            case Piece.QUEEN -> BitMasks.queenAttacks(index, occupied);
+            default -> BitMasks.KING_ATTACKS[index];
+        };
+    }
 
-        possibleMoves.addAll(bitboardToBitMaskWithOffset(moveUpOne, 8));
-        possibleMoves.addAll(bitboardToBitMaskWithOffset(moveUpTwo, 16));
-        possibleMoves.addAll(bitboardToBitMaskWithOffset(captureLeft, 9));
-        possibleMoves.addAll(bitboardToBitMaskWithOffset(captureRight, 7));
+    /**
+     * Given a Chess Board Object, returns all spaces the king of the given colour cannot move to
+     *
+     * @param currentPosition a Chess Board
+     * @param colour the colour of the king
+     *
+     * @return a bitmask of all spaces that are invalid
+     */
+    public static long kingSafety(Board currentPosition, int colour){
+        long[] pieces = currentPosition.pieces;
+        int enemy = colour ^ 1;
 
-        return possibleMoves;
-    }
+        // Temp variable to loop over the pieces of one type
+        long bb;
 
-    public static List<Long> generateMovesWN(Board currentPosition){
-        // Retrieve bitmap from Board;
-        long WP = currentPosition.WP;
-        long WN = currentPosition.WN;
-        long WB = currentPosition.WB;
-        long WR = currentPosition.WR;
-        long WQ = currentPosition.WQ;
-        long WK = currentPosition.WK;
+        // The king is excluded, to allow sliding pieces to pierce through the king
+        final long ALL_PIECES = currentPosition.allPieces ^ pieces[Piece.of(colour, Piece.KING)];
+        final long ENEMY_QUEENS = pieces[Piece.of(enemy, Piece.QUEEN)];
 
-        final long WHITE_PIECES = WP | WN | WB | WR | WQ | WK; // White's current pieces position
+        long unsafeSquares = 0L;
 
-        List<Long> possibleMoves = new ArrayList<>();
+        // check if can be attacked by pawn
+        long enemyPawns = pieces[Piece.of(enemy, Piece.PAWN)];
+        unsafeSquares |= pawnAttacksWest(enemyPawns, enemy);
+        unsafeSquares |= pawnAttacksEast(enemyPawns, enemy);
 
-        long bb = WN;
+        // check if can be attacked by knight
+        bb = pieces[Piece.of(enemy, Piece.KNIGHT)];
         while(bb != 0){
-            // Get index of next piece
             int index = Long.numberOfTrailingZeros(bb);
-            long pieceMask = 1L << index;
-            // Isolate piece from bitboard
-            long knightPosition = bb & pieceMask;
-            // Bitmask of all possible moves
-            long moves = 0L;
-
-            /*  Ordering of the knight moves
-             *  * 8 * 0 *
-             *  7 * * * 1
-             *  * * N * *
-             *  6 * * * 2
-             *  * 5 * 4 *
-             */
-            moves |= (knightPosition >>> 15 & ~(WHITE_PIECES | BitMasks.FILE_A));
-            moves |= (knightPosition >>> 15 & ~(WHITE_PIECES | BitMasks.FILE_A));
-            moves |= (knightPosition >>> 6 & ~(WHITE_PIECES | BitMasks.FILE_AB));
-            moves |= (knightPosition << 10 & ~(WHITE_PIECES | BitMasks.FILE_AB));
-            moves |= (knightPosition << 17 & ~(WHITE_PIECES | BitMasks.FILE_A));
-            moves |= (knightPosition << 15 & ~(WHITE_PIECES | BitMasks.FILE_H));
-            moves |= (knightPosition << 6 & ~(WHITE_PIECES | BitMasks.FILE_GH));
-            moves |= (knightPosition >>> 10 & ~(WHITE_PIECES | BitMasks.FILE_GH));
-            moves |= (knightPosition >>> 17 & ~(WHITE_PIECES | BitMasks.FILE_H));
-
-            possibleMoves.addAll(bitboardToBitMask(moves, knightPosition));
-            bb ^= pieceMask;
+            unsafeSquares |= BitMasks.KNIGHT_ATTACKS[index];
+            bb &= bb - 1;
         }
-        return possibleMoves;
-    }
-
-    public static List<Long> generateMovesWK(Board currentPosition){
-        /// Retrieve bitmap from Board;
-        long WP = currentPosition.WP;
-        long WN = currentPosition.WN;
-        long WB = currentPosition.WB;
-        long WR = currentPosition.WR;
-        long WQ = currentPosition.WQ;
-        long WK = currentPosition.WK;
-
-        final long WHITE_PIECES = WP | WN | WB | WR | WQ | WK; // White's current pieces position
 
-        List<Long> possibleMoves = new ArrayList<>();
-
-        if (WK == 0) {
-            // No king exists
-            return possibleMoves;
+        // check if can be attacked by king
+        long enemyKing = pieces[Piece.of(enemy, Piece.KING)];
+        if(enemyKing != 0){
+            unsafeSquares |= BitMasks.KING_ATTACKS[Long.numberOfTrailingZeros(enemyKing)];
         }
 
-        // Get mask of all unsafe squares
-        long unsafeSquares = whiteKingSafety(currentPosition);
-
-        long bb = WK;
+        // check if can be attacked by rook or queen
+        bb = pieces[Piece.of(enemy, Piece.ROOK)] | ENEMY_QUEENS;
         while(bb != 0){
-            // Get index of next piece
             int index = Long.numberOfTrailingZeros(bb);
-            long pieceMask = 1L << index;
-            // Isolate piece from bitboard
-            long kingPosition = bb & pieceMask;
-            // Bitmask of all possible moves
-            long moves = 0L;
-            /* Ordering of the king moves
-             *  0 1 2
-             *  3 K 4
-             *  5 6 7
-             */
-
-            moves |= (kingPosition >>> 9 & ~(WHITE_PIECES | BitMasks.FILE_H));
-            moves |= (kingPosition >>> 8 & ~(WHITE_PIECES));
-            moves |= (kingPosition >>> 7 & ~(WHITE_PIECES | BitMasks.FILE_A));
-            moves |= (kingPosition >>> 1 & ~(WHITE_PIECES | BitMasks.FILE_H));
-            moves |= (kingPosition << 1 & ~(WHITE_PIECES | BitMasks.FILE_A));
-            moves |= (kingPosition << 7 & ~(WHITE_PIECES | BitMasks.FILE_H));
-            moves |= (kingPosition << 8 & ~(WHITE_PIECES));
-            moves |= (kingPosition << 9 & ~(WHITE_PIECES | BitMasks.FILE_A));
-
-            moves &= ~unsafeSquares;
-
-            possibleMoves.addAll(bitboardToBitMask(moves, kingPosition));
-            bb ^= pieceMask;
+            // Look up the attacks in the magic bitboard tables
+            unsafeSquares |= BitMasks.rookAttacks(index, ALL_PIECES);
+            bb &= bb - 1;
         }
-        return possibleMoves;
-    }
 
-    public static List<Long> generateMovesWR(Board currentPosition){
-        // Retrieve bitmap from Board;
-        long BP = currentPosition.BP;
-        long BN = currentPosition.BN;
-        long BB = currentPosition.BB;
-        long BR = currentPosition.BR;
-        long BQ = currentPosition.BQ;
-        long BK = currentPosition.BK;
-        long WP = currentPosition.WP;
-        long WN = currentPosition.WN;
-        long WB = currentPosition.WB;
-        long WR = currentPosition.WR;
-        long WQ = currentPosition.WQ;
-        long WK = currentPosition.WK;
-
-        final long BLACK_PIECES = BP | BN | BB | BR | BQ | BK; // Black's current pieces position
-        final long WHITE_PIECES = WP | WN | WB | WR | WQ | WK; // White's current pieces position
-        final long ALL_PIECES = BLACK_PIECES | WHITE_PIECES;
-
-        List<Long> possibleMoves = new ArrayList<>();
-        /*
-            reference: https://www.youtube.com/watch?v=bCH4YK6oq8M&ab_channel=LogicCrazyChess
-
-            ========= The Trick ===========
-            occupied=11000101 as (o)
-            slider=00000100   as (s)
-            o-s=11000001
-            o-2s=10111101     // equals to shifting to left by 1
-            left=o^(o-2s)=01111000
-            ===============================
-
-            Combining left and right
-            lineAttacks=(((o&m)-2s) ^ ((o&m)'-2s')')&m
-        */
-
-        long bb = WR;
+        // check if can be attacked by bishop or queen
+        bb = pieces[Piece.of(enemy, Piece.BISHOP)] | ENEMY_QUEENS;
         while(bb != 0){
-            // Get index of next piece
             int index = Long.numberOfTrailingZeros(bb);
-            long pieceMask = 1L << index;
-            // Isolate piece from bitboard
-            long rookPosition = bb & pieceMask;
-            long rookPositionReversed = BitMasks.reverse64bits(rookPosition);
-
-            // Get the masks
-            long rankMask = BitMasks.RANK[index];
-            long fileMask = BitMasks.FILE[index];
-
-            // search Horizontally / in the Rank
-            long occupiedRank = ALL_PIECES & rankMask;
-            long occupiedRankReversed = BitMasks.reverse64bits(occupiedRank);
-            long horizontalMoves = ((occupiedRank - (2 * rookPosition)) ^ BitMasks.reverse64bits(occupiedRankReversed - 2 * rookPositionReversed)) & rankMask;
-            // search Vertically / in the File
-            long occupiedFile = ALL_PIECES & fileMask;
-            long occupiedFileReversed = BitMasks.reverse64bits(occupiedFile);
-            long verticalMoves = ((occupiedFile - (2 * rookPosition)) ^ BitMasks.reverse64bits(occupiedFileReversed - 2 * rookPositionReversed)) & fileMask;
-
-            // Bitmask of all possible moves
-            long moves = horizontalMoves | verticalMoves;
-            moves = moves & ~WHITE_PIECES;
-
-            possibleMoves.addAll(bitboardToBitMask(moves, rookPosition));
-            bb ^= pieceMask;
+            // Look up the attacks in the magic bitboard tables
+            unsafeSquares |= BitMasks.bishopAttacks(index, ALL_PIECES);
+            bb &= bb - 1;
         }
-        return possibleMoves;
+        return unsafeSquares;
+    }
+
+    // Moves Generation
+
+    public static List<Long> generateMovesWP(Board currentPosition){
+        int[] moveBuffer = new int[MAX_MOVES];
+        return toMoveMasks(moveBuffer, generatePawnMoves(currentPosition, Piece.WHITE, moveBuffer, 0));
+    }
+
+    public static List<Long> generateMovesWN(Board currentPosition){
+        int[] moveBuffer = new int[MAX_MOVES];
+        return toMoveMasks(moveBuffer, generatePieceMoves(currentPosition, Piece.WHITE, Piece.KNIGHT, moveBuffer, 0));
+    }
+
+    public static List<Long> generateMovesWK(Board currentPosition){
+        int[] moveBuffer = new int[MAX_MOVES];
+        return toMoveMasks(moveBuffer, generateKingMoves(currentPosition, Piece.WHITE, moveBuffer, 0));
+    }
+
+    public static List<Long> generateMovesWR(Board currentPosition){
+        int[] moveBuffer = new int[MAX_MOVES];
+        return toMoveMasks(moveBuffer, generatePieceMoves(currentPosition, Piece.WHITE, Piece.ROOK, moveBuffer, 0));
     }
 
     public static List<Long> generateMovesWB(Board currentPosition){
-        // Retrieve bitmap from Board;
-        long BP = currentPosition.BP;
-        long BN = currentPosition.BN;
-        long BB = currentPosition.BB;
-        long BR = currentPosition.BR;
-        long BQ = currentPosition.BQ;
-        long BK = currentPosition.BK;
-        long WP = currentPosition.WP;
-        long WN = currentPosition.WN;
-        long WB = currentPosition.WB;
-        long WR = currentPosition.WR;
-        long WQ = currentPosition.WQ;
-        long WK = currentPosition.WK;
-
-        final long BLACK_PIECES = BP | BN | BB | BR | BQ | BK; // Black's current pieces position
-        final long WHITE_PIECES = WP | WN | WB | WR | WQ | WK; // White's current pieces position
-        final long ALL_PIECES = BLACK_PIECES | WHITE_PIECES;
-
-        List<Long> possibleMoves = new ArrayList<>();
-        /*
-            reference: https://www.youtube.com/watch?v=bCH4YK6oq8M&ab_channel=LogicCrazyChess
-
-            ========= The Trick ===========
-            occupied=11000101 as (o)
-            slider=00000100   as (s)
-            o-s=11000001
-            o-2s=10111101     // equals to shifting to left by 1
-            left=o^(o-2s)=01111000
-            ===============================
-
-            Combining left and right
-            lineAttacks=(((o&m)-2s) ^ ((o&m)'-2s')')&m
-        */
-
-        long bb = WB;
-        while(bb != 0){
-            // Get index of next piece
-            int index = Long.numberOfTrailingZeros(bb);
-            long pieceMask = 1L << index;
-            // Isolate piece from bitboard
-            long bishopPosition = bb & pieceMask;
-            long bishopPositionReversed = BitMasks.reverse64bits(bishopPosition);
-
-            // Get the masks
-            long diagMask = BitMasks.DIAG[index];
-            long antiDiagMask = BitMasks.ANTIDIAG[index];
-
-            // search Diagonally
-            long occupiedDiag = ALL_PIECES & diagMask;
-            long occupiedDiagReversed = BitMasks.reverse64bits(occupiedDiag);
-            long diagMoves = ((occupiedDiag - (2 * bishopPosition)) ^ BitMasks.reverse64bits(occupiedDiagReversed - 2 * bishopPositionReversed)) & diagMask;
-            // search AntiDiagonally
-            long occupiedAntiDiag = ALL_PIECES & antiDiagMask;
-            long occupiedAntiDiagReversed = BitMasks.reverse64bits(occupiedAntiDiag);
-            long antiDiagMoves = ((occupiedAntiDiag - (2 * bishopPosition)) ^ BitMasks.reverse64bits(occupiedAntiDiagReversed - 2 * bishopPositionReversed)) & antiDiagMask;
-
-            // Bitmask of all possible moves
-            long moves = diagMoves | antiDiagMoves;
-            moves = moves & ~WHITE_PIECES;
-
-            possibleMoves.addAll(bitboardToBitMask(moves, bishopPosition));
-            bb ^= pieceMask;
-        }
-        return possibleMoves;
+        int[] moveBuffer = new int[MAX_MOVES];
+        return toMoveMasks(moveBuffer, generatePieceMoves(currentPosition, Piece.WHITE, Piece.BISHOP, moveBuffer, 0));
     }
 
     public static List<Long> generateMovesWQ(Board currentPosition){
-        // Retrieve bitmap from Board;
-        long BP = currentPosition.BP;
-        long BN = currentPosition.BN;
-        long BB = currentPosition.BB;
-        long BR = currentPosition.BR;
-        long BQ = currentPosition.BQ;
-        long BK = currentPosition.BK;
-        long WP = currentPosition.WP;
-        long WN = currentPosition.WN;
-        long WB = currentPosition.WB;
-        long WR = currentPosition.WR;
-        long WQ = currentPosition.WQ;
-        long WK = currentPosition.WK;
-
-        final long BLACK_PIECES = BP | BN | BB | BR | BQ | BK; // Black's current pieces position
-        final long WHITE_PIECES = WP | WN | WB | WR | WQ | WK; // White's current pieces position
-        final long ALL_PIECES = BLACK_PIECES | WHITE_PIECES;
-
-        List<Long> possibleMoves = new ArrayList<>();
-
-
-        long bb = WQ;
-        while(bb != 0){
-            // Get index of next piece
-            int index = Long.numberOfTrailingZeros(bb);
-            long pieceMask = 1L << index;
-            // Isolate piece from bitboard
-            long queenPosition = bb & pieceMask;
-            long queenPositionReversed = BitMasks.reverse64bits(queenPosition);
-
-            // Get the masks
-            long rankMask = BitMasks.RANK[index];
-            long fileMask = BitMasks.FILE[index];
-            long diagMask = BitMasks.DIAG[index];
-            long antiDiagMask = BitMasks.ANTIDIAG[index];
-
-            // search Horizontally / in the Rank
-            long occupiedRank = ALL_PIECES & rankMask;
-            long occupiedRankReversed = BitMasks.reverse64bits(occupiedRank);
-            long horizontalMoves = ((occupiedRank - (2 * queenPosition)) ^ BitMasks.reverse64bits(occupiedRankReversed - 2 * queenPositionReversed)) & rankMask;
-            // search Vertically / in the File
-            long occupiedFile = ALL_PIECES & fileMask;
-            long occupiedFileReversed = BitMasks.reverse64bits(occupiedFile);
-            long verticalMoves = ((occupiedFile - (2 * queenPosition)) ^ BitMasks.reverse64bits(occupiedFileReversed - 2 * queenPositionReversed)) & fileMask;
-            // search Diagonally
-            long occupiedDiag = ALL_PIECES & diagMask;
-            long occupiedDiagReversed = BitMasks.reverse64bits(occupiedDiag);
-            long diagMoves = ((occupiedDiag - (2 * queenPosition)) ^ BitMasks.reverse64bits(occupiedDiagReversed - 2 * queenPositionReversed)) & diagMask;
-            // search AntiDiagonally
-            long occupiedAntiDiag = ALL_PIECES & antiDiagMask;
-            long occupiedAntiDiagReversed = BitMasks.reverse64bits(occupiedAntiDiag);
-            long antiDiagMoves = ((occupiedAntiDiag - (2 * queenPosition)) ^ BitMasks.reverse64bits(occupiedAntiDiagReversed - 2 * queenPositionReversed)) & antiDiagMask;
-
-            // Bitmask of all possible moves
-            long moves = horizontalMoves | verticalMoves | diagMoves | antiDiagMoves;
-            moves = moves & ~WHITE_PIECES;
-
-            possibleMoves.addAll(bitboardToBitMask(moves, queenPosition));
-            bb ^= pieceMask;
-        }
-        return possibleMoves;
+        int[] moveBuffer = new int[MAX_MOVES];
+        return toMoveMasks(moveBuffer, generatePieceMoves(currentPosition, Piece.WHITE, Piece.QUEEN, moveBuffer, 0));
     }
 
     public static List<SpecialMoves> generateMovesWCastle(Board currentPosition){
-        // Retrieve bitmap from Board;
-        long BP = currentPosition.BP;
-        long BN = currentPosition.BN;
-        long BB = currentPosition.BB;
-        long BR = currentPosition.BR;
-        long BQ = currentPosition.BQ;
-        long BK = currentPosition.BK;
-        long WP = currentPosition.WP;
-        long WN = currentPosition.WN;
-        long WB = currentPosition.WB;
-        long WR = currentPosition.WR;
-        long WQ = currentPosition.WQ;
-        long WK = currentPosition.WK;
-
-        final long BLACK_PIECES = BP | BN | BB | BR | BQ | BK; // Black's current pieces position
-        final long WHITE_PIECES = WP | WN | WB | WR | WQ | WK; // White's current pieces position
-        final long ALL_PIECES = BLACK_PIECES | WHITE_PIECES;
-
-        List<SpecialMoves> possibleMoves = new ArrayList<>();
-
-        // Get mask of all unsafe squares
-        long unsafeSquares = whiteKingSafety(currentPosition);
-
-        // Castling
-        // King-Side
-        if((currentPosition.castleCheck & BitMasks.W_K_Castle) == 0 && (BitMasks.W_K_Castle_Block & ALL_PIECES) == 0 && (BitMasks.W_K_Castle_Inter & unsafeSquares) == 0){
-            SpecialMoves move = new SpecialMoves();
-            move.moveMask1 = BitMasks.WK_K_Castle_Move;
-            move.moveMask2 = BitMasks.WR_K_Castle_Move;
-            move.moveType = MoveType.CASTLE;
-            possibleMoves.add(move);
-        }
-        // Queen-Side
-        if((currentPosition.castleCheck & BitMasks.W_Q_Castle) == 0 && (BitMasks.W_Q_Castle_Block & ALL_PIECES) == 0 && (BitMasks.W_Q_Castle_Inter & unsafeSquares) == 0){
-            SpecialMoves move = new SpecialMoves();
-            move.moveMask1 = BitMasks.WK_Q_Castle_Move;
-            move.moveMask2 = BitMasks.WR_Q_Castle_Move;
-            move.moveType = MoveType.CASTLE;
-            possibleMoves.add(move);
-        }
-        return possibleMoves;
+        int[] moveBuffer = new int[MAX_MOVES];
+        return toSpecialMoves(moveBuffer, generateCastleMoves(currentPosition, Piece.WHITE, moveBuffer, 0));
     }
 
     public static List<SpecialMoves> generateMovesWEnPassant(Board currentPosition){
-        // Retrieve bitmap from Board;
-        long BP = currentPosition.BP;
-        long WP = currentPosition.WP;
+        int[] moveBuffer = new int[MAX_MOVES];
+        return toSpecialMoves(moveBuffer, generateEnPassantMoves(currentPosition, Piece.WHITE, moveBuffer, 0));
+    }
 
-        long lastMove = currentPosition.lastMove;
+    public static List<SpecialMoves> generateMovesWPromotion(Board currentPosition){
+        int[] moveBuffer = new int[MAX_MOVES];
+        return toSpecialMoves(moveBuffer, generatePromotionMoves(currentPosition, Piece.WHITE, moveBuffer, 0));
+    }
 
-        List<SpecialMoves> possibleMoves = new ArrayList<>();
+    public static List<Long> generateMovesBP(Board currentPosition){
+        int[] moveBuffer = new int[MAX_MOVES];
+        return toMoveMasks(moveBuffer, generatePawnMoves(currentPosition, Piece.BLACK, moveBuffer, 0));
+    }
 
-        long enPassant = lastMove == ((BP & lastMove) | ((BP & lastMove) >>> 16)) ? (BP & lastMove) : 0L;
+    public static List<Long> generateMovesBN(Board currentPosition){
+        int[] moveBuffer = new int[MAX_MOVES];
+        return toMoveMasks(moveBuffer, generatePieceMoves(currentPosition, Piece.BLACK, Piece.KNIGHT, moveBuffer, 0));
+    }
 
-        if(enPassant == 0){
-            return possibleMoves;
-        }
-        else{
-            long captureLeft = WP >>> 9 & enPassant >>> 8 & ~(BitMasks.FILE_H);
-            long captureRight = WP >>> 7 & enPassant >>> 8 & ~(BitMasks.FILE_A);
-            if(captureLeft != 0){
-                SpecialMoves move = new SpecialMoves();
-                move.moveMask1 = captureLeft | (captureLeft << 9);
-                move.moveMask2 = BP & lastMove;
-                move.moveType = MoveType.ENPASSANT;
-                possibleMoves.add(move);
-            }
-            if(captureRight != 0) {
-                SpecialMoves move = new SpecialMoves();
-                move.moveMask1 = captureRight | (captureRight << 7);
-                move.moveMask2 = BP & lastMove;
-                move.moveType = MoveType.ENPASSANT;
-                possibleMoves.add(move);
-            }
-        }
+    public static List<Long> generateMovesBK(Board currentPosition){
+        int[] moveBuffer = new int[MAX_MOVES];
+        return toMoveMasks(moveBuffer, generateKingMoves(currentPosition, Piece.BLACK, moveBuffer, 0));
+    }
 
-        return possibleMoves;
+    public static List<Long> generateMovesBR(Board currentPosition){
+        int[] moveBuffer = new int[MAX_MOVES];
+        return toMoveMasks(moveBuffer, generatePieceMoves(currentPosition, Piece.BLACK, Piece.ROOK, moveBuffer, 0));
     }
 
-    public static List<SpecialMoves> generateMovesWPromotion(Board currentPosition){
+    public static List<Long> generateMovesBB(Board currentPosition){
+        int[] moveBuffer = new int[MAX_MOVES];
+        return toMoveMasks(moveBuffer, generatePieceMoves(currentPosition, Piece.BLACK, Piece.BISHOP, moveBuffer, 0));
+    }
 
-        // Retrieve bitmap from Board;
-        long BP = currentPosition.BP;
-        long BN = currentPosition.BN;
-        long BB = currentPosition.BB;
-        long BR = currentPosition.BR;
-        long BQ = currentPosition.BQ;
-        long BK = currentPosition.BK;
-        long WP = currentPosition.WP;
-        long WN = currentPosition.WN;
-        long WB = currentPosition.WB;
-        long WR = currentPosition.WR;
-        long WQ = currentPosition.WQ;
-        long WK = currentPosition.WK;
-
-        final long BLACK_PIECES = BP | BN | BB | BR | BQ | BK; // Black's current pieces position
-        final long WHITE_PIECES = WP | WN | WB | WR | WQ | WK; // White's current pieces position
-        final long ALL_PIECES = BLACK_PIECES | WHITE_PIECES;
-
-        List<SpecialMoves> possibleMoves = new ArrayList<>();
+    public static List<Long> generateMovesBQ(Board currentPosition){
+        int[] moveBuffer = new int[MAX_MOVES];
+        return toMoveMasks(moveBuffer, generatePieceMoves(currentPosition, Piece.BLACK, Piece.QUEEN, moveBuffer, 0));
+    }
 
-        // moves
-        long moveUpOne = WP >>> 8 & ~(ALL_PIECES) & BitMasks.RANK_8; // check for 1 step up
-        // Attacks
-        long captureLeft = WP >>> 9 & BLACK_PIECES & ~(BitMasks.FILE_H) & BitMasks.RANK_8;
-        long captureRight = WP >>> 7 & BLACK_PIECES & ~(BitMasks.FILE_A) & BitMasks.RANK_8;
+    public static List<SpecialMoves> generateMovesBCastle(Board currentPosition){
+        int[] moveBuffer = new int[MAX_MOVES];
+        return toSpecialMoves(moveBuffer, generateCastleMoves(currentPosition, Piece.BLACK, moveBuffer, 0));
+    }
 
-        possibleMoves.addAll(bitboardToBitMaskWithOffsetPromotion(moveUpOne, 8));
-        possibleMoves.addAll(bitboardToBitMaskWithOffsetPromotion(captureLeft, 9));
-        possibleMoves.addAll(bitboardToBitMaskWithOffsetPromotion(captureRight, 7));
+    public static List<SpecialMoves> generateMovesBEnPassant(Board currentPosition){
+        int[] moveBuffer = new int[MAX_MOVES];
+        return toSpecialMoves(moveBuffer, generateEnPassantMoves(currentPosition, Piece.BLACK, moveBuffer, 0));
+    }
 
-        return possibleMoves;
+    public static List<SpecialMoves> generateMovesBPromotion(Board currentPosition){
+        int[] moveBuffer = new int[MAX_MOVES];
+        return toSpecialMoves(moveBuffer, generatePromotionMoves(currentPosition, Piece.BLACK, moveBuffer, 0));
     }
 
-    public static List<Long> generateMovesBP(Board currentPosition){
+    /**
+     * Writes the pawn pushes and captures of one side to a move buffer, promotions are left to {@link #generatePromotionMoves(Board, int, int[], int)}
+     *
+     * @param currentPosition a Chess Board
+     * @param colour the side to move
+     * @param moveBuffer the move buffer
+     * @param count the number of moves already in the buffer
+     *
+     * @return the number of moves in the buffer
+     */
+    public static int generatePawnMoves(Board currentPosition, int colour, int[] moveBuffer, int count){
+        return generatePawnMoves(currentPosition, colour, -1L, moveBuffer, count);
+    }
 
-        // Retrieve bitmap from Board;
-        long BP = currentPosition.BP;
-        long BN = currentPosition.BN;
-        long BB = currentPosition.BB;
-        long BR = currentPosition.BR;
-        long BQ = currentPosition.BQ;
-        long BK = currentPosition.BK;
-        long WP = currentPosition.WP;
-        long WN = currentPosition.WN;
-        long WB = currentPosition.WB;
-        long WR = currentPosition.WR;
-        long WQ = currentPosition.WQ;
-        long WK = currentPosition.WK;
-
-        //final long BP_INITIAL = BitMasks.RANK_8 << 8; // Black's initial pawn position
-        final long BLACK_PIECES = BP | BN | BB | BR | BQ | BK; // Black's current pieces position
-        final long WHITE_PIECES = WP | WN | WB | WR | WQ | WK; // White's current pieces position
-        final long ALL_PIECES = BLACK_PIECES | WHITE_PIECES;
-
-        List<Long> possibleMoves = new ArrayList<>();
+    private static int generatePawnMoves(Board currentPosition, int colour, long targets, int[] moveBuffer, int count){
+
+        final int piece = Piece.of(colour, Piece.PAWN);
+        final long pawns = currentPosition.pieces[piece];
+        final long ENEMY_PIECES = currentPosition.occupancy[colour ^ 1];
+        final long ALL_PIECES = currentPosition.allPieces;
+        final long PROMOTION_RANK = colour == Piece.WHITE ? BitMasks.RANK_8 : BitMasks.RANK_1;
+        // A double push has to land on the fourth rank from the pawn's side
+        final long DOUBLE_PUSH_RANK = colour == Piece.WHITE ? BitMasks.RANK_4 : BitMasks.RANK_5;
 
         // moves
-        long moveDownOne = BP << 8 & ~(ALL_PIECES) & ~(BitMasks.RANK_1); // check for 1 step up, remove pieces that hit promotion
-        long moveDownTwo = (moveDownOne & BitMasks.RANK_8 << 16) << 8 & ~(ALL_PIECES);
+        long pushOne = pawnPush(pawns, colour) & ~ALL_PIECES & ~PROMOTION_RANK; // remove pieces that hit promotion
+        long pushTwo = pawnPush(pushOne, colour) & ~ALL_PIECES & DOUBLE_PUSH_RANK & targets;
+        pushOne &= targets;
         // Attacks
-        long captureLeft = BP << 7 & WHITE_PIECES & ~(BitMasks.FILE_H) & ~(BitMasks.RANK_1);
-        long captureRight = BP << 9 & WHITE_PIECES & ~(BitMasks.FILE_A) & ~(BitMasks.RANK_1);
-
+        long captureWest = pawnAttacksWest(pawns, colour) & ENEMY_PIECES & ~PROMOTION_RANK & targets;
+        long captureEast = pawnAttacksEast(pawns, colour) & ENEMY_PIECES & ~PROMOTION_RANK & targets;
 
-        possibleMoves.addAll(bitboardToBitMaskWithOffset(moveDownOne, -8));
-        possibleMoves.addAll(bitboardToBitMaskWithOffset(moveDownTwo, -16));
-        possibleMoves.addAll(bitboardToBitMaskWithOffset(captureLeft, -7));
-        possibleMoves.addAll(bitboardToBitMaskWithOffset(captureRight, -9));
+        count = addMovesWithOffset(currentPosition, pushOne, PAWN_PUSH_OFFSET[colour], piece, false, Move.NORMAL, moveBuffer, count);
+        count = addMovesWithOffset(currentPosition, pushTwo, 2 * PAWN_PUSH_OFFSET[colour], piece, false, Move.DOUBLE_PUSH, moveBuffer, count);
+        count = addMovesWithOffset(currentPosition, captureWest, PAWN_WEST_OFFSET[colour], piece, true, Move.NORMAL, moveBuffer, count);
+        count = addMovesWithOffset(currentPosition, captureEast, PAWN_EAST_OFFSET[colour], piece, true, Move.NORMAL, moveBuffer, count);
 
-        return possibleMoves;
+        return count;
     }
 
-    public static List<Long> generateMovesBN(Board currentPosition){
-        // Retrieve bitmap from Board;
-        long BP = currentPosition.BP;
-        long BN = currentPosition.BN;
-        long BB = currentPosition.BB;
-        long BR = currentPosition.BR;
-        long BQ = currentPosition.BQ;
-        long BK = currentPosition.BK;
+    /**
+     * Writes the moves of the knights, bishops, rooks or queens of one side to a move buffer
+     *
+     * @param currentPosition a Chess Board
+     * @param colour the side to move
+     * @param type {@link Piece#KNIGHT}, {@link Piece#BISHOP}, {@link Piece#ROOK} or {@link Piece#QUEEN}
+     * @param moveBuffer the move buffer
+     * @param count the number of moves already in the buffer
+     *
+     * @return the number of moves in the buffer
+     */
+    public static int generatePieceMoves(Board currentPosition, int colour, int type, int[] moveBuffer, int count){
+        return generatePieceMoves(currentPosition, colour, type, -1L, moveBuffer, count);
+    }
 
-        final long BLACK_PIECES = BP | BN | BB | BR | BQ | BK; // Black's current pieces position
+    private static int generatePieceMoves(Board currentPosition, int colour, int type, long targets, int[] moveBuffer, int count){
 
-        List<Long> possibleMoves = new ArrayList<>();
+        final int piece = Piece.of(colour, type);
+        final long OWN_PIECES = currentPosition.occupancy[colour];
+        final long ENEMY_PIECES = currentPosition.occupancy[colour ^ 1];
+        final long ALL_PIECES = currentPosition.allPieces;
 
-        long bb = BN;
+        long bb = currentPosition.pieces[piece];
         while(bb != 0){
             // Get index of next piece
             int index = Long.numberOfTrailingZeros(bb);
-            long pieceMask = 1L << index;
-            // Isolate piece from bitboard
-            long knightPosition = bb & pieceMask;
-            // Bitmask of all possible moves
-            long moves = 0L;
-
-            /*  Ordering of the knight moves
-             *  * 8 * 0 *
-             *  7 * * * 1
-             *  * * N * *
-             *  6 * * * 2
-             *  * 5 * 4 *
-             */
-
-            moves |= (knightPosition >>> 15 & ~(BLACK_PIECES | BitMasks.FILE_A));
-            moves |= (knightPosition >>> 6 & ~(BLACK_PIECES | BitMasks.FILE_AB));
-            moves |= (knightPosition << 10 & ~(BLACK_PIECES | BitMasks.FILE_AB));
-            moves |= (knightPosition << 17 & ~(BLACK_PIECES | BitMasks.FILE_A));
-            moves |= (knightPosition << 15 & ~(BLACK_PIECES | BitMasks.FILE_H));
-            moves |= (knightPosition << 6 & ~(BLACK_PIECES | BitMasks.FILE_GH));
-            moves |= (knightPosition >>> 10 & ~(BLACK_PIECES | BitMasks.FILE_GH));
-            moves |= (knightPosition >>> 17 & ~(BLACK_PIECES | BitMasks.FILE_H));
-
-            possibleMoves.addAll(bitboardToBitMask(moves, knightPosition));
-            bb ^= pieceMask;
+            // Bitmask of all possible moves, looked up in the attack tables
+            long moves = attacks(type, index, ALL_PIECES) & ~OWN_PIECES & targets;
+
+            count = addMoves(currentPosition, moves, index, piece, ENEMY_PIECES, moveBuffer, count);
+            bb &= bb - 1;
         }
-        return possibleMoves;
+        return count;
     }
 
-    public static List<Long> generateMovesBK(Board currentPosition){
-        // Retrieve bitmap from Board;
-        long BP = currentPosition.BP;
-        long BN = currentPosition.BN;
-        long BB = currentPosition.BB;
-        long BR = currentPosition.BR;
-        long BQ = currentPosition.BQ;
-        long BK = currentPosition.BK;
+    /**
+     * Writes the king moves of one side to a move buffer, squares attacked by the enemy are left out.
+     * Castling is generated by {@link #generateCastleMoves(Board, int, int[], int)}
+     *
+     * @param currentPosition a Chess Board
+     * @param colour the side to move
+     * @param moveBuffer the move buffer
+     * @param count the number of moves already in the buffer
+     *
+     * @return the number of moves in the buffer
+     */
+    public static int generateKingMoves(Board currentPosition, int colour, int[] moveBuffer, int count){
+        return generateKingMoves(currentPosition, colour, -1L, moveBuffer, count);
+    }
 
-        final long BLACK_PIECES = BP | BN | BB | BR | BQ | BK; // Black's current pieces position
+    private static int generateKingMoves(Board currentPosition, int colour, long targets, int[] moveBuffer, int count){
 
-        List<Long> possibleMoves = new ArrayList<>();
+        final int piece = Piece.of(colour, Piece.KING);
+        final long king = currentPosition.pieces[piece];
 
-        if (BK == 0) {
+        if (king == 0) {
             // No king exists
-            return possibleMoves;
+            return count;
         }
 
+        final long OWN_PIECES = currentPosition.occupancy[colour];
+        final long ENEMY_PIECES = currentPosition.occupancy[colour ^ 1];
+
         // Get mask of all unsafe squares
-        long unsafeSquares = blackKingSafety(currentPosition);
+        long unsafeSquares = kingSafety(currentPosition, colour);
 
-        long bb = BK;
-        while(bb != 0){
-            // Get index of next piece
-            int index = Long.numberOfTrailingZeros(bb);
-            long pieceMask = 1L << index;
-            // Isolate piece from bitboard
-            long kingPosition = bb & pieceMask;
-            // Bitmask of all possible moves
-            long moves = 0L;
-            /* Ordering of the king moves
-             *  0 1 2
-             *  3 K 4
-             *  5 6 7
-             */
-
-            moves |= (kingPosition >>> 9 & ~(BLACK_PIECES | BitMasks.FILE_H));
-            moves |= (kingPosition >>> 8 & ~(BLACK_PIECES));
-            moves |= (kingPosition >>> 7 & ~(BLACK_PIECES | BitMasks.FILE_A));
-            moves |= (kingPosition >>> 1 & ~(BLACK_PIECES | BitMasks.FILE_H));
-            moves |= (kingPosition << 1 & ~(BLACK_PIECES | BitMasks.FILE_A));
-            moves |= (kingPosition << 7 & ~(BLACK_PIECES | BitMasks.FILE_H));
-            moves |= (kingPosition << 8 & ~(BLACK_PIECES));
-            moves |= (kingPosition << 9 & ~(BLACK_PIECES | BitMasks.FILE_A));
-
-            moves &= ~unsafeSquares;
-
-            possibleMoves.addAll(bitboardToBitMask(moves, kingPosition));
-            bb ^= pieceMask;
-        }
-        return possibleMoves;
-    }
+        int index = Long.numberOfTrailingZeros(king);
+        // Bitmask of all possible moves, looked up in the king attack table
+        long moves = BitMasks.KING_ATTACKS[index] & ~OWN_PIECES & ~unsafeSquares & targets;
 
-    public static List<Long> generateMovesBR(Board currentPosition){
-        // Retrieve bitmap from Board;
-        long BP = currentPosition.BP;
-        long BN = currentPosition.BN;
-        long BB = currentPosition.BB;
-        long BR = currentPosition.BR;
-        long BQ = currentPosition.BQ;
-        long BK = currentPosition.BK;
-        long WP = currentPosition.WP;
-        long WN = currentPosition.WN;
-        long WB = currentPosition.WB;
-        long WR = currentPosition.WR;
-        long WQ = currentPosition.WQ;
-        long WK = currentPosition.WK;
-
-        final long BLACK_PIECES = BP | BN | BB | BR | BQ | BK; // Black's current pieces position
-        final long WHITE_PIECES = WP | WN | WB | WR | WQ | WK; // White's current pieces position
-        final long ALL_PIECES = BLACK_PIECES | WHITE_PIECES;
-
-        List<Long> possibleMoves = new ArrayList<>();
-        /*
-            reference: https://www.youtube.com/watch?v=bCH4YK6oq8M&ab_channel=LogicCrazyChess
-
-            ========= The Trick ===========
-            occupied=11000101 as (o)
-            slider=00000100   as (s)
-            o-s=11000001
-            o-2s=10111101     // equals to shifting to left by 1
-            left=o^(o-2s)=01111000
-            ===============================
-
-            Combining left and right
-            lineAttacks=(((o&m)-2s) ^ ((o&m)'-2s')')&m
-        */
-        long bb = BR;
-        while(bb != 0){
-            /// Get index of next piece
-            int index = Long.numberOfTrailingZeros(bb);
-            long pieceMask = 1L << index;
-            // Isolate piece from bitboard
-            long rookPosition = bb & pieceMask;
-            long rookPositionReversed = BitMasks.reverse64bits(rookPosition);
-
-            // Get the masks
-            long rankMask = BitMasks.RANK[index];
-            long fileMask = BitMasks.FILE[index];
-
-            // search Horizontally / in the Rank
-            long occupiedRank = ALL_PIECES & rankMask;
-            long occupiedRankReversed = BitMasks.reverse64bits(occupiedRank);
-            long horizontalMoves = ((occupiedRank - (2 * rookPosition)) ^ BitMasks.reverse64bits(occupiedRankReversed - 2 * rookPositionReversed)) & rankMask;
-            // search Vertically / in the File
-            long occupiedFile = ALL_PIECES & fileMask;
-            long occupiedFileReversed = BitMasks.reverse64bits(occupiedFile);
-            long verticalMoves = ((occupiedFile - (2 * rookPosition)) ^ BitMasks.reverse64bits(occupiedFileReversed - 2 * rookPositionReversed)) & fileMask;
-
-            // Bitmask of all possible moves
-            long moves = horizontalMoves | verticalMoves;
-            moves = moves & ~BLACK_PIECES;
-
-            possibleMoves.addAll(bitboardToBitMask(moves, rookPosition));
-            bb ^= pieceMask;
-        }
-        return possibleMoves;
+        return addMoves(currentPosition, moves, index, piece, ENEMY_PIECES, moveBuffer, count);
     }
 
-    public static List<Long> generateMovesBB(Board currentPosition){
-        // Retrieve bitmap from Board;
-        long BP = currentPosition.BP;
-        long BN = currentPosition.BN;
-        long BB = currentPosition.BB;
-        long BR = currentPosition.BR;
-        long BQ = currentPosition.BQ;
-        long BK = currentPosition.BK;
-        long WP = currentPosition.WP;
-        long WN = currentPosition.WN;
-        long WB = currentPosition.WB;
-        long WR = currentPosition.WR;
-        long WQ = currentPosition.WQ;
-        long WK = currentPosition.WK;
-
-        final long BLACK_PIECES = BP | BN | BB | BR | BQ | BK; // Black's current pieces position
-        final long WHITE_PIECES = WP | WN | WB | WR | WQ | WK; // White's current pieces position
-        final long ALL_PIECES = BLACK_PIECES | WHITE_PIECES;
-
-        List<Long> possibleMoves = new ArrayList<>();
-        /*
-            reference: https://www.youtube.com/watch?v=bCH4YK6oq8M&ab_channel=LogicCrazyChess
-
-            ========= The Trick ===========
-            occupied=11000101 as (o)
-            slider=00000100   as (s)
-            o-s=11000001
-            o-2s=10111101     // equals to shifting to left by 1
-            left=o^(o-2s)=01111000
-            ===============================
-
-            Combining left and right
-            lineAttacks=(((o&m)-2s) ^ ((o&m)'-2s')')&m
-        */
-        long bb = BB;
-        while(bb != 0){
-            // Get index of next piece
-            int index = Long.numberOfTrailingZeros(bb);
-            long pieceMask = 1L << index;
-            // Isolate piece from bitboard
-            long bishopPosition = bb & pieceMask;
-            long bishopPositionReversed = BitMasks.reverse64bits(bishopPosition);
-
-            // Get the masks
-            long diagMask = BitMasks.DIAG[index];
-            long antiDiagMask = BitMasks.ANTIDIAG[index];
-
-            // search Diagonally
-            long occupiedDiag = ALL_PIECES & diagMask;
-            long occupiedDiagReversed = BitMasks.reverse64bits(occupiedDiag);
-            long diagMoves = ((occupiedDiag - (2 * bishopPosition)) ^ BitMasks.reverse64bits(occupiedDiagReversed - 2 * bishopPositionReversed)) & diagMask;
-            // search AntiDiagonally
-            long occupiedAntiDiag = ALL_PIECES & antiDiagMask;
-            long occupiedAntiDiagReversed = BitMasks.reverse64bits(occupiedAntiDiag);
-            long antiDiagMoves = ((occupiedAntiDiag - (2 * bishopPosition)) ^ BitMasks.reverse64bits(occupiedAntiDiagReversed - 2 * bishopPositionReversed)) & antiDiagMask;
-
-            // Bitmask of all possible moves
-            long moves = diagMoves | antiDiagMoves;
-            moves = moves & ~BLACK_PIECES;
-
-            possibleMoves.addAll(bitboardToBitMask(moves, bishopPosition));
-            bb ^= pieceMask;
-        }
-        return possibleMoves;
-    }
+    public static int generateCastleMoves(Board currentPosition, int colour, int[] moveBuffer, int count){
 
-    public static List<Long> generateMovesBQ(Board currentPosition){
-        // Retrieve bitmap from Board;
-        long BP = currentPosition.BP;
-        long BN = currentPosition.BN;
-        long BB = currentPosition.BB;
-        long BR = currentPosition.BR;
-        long BQ = currentPosition.BQ;
-        long BK = currentPosition.BK;
-        long WP = currentPosition.WP;
-        long WN = currentPosition.WN;
-        long WB = currentPosition.WB;
-        long WR = currentPosition.WR;
-        long WQ = currentPosition.WQ;
-        long WK = currentPosition.WK;
-
-        final long BLACK_PIECES = BP | BN | BB | BR | BQ | BK; // Black's current pieces position
-        final long WHITE_PIECES = WP | WN | WB | WR | WQ | WK; // White's current pieces position
-        final long ALL_PIECES = BLACK_PIECES | WHITE_PIECES;
-
-        List<Long> possibleMoves = new ArrayList<>();
-
-        long bb = BQ;
-        while(bb != 0){
-            // Get index of next piece
-            int index = Long.numberOfTrailingZeros(bb);
-            long pieceMask = 1L << index;
-            // Isolate piece from bitboard
-            long queenPosition = bb & pieceMask;
-            long queenPositionReversed = BitMasks.reverse64bits(queenPosition);
-
-            // Get the masks
-            long rankMask = BitMasks.RANK[index];
-            long fileMask = BitMasks.FILE[index];
-            long diagMask = BitMasks.DIAG[index];
-            long antiDiagMask = BitMasks.ANTIDIAG[index];
-
-            // search Horizontally / in the Rank
-            long occupiedRank = ALL_PIECES & rankMask;
-            long occupiedRankReversed = BitMasks.reverse64bits(occupiedRank);
-            long horizontalMoves = ((occupiedRank - (2 * queenPosition)) ^ BitMasks.reverse64bits(occupiedRankReversed - 2 * queenPositionReversed)) & rankMask;
-            // search Vertically / in the File
-            long occupiedFile = ALL_PIECES & fileMask;
-            long occupiedFileReversed = BitMasks.reverse64bits(occupiedFile);
-            long verticalMoves = ((occupiedFile - (2 * queenPosition)) ^ BitMasks.reverse64bits(occupiedFileReversed - 2 * queenPositionReversed)) & fileMask;
-            // search Diagonally
-            long occupiedDiag = ALL_PIECES & diagMask;
-            long occupiedDiagReversed = BitMasks.reverse64bits(occupiedDiag);
-            long diagMoves = ((occupiedDiag - (2 * queenPosition)) ^ BitMasks.reverse64bits(occupiedDiagReversed - 2 * queenPositionReversed)) & diagMask;
-            // search AntiDiagonally
-            long occupiedAntiDiag = ALL_PIECES & antiDiagMask;
-            long occupiedAntiDiagReversed = BitMasks.reverse64bits(occupiedAntiDiag);
-            long antiDiagMoves = ((occupiedAntiDiag - (2 * queenPosition)) ^ BitMasks.reverse64bits(occupiedAntiDiagReversed - 2 * queenPositionReversed)) & antiDiagMask;
-
-            // Bitmask of all possible moves
-            long moves = horizontalMoves | verticalMoves | diagMoves | antiDiagMoves;
-            moves = moves & ~BLACK_PIECES;
-
-            possibleMoves.addAll(bitboardToBitMask(moves, queenPosition));
-            bb ^= pieceMask;
-        }
-        return possibleMoves;
-    }
-
-    public static List<SpecialMoves> generateMovesBCastle(Board currentPosition){
-        // Retrieve bitmap from Board;
-        long BP = currentPosition.BP;
-        long BN = currentPosition.BN;
-        long BB = currentPosition.BB;
-        long BR = currentPosition.BR;
-        long BQ = currentPosition.BQ;
-        long BK = currentPosition.BK;
-        long WP = currentPosition.WP;
-        long WN = currentPosition.WN;
-        long WB = currentPosition.WB;
-        long WR = currentPosition.WR;
-        long WQ = currentPosition.WQ;
-        long WK = currentPosition.WK;
-
-        final long BLACK_PIECES = BP | BN | BB | BR | BQ | BK; // Black's current pieces position
-        final long WHITE_PIECES = WP | WN | WB | WR | WQ | WK; // White's current pieces position
-        final long ALL_PIECES = BLACK_PIECES | WHITE_PIECES;
-
-        List<SpecialMoves> possibleMoves = new ArrayList<>();
+        final int piece = Piece.of(colour, Piece.KING);
+        final int kingStart = KING_START[colour];
 
         // Get mask of all unsafe squares
-        long unsafeSquares = blackKingSafety(currentPosition);
+        long unsafeSquares = kingSafety(currentPosition, colour);
 
         // Castling
         // King-Side
-        if((currentPosition.castleCheck & BitMasks.B_K_Castle) == 0 && (BitMasks.B_K_Castle_Block & ALL_PIECES) == 0 && (BitMasks.B_K_Castle_Inter & unsafeSquares) == 0){
-            SpecialMoves move = new SpecialMoves();
-            move.moveMask1 = BitMasks.BK_K_Castle_Move;
-            move.moveMask2 = BitMasks.BR_K_Castle_Move;
-            move.moveType = MoveType.CASTLE;
-            possibleMoves.add(move);
+        if(canCastleKingSide(currentPosition, colour, unsafeSquares)){
+            moveBuffer[count++] = Move.encode(kingStart, kingStart + 2, piece, Piece.EMPTY, Piece.EMPTY, Move.CASTLE);
         }
         // Queen-Side
-        if((currentPosition.castleCheck & BitMasks.B_Q_Castle) == 0 && (BitMasks.B_Q_Castle_Block & ALL_PIECES) == 0 && (BitMasks.B_Q_Castle_Inter & unsafeSquares) == 0){
-            SpecialMoves move = new SpecialMoves();
-            move.moveMask1 = BitMasks.BK_Q_Castle_Move;
-            move.moveMask2 = BitMasks.BR_Q_Castle_Move;
-            move.moveType = MoveType.CASTLE;
-            possibleMoves.add(move);
+        if(canCastleQueenSide(currentPosition, colour, unsafeSquares)){
+            moveBuffer[count++] = Move.encode(kingStart, kingStart - 2, piece, Piece.EMPTY, Piece.EMPTY, Move.CASTLE);
         }
-        return possibleMoves;
+        return count;
     }
 
-    public static List<SpecialMoves> generateMovesBEnPassant(Board currentPosition){
-        // Retrieve bitmap from Board;
-        long BP = currentPosition.BP;
-        long WP = currentPosition.WP;
+    /**
+     * @param unsafeSquares the squares attacked by the enemy, see {@link #kingSafety(Board, int)}
+     * @return true if neither king nor rook have moved, the squares between them are empty and the king does not pass an attacked square
+     */
+    private static boolean canCastleKingSide(Board currentPosition, int colour, long unsafeSquares){
+        return (currentPosition.castleCheck & KING_SIDE_CASTLE[colour]) == 0 && (KING_SIDE_CASTLE_BLOCK[colour] & currentPosition.allPieces) == 0 && (KING_SIDE_CASTLE_INTER[colour] & unsafeSquares) == 0;
+    }
 
+    private static boolean canCastleQueenSide(Board currentPosition, int colour, long unsafeSquares){
+        return (currentPosition.castleCheck & QUEEN_SIDE_CASTLE[colour]) == 0 && (QUEEN_SIDE_CASTLE_BLOCK[colour] & currentPosition.allPieces) == 0 && (QUEEN_SIDE_CASTLE_INTER[colour] & unsafeSquares) == 0;
+    }
+
+    /**
+     * Given a Chess Board, returns the enemy pawn that can be taken en passant, if the last move was a double push
+     *
+     * @param currentPosition a Chess Board
+     * @param colour the side to move
+     *
+     * @return a bitmask of the pawn that made the double push, 0 if the last move was not one
+     */
+    public static long enPassantPawn(Board currentPosition, int colour){
         long lastMove = currentPosition.lastMove;
 
-        List<SpecialMoves> possibleMoves = new ArrayList<>();
+        // The last move has to be a double push of an enemy pawn, its start square is two steps behind it
+        long movedPawn = currentPosition.pieces[Piece.of(colour ^ 1, Piece.PAWN)] & lastMove;
+        long movedFrom = colour == Piece.WHITE ? movedPawn >>> 16 : movedPawn << 16;
+        return movedPawn != 0 && lastMove == (movedPawn | movedFrom) ? movedPawn : 0L;
+    }
+
+    public static int generateEnPassantMoves(Board currentPosition, int colour, int[] moveBuffer, int count){
 
-        long enPassant = lastMove == ((WP & lastMove) | ((WP & lastMove) << 16)) ? (WP & lastMove) : 0L;
+        final int piece = Piece.of(colour, Piece.PAWN);
+        final int enemyPawn = Piece.of(colour ^ 1, Piece.PAWN);
+        long pawns = currentPosition.pieces[piece];
+        long enPassant = enPassantPawn(currentPosition, colour);
 
         if(enPassant == 0){
-            return possibleMoves;
+            return count;
         }
         else{
-            long captureLeft = BP << 7 & enPassant << 8 & ~(BitMasks.FILE_H);
-            long captureRight = BP << 9 & enPassant << 8 & ~(BitMasks.FILE_A);
-            if(captureLeft != 0){
-                SpecialMoves move = new SpecialMoves();
-                move.moveMask1 = captureLeft | (captureLeft >>> 7);
-                move.moveMask2 = WP & lastMove;
-                move.moveType = MoveType.ENPASSANT;
-                possibleMoves.add(move);
+            // The pawn is taken on the square it skipped
+            long target = pawnPush(enPassant, colour);
+            long captureWest = pawnAttacksWest(pawns, colour) & target;
+            long captureEast = pawnAttacksEast(pawns, colour) & target;
+            if(captureWest != 0){
+                int to = Long.numberOfTrailingZeros(captureWest);
+                moveBuffer[count++] = Move.encode(to + PAWN_WEST_OFFSET[colour], to, piece, enemyPawn, Piece.EMPTY, Move.EN_PASSANT);
             }
-            if(captureRight != 0) {
-                SpecialMoves move = new SpecialMoves();
-                move.moveMask1 = captureRight | (captureRight >>> 9);
-                move.moveMask2 = WP & lastMove;
-                move.moveType = MoveType.ENPASSANT;
-                possibleMoves.add(move);
+            if(captureEast != 0) {
+                int to = Long.numberOfTrailingZeros(captureEast);
+                moveBuffer[count++] = Move.encode(to + PAWN_EAST_OFFSET[colour], to, piece, enemyPawn, Piece.EMPTY, Move.EN_PASSANT);
             }
         }
 
-        return possibleMoves;
+        return count;
     }
 
-    public static List<SpecialMoves> generateMovesBPromotion(Board currentPosition){
+    public static int generatePromotionMoves(Board currentPosition, int colour, int[] moveBuffer, int count){
 
-        // Retrieve bitmap from Board;
-        long BP = currentPosition.BP;
-        long BN = currentPosition.BN;
-        long BB = currentPosition.BB;
-        long BR = currentPosition.BR;
-        long BQ = currentPosition.BQ;
-        long BK = currentPosition.BK;
-        long WP = currentPosition.WP;
-        long WN = currentPosition.WN;
-        long WB = currentPosition.WB;
-        long WR = currentPosition.WR;
-        long WQ = currentPosition.WQ;
-        long WK = currentPosition.WK;
-
-        final long BLACK_PIECES = BP | BN | BB | BR | BQ | BK; // Black's current pieces position
-        final long WHITE_PIECES = WP | WN | WB | WR | WQ | WK; // White's current pieces position
-        final long ALL_PIECES = BLACK_PIECES | WHITE_PIECES;
-
-        List<SpecialMoves> possibleMoves = new ArrayList<>();
+        final int piece = Piece.of(colour, Piece.PAWN);
+        final long pawns = currentPosition.pieces[piece];
+        final long ENEMY_PIECES = currentPosition.occupancy[colour ^ 1];
+        final long ALL_PIECES = currentPosition.allPieces;
+        final long PROMOTION_RANK = colour == Piece.WHITE ? BitMasks.RANK_8 : BitMasks.RANK_1;
 
         // moves
-        long moveDownOne = BP << 8 & ~(ALL_PIECES) & BitMasks.RANK_1; // check for 1 step up
+        long pushOne = pawnPush(pawns, colour) & ~ALL_PIECES & PROMOTION_RANK;
         // Attacks
-        long captureLeft = BP << 7 & WHITE_PIECES & ~(BitMasks.FILE_H) & BitMasks.RANK_1;
-        long captureRight = BP << 9 & WHITE_PIECES & ~(BitMasks.FILE_A) & BitMasks.RANK_1;
+        long captureWest = pawnAttacksWest(pawns, colour) & ENEMY_PIECES & PROMOTION_RANK;
+        long captureEast = pawnAttacksEast(pawns, colour) & ENEMY_PIECES & PROMOTION_RANK;
 
-        possibleMoves.addAll(bitboardToBitMaskWithOffsetPromotion(moveDownOne, -8));
-        possibleMoves.addAll(bitboardToBitMaskWithOffsetPromotion(captureLeft, -7));
-        possibleMoves.addAll(bitboardToBitMaskWithOffsetPromotion(captureRight, -9));
+        count = addPromotionsWithOffset(currentPosition, pushOne, PAWN_PUSH_OFFSET[colour], piece, moveBuffer, count);
+        count = addPromotionsWithOffset(currentPosition, captureWest, PAWN_WEST_OFFSET[colour], piece, moveBuffer, count);
+        count = addPromotionsWithOffset(currentPosition, captureEast, PAWN_EAST_OFFSET[colour], piece, moveBuffer, count);
 
-        return possibleMoves;
+        return count;
     }
 
-    public static Board moveWhite(Board currentPosition, long moveMask){
+    /**
+     * Given a Chess Board and a packed move of either colour, returns the board after the move is played
+     * copies the board, searches should use {@link Board#makeMove(int)} and {@link Board#unmakeMove()} instead
+     *
+     * @param currentPosition a Chess Board, left unchanged
+     * @param move a packed move, see {@link Move}
+     *
+     * @return a new Board with the move applied
+     */
+    public static Board makeMove(Board currentPosition, int move){
         Board newBoard = new Board(currentPosition);
-        if((newBoard.WP & moveMask) != 0){
-            newBoard.WP ^= moveMask;
-        }
-        else if((newBoard.WN & moveMask) != 0){
-            newBoard.WN ^= moveMask;
-        }
-        else if((newBoard.WB & moveMask) != 0){
-            newBoard.WB ^= moveMask;
-        }
-        else if((newBoard.WR & moveMask) != 0){
-            newBoard.WR ^= moveMask;
-        }
-        else if((newBoard.WQ & moveMask) != 0){
-            newBoard.WQ ^= moveMask;
-        }
-        else{
-            newBoard.WK ^= moveMask;
-        }
-        newBoard.BP &= ~moveMask;
-        newBoard.BN &= ~moveMask;
-        newBoard.BB &= ~moveMask;
-        newBoard.BR &= ~moveMask;
-        newBoard.BQ &= ~moveMask;
-        newBoard.BK &= ~moveMask;
-        newBoard.lastMove = moveMask;
-        newBoard.castleCheck |= moveMask;
+        newBoard.makeMove(move);
         return newBoard;
     }
 
+    public static Board moveWhite(Board currentPosition, long moveMask){
+        return move(currentPosition, Piece.WHITE, moveMask);
+    }
+
     public static Board moveBlack(Board currentPosition, long moveMask){
-        Board newBoard = new Board(currentPosition);
-        if((newBoard.BP & moveMask) != 0){
-            newBoard.BP ^= moveMask;
-        }
-        else if((newBoard.BN & moveMask) != 0){
-            newBoard.BN ^= moveMask;
-        }
-        else if((newBoard.BB & moveMask) != 0){
-            newBoard.BB ^= moveMask;
-        }
-        else if((newBoard.BR & moveMask) != 0){
-            newBoard.BR ^= moveMask;
-        }
-        else if((newBoard.BQ & moveMask) != 0){
-            newBoard.BQ ^= moveMask;
-        }
-        else{
-            newBoard.BK ^= moveMask;
-        }
-        newBoard.WP &= ~moveMask;
-        newBoard.WN &= ~moveMask;
-        newBoard.WB &= ~moveMask;
-        newBoard.WR &= ~moveMask;
-        newBoard.WQ &= ~moveMask;
-        newBoard.WK &= ~moveMask;
-        newBoard.lastMove = moveMask;
-        newBoard.castleCheck |= moveMask;
-        return newBoard;
+        return move(currentPosition, Piece.BLACK, moveMask);
     }
 
     public static Board specialMoveWhite(Board currentPosition, SpecialMoves moveMask){
+        return specialMove(currentPosition, Piece.WHITE, moveMask);
+    }
+
+    public static Board specialMoveBlack(Board currentPosition, SpecialMoves moveMask){
+        return specialMove(currentPosition, Piece.BLACK, moveMask);
+    }
+
+    private static Board move(Board currentPosition, int colour, long moveMask){
         Board newBoard = new Board(currentPosition);
-        switch(moveMask.moveType){
-            case ENPASSANT -> {
-                long move = moveMask.moveMask1;
-                long capture = moveMask.moveMask2;
-                newBoard.WP ^= move;
-                newBoard.BP &= ~capture;
-                newBoard.lastMove = move;
-                newBoard.castleCheck |= move;
-            }
-            case CASTLE -> {
-                long kingMove = moveMask.moveMask1;
-                long rookMove = moveMask.moveMask2;
-                newBoard.WK ^= kingMove;
-                newBoard.WR ^= rookMove;
-                newBoard.lastMove = kingMove;
-                newBoard.castleCheck |= kingMove;
-            }
-            case PROMOTION -> {
-                long move = moveMask.moveMask1;
-                PromotionType promotion = moveMask.promotionType;
-                long promotionMask = move & BitMasks.RANK_8;
-                newBoard.WP &= ~move;
-                newBoard.BN &= ~move;
-                newBoard.BB &= ~move;
-                newBoard.BR &= ~move;
-                newBoard.BQ &= ~move;
-                switch (promotion) {
-                    case KNIGHT -> newBoard.WN |= promotionMask;
-                    case BISHOP -> newBoard.WB |= promotionMask;
-                    case ROOK -> newBoard.WR |= promotionMask;
-                    case QUEEN -> newBoard.WQ |= promotionMask;
-                }
-                newBoard.lastMove = move;
-                newBoard.castleCheck |= move;
-            }
+        long[] pieces = newBoard.pieces;
+        // The moving piece stands on the square of the mask that holds an own piece, a captured piece on the other one
+        long captureMask = moveMask & currentPosition.occupancy[colour ^ 1];
+        pieces[currentPosition.mailbox[Long.numberOfTrailingZeros(moveMask & currentPosition.occupancy[colour])]] ^= moveMask;
+        if(captureMask != 0){
+            pieces[currentPosition.mailbox[Long.numberOfTrailingZeros(captureMask)]] ^= captureMask;
         }
+        newBoard.lastMove = moveMask;
+        newBoard.castleCheck |= moveMask;
+        newBoard.updateOccupancy();
+        // The masks do not say which piece moved, so the key is recomputed
+        newBoard.updateKey(colour ^ 1);
         return newBoard;
     }
 
-    public static Board specialMoveBlack(Board currentPosition, SpecialMoves moveMask){
+    private static Board specialMove(Board currentPosition, int colour, SpecialMoves moveMask){
         Board newBoard = new Board(currentPosition);
+        long[] pieces = newBoard.pieces;
+        int enemy = colour ^ 1;
         switch(moveMask.moveType){
             case ENPASSANT -> {
                 long move = moveMask.moveMask1;
                 long capture = moveMask.moveMask2;
-                newBoard.BP ^= move;
-                newBoard.WP &= ~capture;
+                pieces[Piece.of(colour, Piece.PAWN)] ^= move;
+                pieces[Piece.of(enemy, Piece.PAWN)] &= ~capture;
                 newBoard.lastMove = move;
                 newBoard.castleCheck |= move;
             }
             case CASTLE -> {
                 long kingMove = moveMask.moveMask1;
                 long rookMove = moveMask.moveMask2;
-                newBoard.BK ^= kingMove;
-                newBoard.BR ^= rookMove;
+                pieces[Piece.of(colour, Piece.KING)] ^= kingMove;
+                pieces[Piece.of(colour, Piece.ROOK)] ^= rookMove;
                 newBoard.lastMove = kingMove;
                 newBoard.castleCheck |= kingMove;
             }
             case PROMOTION -> {
                 long move = moveMask.moveMask1;
                 PromotionType promotion = moveMask.promotionType;
-                long promotionMask = move & BitMasks.RANK_1;
-                newBoard.BP &= ~move;
-                newBoard.WN &= ~move;
-                newBoard.WB &= ~move;
-                newBoard.WR &= ~move;
-                newBoard.WQ &= ~move;
+                long promotionMask = move & (colour == Piece.WHITE ? BitMasks.RANK_8 : BitMasks.RANK_1);
+                pieces[Piece.of(colour, Piece.PAWN)] &= ~move;
+                for(int type = Piece.KNIGHT; type <= Piece.QUEEN; type++){
+                    pieces[Piece.of(enemy, type)] &= ~move;
+                }
                 switch (promotion) {
-                    case KNIGHT -> newBoard.BN |= promotionMask;
-                    case BISHOP -> newBoard.BB |= promotionMask;
-                    case ROOK -> newBoard.BR |= promotionMask;
-                    case QUEEN -> newBoard.BQ |= promotionMask;
+                    case KNIGHT -> pieces[Piece.of(colour, Piece.KNIGHT)] |= promotionMask;
+                    case BISHOP -> pieces[Piece.of(colour, Piece.BISHOP)] |= promotionMask;
+                    case ROOK -> pieces[Piece.of(colour, Piece.ROOK)] |= promotionMask;
+                    case QUEEN -> pieces[Piece.of(colour, Piece.QUEEN)] |= promotionMask;
                 }
                 newBoard.lastMove = move;
                 newBoard.castleCheck |= move;
             }
         }
+        newBoard.updateOccupancy();
+        newBoard.updateKey(colour ^ 1);
         return newBoard;
     }
 }
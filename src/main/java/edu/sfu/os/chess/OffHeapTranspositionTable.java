@@ -0,0 +1,121 @@
+package edu.sfu.os.chess;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+/**
+ * Transposition table with its entries in direct memory, outside of the Java heap.
+ *
+ * The garbage collector never scans or copies the entries, so a table of many gigabytes does not make the heap larger or
+ * the pauses longer. The JVM limits direct memory to the maximum heap size unless -XX:MaxDirectMemorySize is given.
+ *
+ * The buffers start on a 64 byte boundary, so every bucket of four entries fills exactly one cache line.
+ *
+ * A direct buffer holds at most 2 GB, the table is split into buffers of 1 GB, a whole number of buckets each. The entries
+ * are read and written with plain 64 bit accesses like the long[] of {@link TranspositionTable}, so the lockless xor scheme
+ * works the same way.
+ */
+public class OffHeapTranspositionTable extends TranspositionTable {
+
+    // Longs per buffer, 1 GB
+    static final int CHUNK_SHIFT = 27;
+    static final long MAX_BUCKETS = Long.MAX_VALUE / (BUCKET_SIZE * Long.BYTES);
+    private static final int LARGE_PAGE = 2 * 1024 * 1024;
+    // A bucket is one cache line if the buffer starts on one
+    private static final int CACHE_LINE = 64;
+    // Zeros copied into the buffers by clear()
+    private static final long[] ZEROS = new long[1 << 16];
+
+    private final LongBuffer[] chunks;
+    private final int chunkShift;
+    private final long chunkMask;
+
+    /**
+     * @param megabytes memory budget, rounded down to a power of two number of buckets
+     * @param largePages align the buffers to 2 MB pages, so the kernel can back them with transparent huge pages
+     *                   if they are enabled for all memory
+     */
+    public OffHeapTranspositionTable(long megabytes, boolean largePages){
+        this(megabytes, largePages, CHUNK_SHIFT);
+    }
+
+    /**
+     * @param chunkShift log2 of the longs per buffer, at least log2 of the bucket size
+     */
+    OffHeapTranspositionTable(long megabytes, boolean largePages, int chunkShift){
+        this(bucketCount(megabytes, MAX_BUCKETS), chunkShift,
+                allocate(bucketCount(megabytes, MAX_BUCKETS) * BUCKET_SIZE, chunkShift, largePages));
+    }
+
+    /**
+     * @param buckets number of buckets, a power of two
+     * @param chunkShift log2 of the longs per buffer
+     * @param chunks the buffers that hold the entries, all but the last one hold 2^chunkShift longs
+     */
+    protected OffHeapTranspositionTable(long buckets, int chunkShift, LongBuffer[] chunks){
+        super(buckets, false);
+        this.chunkShift = chunkShift;
+        this.chunkMask = (1L << chunkShift) - 1;
+        this.chunks = chunks;
+    }
+
+    /**
+     * Allocates the direct buffers for a number of longs
+     */
+    private static LongBuffer[] allocate(long longs, int chunkShift, boolean largePages){
+        LongBuffer[] chunks = new LongBuffer[chunkCount(longs, chunkShift)];
+        for(int i = 0; i < chunks.length; i++){
+            int size = chunkSize(longs, chunkShift, i);
+            ByteBuffer buffer;
+            if(largePages){
+                // alignedSlice also rounds the end down to a whole page
+                int pages = (size * Long.BYTES + LARGE_PAGE - 1) / LARGE_PAGE;
+                buffer = ByteBuffer.allocateDirect((pages + 1) * LARGE_PAGE).alignedSlice(LARGE_PAGE);
+                buffer.limit(size * Long.BYTES);
+            }
+            else{
+                buffer = ByteBuffer.allocateDirect(size * Long.BYTES + CACHE_LINE).alignedSlice(CACHE_LINE);
+                buffer.limit(size * Long.BYTES);
+            }
+            chunks[i] = buffer.order(ByteOrder.nativeOrder()).asLongBuffer();
+        }
+        return chunks;
+    }
+
+    static int chunkCount(long longs, int chunkShift){
+        return (int)((longs + (1L << chunkShift) - 1) >>> chunkShift);
+    }
+
+    /**
+     * @return the number of longs in a buffer, the last one can be smaller
+     */
+    static int chunkSize(long longs, int chunkShift, int chunk){
+        return (int)Math.min(1L << chunkShift, longs - ((long)chunk << chunkShift));
+    }
+
+    @Override
+    protected long read(long index){
+        return chunks[(int)(index >>> chunkShift)].get((int)(index & chunkMask));
+    }
+
+    @Override
+    protected void write(long index, long value){
+        chunks[(int)(index >>> chunkShift)].put((int)(index & chunkMask), value);
+    }
+
+    @Override
+    protected void clearRange(long from, long to){
+        while(from < to){
+            LongBuffer chunk = chunks[(int)(from >>> chunkShift)];
+            int offset = (int)(from & chunkMask);
+            // Up to the end of the range, the buffer or the zeros
+            int length = (int)Math.min(Math.min(to - from, chunk.capacity() - offset), ZEROS.length);
+            // A duplicate has its own position, other threads clear other parts of the same buffer
+            LongBuffer target = chunk.duplicate();
+            target.position(offset);
+            target.put(ZEROS, 0, length);
+            from += length;
+        }
+    }
+}
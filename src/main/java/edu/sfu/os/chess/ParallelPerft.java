@@ -0,0 +1,399 @@
+package edu.sfu.os.chess;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Perft, the number of legal move sequences of every length from a position, counted on a {@link ForkJoinPool}.
+ *
+ * The root moves and their replies become separate tasks, below that every task walks its subtree alone on its own
+ * copy of the board with make/unmake. Each task counts into its own array, the arrays are added up when the tasks are joined,
+ * so the threads never write to shared counters.
+ *
+ * The hashed variants only count the leaf nodes, but look up every subtree of two or more plies in a {@link PerftCache}
+ * first. Transpositions are counted once, which makes deep counts a lot faster.
+ *
+ * The stats variants also count captures, checks, checkmates and the special moves at every ply into a {@link PerftStats}
+ * per task.
+ */
+public class ParallelPerft {
+
+    // Plies that are split into separate tasks, the root moves and the replies to them
+    public static final int SPLIT_PLIES = 2;
+
+    /**
+     * Given a Chess Board, counts the legal moves at every ply on a pool of the given size
+     *
+     * @param currentPosition a Chess Board, left unchanged
+     * @param colour the side to move
+     * @param depth number of plies to count
+     * @param threads number of worker threads
+     *
+     * @return the number of legal moves at every ply, index 0 holds the root moves
+     */
+    public static long[] perft(Board currentPosition, int colour, int depth, int threads){
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try{
+            return pool.invoke(new PerftTask(new Board(currentPosition), colour, 0, depth));
+        }
+        finally{
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Given a Chess Board, counts the legal moves at every ply on the calling thread
+     *
+     * @param currentPosition a Chess Board, left unchanged
+     * @param colour the side to move
+     * @param depth number of plies to count
+     *
+     * @return the number of legal moves at every ply, index 0 holds the root moves
+     */
+    public static long[] perft(Board currentPosition, int colour, int depth){
+        long[] totals = new long[depth];
+        if(depth > 0){
+            count(new Board(currentPosition), colour, 0, depth, new int[depth][Moves.MAX_MOVES], totals);
+        }
+        return totals;
+    }
+
+    /**
+     * Walks the subtree below a position with make/unmake and adds the legal moves of every ply to the totals
+     *
+     * @param board the board to walk, it is back in its starting state when the walk returns
+     * @param colour the side to move
+     * @param ply the ply of the position, from the root of the whole count
+     * @param depth number of plies to count from the root
+     * @param moveBuffers one move buffer per ply
+     * @param totals the move counts per ply
+     */
+    private static void count(Board board, int colour, int ply, int depth, int[][] moveBuffers, long[] totals){
+        // The moves of the last ply are only counted, not generated
+        if(ply + 1 == depth){
+            totals[ply] += Moves.countLegalMoves(board, colour);
+            return;
+        }
+        int[] moves = moveBuffers[ply];
+        int count = Moves.generateLegalMoves(board, colour, moves);
+        totals[ply] += count;
+        for(int i = 0; i < count; i++){
+            board.makeMove(moves[i]);
+            count(board, colour ^ 1, ply + 1, depth, moveBuffers, totals);
+            board.unmakeMove();
+        }
+    }
+
+    /**
+     * Given a Chess Board, counts the leaf nodes at a depth on the calling thread, with counts of subtrees that were
+     * already seen taken from a cache
+     *
+     * @param currentPosition a Chess Board, left unchanged
+     * @param colour the side to move
+     * @param depth number of plies to count
+     * @param cache the cache, it can be reused for other positions and depths
+     *
+     * @return the number of legal move sequences of the given length
+     */
+    public static long perftHashed(Board currentPosition, int colour, int depth, PerftCache cache){
+        if(depth == 0){
+            return 1;
+        }
+        return countHashed(rootBoard(currentPosition, colour), colour, depth, 0, new int[depth][Moves.MAX_MOVES], cache);
+    }
+
+    /**
+     * Given a Chess Board, counts the leaf nodes at a depth on a pool of the given size, the threads share the cache
+     *
+     * @param currentPosition a Chess Board, left unchanged
+     * @param colour the side to move
+     * @param depth number of plies to count
+     * @param threads number of worker threads
+     * @param cache the cache, it can be reused for other positions and depths
+     *
+     * @return the number of legal move sequences of the given length
+     */
+    public static long perftHashed(Board currentPosition, int colour, int depth, int threads, PerftCache cache){
+        if(depth == 0){
+            return 1;
+        }
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try{
+            return pool.invoke(new HashedPerftTask(rootBoard(currentPosition, colour), colour, depth, 0, cache));
+        }
+        finally{
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Copies the root position with its key computed for the given side to move, the moves keep the key up to date
+     */
+    private static Board rootBoard(Board currentPosition, int colour){
+        Board board = new Board(currentPosition);
+        board.updateKey(colour);
+        return board;
+    }
+
+    /**
+     * Counts the leaf nodes below a position, the counts of subtrees two or more plies deep go through the cache
+     *
+     * @param board the board to walk, it is back in its starting state when the walk returns
+     * @param colour the side to move
+     * @param depth the remaining depth, at least 1
+     * @param ply index of the move buffer to use
+     * @param moveBuffers one move buffer per ply
+     * @param cache the cache
+     *
+     * @return the number of leaf nodes
+     */
+    private static long countHashed(Board board, int colour, int depth, int ply, int[][] moveBuffers, PerftCache cache){
+        if(depth == 1){
+            return Moves.countLegalMoves(board, colour);
+        }
+        int[] moves = moveBuffers[ply];
+        long key = board.key;
+        long nodes = cache.probe(key, depth);
+        if(nodes >= 0){
+            return nodes;
+        }
+        nodes = 0;
+        int count = Moves.generateLegalMoves(board, colour, moves);
+        for(int i = 0; i < count; i++){
+            board.makeMove(moves[i]);
+            nodes += countHashed(board, colour ^ 1, depth - 1, ply + 1, moveBuffers, cache);
+            board.unmakeMove();
+        }
+        cache.store(key, depth, nodes);
+        return nodes;
+    }
+
+    /**
+     * Given a Chess Board, collects the statistics of every ply on the calling thread
+     *
+     * @param currentPosition a Chess Board, left unchanged
+     * @param colour the side to move
+     * @param depth number of plies to count
+     * @param legal true to generate legal moves, false to play pseudo-legal moves and skip the ones that leave the king in check
+     *
+     * @return the statistics of every ply
+     */
+    public static PerftStats perftStats(Board currentPosition, int colour, int depth, boolean legal){
+        PerftStats stats = new PerftStats(depth);
+        if(depth > 0){
+            collect(new Board(currentPosition), colour, 0, depth, legal, new int[depth][Moves.MAX_MOVES], stats);
+        }
+        return stats;
+    }
+
+    /**
+     * Given a Chess Board, collects the statistics of every ply on a pool of the given size
+     *
+     * @param currentPosition a Chess Board, left unchanged
+     * @param colour the side to move
+     * @param depth number of plies to count
+     * @param threads number of worker threads
+     * @param legal true to generate legal moves, false to play pseudo-legal moves and skip the ones that leave the king in check
+     *
+     * @return the statistics of every ply
+     */
+    public static PerftStats perftStats(Board currentPosition, int colour, int depth, int threads, boolean legal){
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try{
+            return pool.invoke(new StatsTask(new Board(currentPosition), colour, 0, depth, legal));
+        }
+        finally{
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Generates the moves of a position, with pseudo-legal generation the king safety is checked when the move is played
+     *
+     * @return the number of moves
+     */
+    private static int generateMoves(Board board, int colour, boolean legal, int[] moves){
+        return legal ? Moves.generateLegalMoves(board, colour, moves) : Moves.generateAllMoves(board, colour, moves);
+    }
+
+    /**
+     * Counts a move that was just played into the statistics
+     *
+     * @param board the board after the move
+     * @param colour the side that played the move
+     *
+     * @return false if the move left the own king in check and was not counted
+     */
+    private static boolean record(Board board, int colour, int ply, int move, boolean legal, PerftStats stats){
+        if(!legal && (Moves.kingSafety(board, colour) & board.pieces[Piece.of(colour, Piece.KING)]) != 0){
+            return false;
+        }
+        boolean check = Moves.checkers(board, colour ^ 1) != 0;
+        stats.record(ply, move, check, check && Moves.countLegalMoves(board, colour ^ 1) == 0);
+        return true;
+    }
+
+    /**
+     * Walks the subtree below a position with make/unmake and collects the statistics of every ply
+     *
+     * @param board the board to walk, it is back in its starting state when the walk returns
+     * @param colour the side to move
+     * @param ply the ply of the position, from the root of the whole count
+     * @param depth number of plies to count from the root
+     * @param legal whether to generate legal moves
+     * @param moveBuffers one move buffer per ply
+     * @param stats the statistics
+     */
+    private static void collect(Board board, int colour, int ply, int depth, boolean legal, int[][] moveBuffers, PerftStats stats){
+        int[] moves = moveBuffers[ply];
+        int count = generateMoves(board, colour, legal, moves);
+        for(int i = 0; i < count; i++){
+            board.makeMove(moves[i]);
+            if(record(board, colour, ply, moves[i], legal, stats) && ply + 1 < depth){
+                collect(board, colour ^ 1, ply + 1, depth, legal, moveBuffers, stats);
+            }
+            board.unmakeMove();
+        }
+    }
+
+    private static final class PerftTask extends RecursiveTask<long[]> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Board board;
+        private final int colour;
+        private final int ply;
+        private final int depth;
+
+        PerftTask(Board board, int colour, int ply, int depth){
+            this.board = board;
+            this.colour = colour;
+            this.ply = ply;
+            this.depth = depth;
+        }
+
+        @Override
+        protected long[] compute(){
+            long[] totals = new long[depth];
+            if(depth == 0){
+                return totals;
+            }
+            // Small subtrees are not worth a task per move
+            if(ply >= SPLIT_PLIES || ply + 2 >= depth){
+                count(board, colour, ply, depth, new int[depth][Moves.MAX_MOVES], totals);
+                return totals;
+            }
+
+            int[] moves = new int[Moves.MAX_MOVES];
+            int count = Moves.generateLegalMoves(board, colour, moves);
+            totals[ply] += count;
+
+            PerftTask[] tasks = new PerftTask[count];
+            for(int i = 0; i < count; i++){
+                tasks[i] = new PerftTask(Moves.makeMove(board, moves[i]), colour ^ 1, ply + 1, depth);
+                tasks[i].fork();
+            }
+            for(int i = count - 1; i >= 0; i--){
+                long[] subtotals = tasks[i].join();
+                for(int d = ply + 1; d < depth; d++){
+                    totals[d] += subtotals[d];
+                }
+            }
+            return totals;
+        }
+    }
+
+    private static final class HashedPerftTask extends RecursiveTask<Long> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Board board;
+        private final int colour;
+        private final int depth;
+        private final int ply;
+        private final PerftCache cache;
+
+        HashedPerftTask(Board board, int colour, int depth, int ply, PerftCache cache){
+            this.board = board;
+            this.colour = colour;
+            this.depth = depth;
+            this.ply = ply;
+            this.cache = cache;
+        }
+
+        @Override
+        protected Long compute(){
+            if(ply >= SPLIT_PLIES || depth <= 2){
+                return countHashed(board, colour, depth, 0, new int[depth][Moves.MAX_MOVES], cache);
+            }
+            long key = board.key;
+            long nodes = cache.probe(key, depth);
+            if(nodes >= 0){
+                return nodes;
+            }
+
+            int[] moves = new int[Moves.MAX_MOVES];
+            int count = Moves.generateLegalMoves(board, colour, moves);
+            HashedPerftTask[] tasks = new HashedPerftTask[count];
+            for(int i = 0; i < count; i++){
+                tasks[i] = new HashedPerftTask(Moves.makeMove(board, moves[i]), colour ^ 1, depth - 1, ply + 1, cache);
+                tasks[i].fork();
+            }
+            nodes = 0;
+            for(int i = count - 1; i >= 0; i--){
+                nodes += tasks[i].join();
+            }
+            cache.store(key, depth, nodes);
+            return nodes;
+        }
+    }
+
+    private static final class StatsTask extends RecursiveTask<PerftStats> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Board board;
+        private final int colour;
+        private final int ply;
+        private final int depth;
+        private final boolean legal;
+
+        StatsTask(Board board, int colour, int ply, int depth, boolean legal){
+            this.board = board;
+            this.colour = colour;
+            this.ply = ply;
+            this.depth = depth;
+            this.legal = legal;
+        }
+
+        @Override
+        protected PerftStats compute(){
+            PerftStats stats = new PerftStats(depth);
+            if(depth == 0){
+                return stats;
+            }
+            if(ply >= SPLIT_PLIES || ply + 2 >= depth){
+                collect(board, colour, ply, depth, legal, new int[depth][Moves.MAX_MOVES], stats);
+                return stats;
+            }
+
+            int[] moves = new int[Moves.MAX_MOVES];
+            int count = generateMoves(board, colour, legal, moves);
+            StatsTask[] tasks = new StatsTask[count];
+            for(int i = 0; i < count; i++){
+                board.makeMove(moves[i]);
+                if(record(board, colour, ply, moves[i], legal, stats)){
+                    tasks[i] = new StatsTask(new Board(board), colour ^ 1, ply + 1, depth, legal);
+                    tasks[i].fork();
+                }
+                board.unmakeMove();
+            }
+            for(int i = count - 1; i >= 0; i--){
+                if(tasks[i] != null){
+                    stats.add(tasks[i].join());
+                }
+            }
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package edu.sfu.os.chess;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Lazy SMP, a {@link Search} on every thread, all of them on the same root and the same {@link TranspositionTable}.
+ *
+ * The main search runs on the calling thread with the limits, the helpers run on their own threads without limits and
+ * skip some depths of the iterative deepening, each helper a different pattern of them. The threads share nothing but
+ * the table and the stop flag: what one thread stores, the others find as hash moves and cutoffs, so they go through the
+ * tree in different orders and a helper that is a depth ahead fills the table for the main search.
+ *
+ * When the main search is done it raises the stop flag and joins the helpers, a helper stops within a node once it sees
+ * the flag. The deepest finished iteration of all the threads is the result, the main search wins a tie.
+ */
+public final class ParallelSearch {
+
+    private final TranspositionTable table;
+    private final Search[] searches;
+    private final AtomicBoolean stopRequested = new AtomicBoolean();
+    // Milliseconds until some thread had finished an iteration of a depth or deeper, indexed by depth
+    private long[] timeToDepth = new long[0];
+
+    /**
+     * @param table the transposition table shared by the threads
+     * @param threads number of threads, the calling one included
+     */
+    public ParallelSearch(TranspositionTable table, int threads){
+        if(threads < 1){
+            throw new IllegalArgumentException("threads must be at least 1");
+        }
+        this.table = table;
+        searches = new Search[threads];
+        for(int i = 0; i < threads; i++){
+            searches[i] = new Search(table, i, stopRequested);
+        }
+    }
+
+    /**
+     * @param output where the main search prints a line after every iteration, null for none
+     */
+    public void setOutput(PrintStream output){
+        searches[0].setOutput(output);
+    }
+
+    /**
+     * Makes a running search return as soon as possible, it can be called from any thread
+     */
+    public void stop(){
+        stopRequested.set(true);
+    }
+
+    public int threads(){
+        return searches.length;
+    }
+
+    /**
+     * Given a Chess Board, searches for the best move on all the threads until one of the limits is reached
+     *
+     * @param currentPosition a Chess Board, left unchanged
+     * @param colour the side to move
+     * @param limits when to stop, they apply to the main search
+     *
+     * @return the result of the deepest finished iteration, with the nodes of all the threads
+     */
+    public SearchResult search(Board currentPosition, int colour, SearchLimits limits){
+        long startTime = System.nanoTime();
+        stopRequested.set(false);
+        table.newSearch();
+
+        SearchResult[] results = new SearchResult[searches.length];
+        Thread[] helpers = new Thread[searches.length - 1];
+        for(int i = 1; i < searches.length; i++){
+            int index = i;
+            SearchLimits unlimited = new SearchLimits(0, 0, 0);
+            helpers[i - 1] = new Thread(() -> results[index] = searches[index].run(currentPosition, colour, unlimited, startTime),
+                    "search-helper-" + i);
+            helpers[i - 1].start();
+        }
+
+        try{
+            results[0] = searches[0].run(currentPosition, colour, limits, startTime);
+        }
+        finally{
+            stopRequested.set(true);
+            joinAll(helpers);
+        }
+
+        SearchResult best = results[0];
+        long nodes = 0;
+        long quiescenceNodes = 0;
+        long cutoffs = 0;
+        long firstMoveCutoffs = 0;
+        for(SearchResult result : results){
+            // A helper that died leaves no result, the join rethrows nothing
+            if(result == null){
+                continue;
+            }
+            nodes += result.nodes;
+            quiescenceNodes += result.quiescenceNodes;
+            cutoffs += result.cutoffs;
+            firstMoveCutoffs += result.firstMoveCutoffs;
+            if(result.depth > best.depth && result.bestMove != Move.NONE){
+                best = result;
+            }
+        }
+        timeToDepth = timeToDepth(results, best.depth);
+        return new SearchResult(best.bestMove, best.score, best.pv, best.depth, nodes, quiescenceNodes, cutoffs, firstMoveCutoffs, (System.nanoTime() - startTime) / 1000000);
+    }
+
+    /**
+     * @return milliseconds from the start of the last search until some thread had finished an iteration of every depth or
+     * deeper, index 0 is unused
+     */
+    public long[] timeToDepth(){
+        return timeToDepth.clone();
+    }
+
+    private long[] timeToDepth(SearchResult[] results, int maxDepth){
+        long[] times = new long[maxDepth + 1];
+        Arrays.fill(times, Long.MAX_VALUE);
+        for(int i = 0; i < results.length; i++){
+            if(results[i] == null){
+                continue;
+            }
+            long[] depthMillis = searches[i].depthMillis();
+            for(int depth = 1; depth <= Math.min(results[i].depth, maxDepth); depth++){
+                // -1 at the depths a helper skipped
+                if(depthMillis[depth] >= 0){
+                    times[depth] = Math.min(times[depth], depthMillis[depth]);
+                }
+            }
+        }
+        times[0] = 0;
+        // Finishing a depth also reaches every depth below it
+        for(int depth = maxDepth - 1; depth >= 1; depth--){
+            times[depth] = Math.min(times[depth], times[depth + 1]);
+        }
+        return times;
+    }
+
+    private static void joinAll(Thread[] threads){
+        boolean interrupted = false;
+        for(Thread thread : threads){
+            while(true){
+                try{
+                    thread.join();
+                    break;
+                }
+                catch(InterruptedException e){
+                    interrupted = true;
+                }
+            }
+        }
+        if(interrupted){
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package edu.sfu.os.chess;
+
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/** Perft counts all legal move sequences of a given length from a position, the counts are compared with known values
+ * to find bugs in move generation and timed to measure its speed.
+ *
+ * java -cp target/classes edu.sfu.os.chess.Perft [options]
+ *
+ *   --fen "FEN"          position to count, the start position if no position is given
+ *   --epd FILE           count every position of an EPD file, expected counts are read from ";D1 20 ;D2 400" operations
+ *   --depth N            deepest ply to count, by default the deepest expected count or 5
+ *   --expect N,N,...     expected counts for --fen, one per depth starting at 1
+ *   --divide             print the count below every root move for the deepest ply
+ *   --threads N          worker threads, all cores by default
+ *   --hash MB            look up subtrees in a cache of the given size
+ *   --details            count captures, checks, checkmates, castles, en passant and promotions per ply
+ *   --pseudo-legal       with --details, play pseudo-legal moves and reject the ones that leave the king in check
+ *
+ * Every ply is counted in one walk of the tree to the deepest one, so the time and speed are printed for that walk only,
+ * on the line of the deepest ply. With --hash the cache counts the deepest ply and one more walk without it counts the
+ * plies above.
+ *
+ * The exit code is 0 if every count matches, 1 on a mismatch and 2 if the arguments or a file cannot be read.
+ */
+public class Perft {
+
+    public static final String START_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    public static final int DEFAULT_DEPTH = 5;
+
+    public static final int EXIT_OK = 0;
+    public static final int EXIT_MISMATCH = 1;
+    public static final int EXIT_USAGE = 2;
+
+    private static final String USAGE = "usage: Perft [--fen FEN | --epd FILE] [--depth N] [--expect N,N,...] [--divide] [--threads N] [--hash MB] [--details [--pseudo-legal]]";
+
+    public static void main( String[] args ){
+        System.exit(run(args, System.out));
+    }
+
+    /**
+     * Runs perft with command line arguments, see the class comment
+     *
+     * @param args the arguments
+     * @param out where the counts are printed
+     *
+     * @return the exit code
+     */
+    public static int run(String[] args, PrintStream out){
+        BitMasks.initBitMasks();
+
+        String fen = null;
+        String epd = null;
+        int depth = 0;
+        long[] expected = new long[0];
+        boolean divide = false;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int hashMegabytes = 0;
+        boolean details = false;
+        boolean pseudoLegal = false;
+
+        try{
+            for(int i = 0; i < args.length; i++){
+                switch(args[i]){
+                    case "--fen" -> fen = args[++i];
+                    case "--epd" -> epd = args[++i];
+                    case "--depth" -> depth = Integer.parseInt(args[++i]);
+                    case "--expect" -> expected = Arrays.stream(args[++i].split(",")).mapToLong(Long::parseLong).toArray();
+                    case "--divide" -> divide = true;
+                    case "--threads" -> threads = Integer.parseInt(args[++i]);
+                    case "--hash" -> hashMegabytes = Integer.parseInt(args[++i]);
+                    case "--details" -> details = true;
+                    case "--pseudo-legal" -> pseudoLegal = true;
+                    default -> throw new IllegalArgumentException("unknown option " + args[i]);
+                }
+            }
+            if(threads < 1 || depth < 0 || hashMegabytes < 0 || (fen != null && epd != null)){
+                throw new IllegalArgumentException("invalid option value");
+            }
+        }
+        catch(IllegalArgumentException | ArrayIndexOutOfBoundsException e){
+            out.println(e.getMessage() == null ? "missing option value" : e.getMessage());
+            out.println(USAGE);
+            return EXIT_USAGE;
+        }
+
+        List<String> positions = new ArrayList<>();
+        List<long[]> expectedCounts = new ArrayList<>();
+        if(epd != null){
+            try{
+                for(String line : Files.readAllLines(Path.of(epd))){
+                    line = line.trim();
+                    if(line.isEmpty() || line.startsWith("#")){
+                        continue;
+                    }
+                    String[] fields = line.split(";");
+                    positions.add(fields[0].trim());
+                    expectedCounts.add(parseExpected(fields));
+                }
+            }
+            catch(IOException | RuntimeException e){
+                out.println("cannot read " + epd + ": " + e.getMessage());
+                return EXIT_USAGE;
+            }
+        }
+        else{
+            positions.add(fen == null ? START_POSITION : fen);
+            expectedCounts.add(expected);
+        }
+
+        boolean match = true;
+        long totalNodes = 0;
+        long startTime = System.nanoTime();
+        for(int i = 0; i < positions.size(); i++){
+            long[] counts = expectedCounts.get(i);
+            // Without --depth every expected count is checked
+            int positionDepth = depth > 0 ? depth : (counts.length > 0 ? counts.length : DEFAULT_DEPTH);
+            FENParser parser;
+            try{
+                parser = new FENParser(positions.get(i));
+            }
+            catch(RuntimeException e){
+                out.println("cannot parse position " + positions.get(i));
+                return EXIT_USAGE;
+            }
+            out.println("position " + positions.get(i));
+            Board board = parser.getBitboards();
+            int colour = parser.getSideToMove();
+            PerftCache cache = hashMegabytes > 0 ? new PerftCache(hashMegabytes) : null;
+
+            // -1 for the depths that are not counted
+            long[] found = new long[positionDepth];
+            Arrays.fill(found, -1);
+            if(details){
+                found = details(out, board, colour, positionDepth, threads, !pseudoLegal);
+            }
+            else if(divide){
+                found[positionDepth - 1] = divide(out, board, colour, positionDepth, threads, cache);
+            }
+            else{
+                long countStart = System.nanoTime();
+                found = counts(board, colour, positionDepth, threads, cache);
+                long elapsedMillis = Math.max(1, (System.nanoTime() - countStart) / 1000000);
+                for(int d = 1; d < positionDepth; d++){
+                    out.printf("depth %2d %,16d nodes%n", d, found[d - 1]);
+                }
+                long nodes = found[positionDepth - 1];
+                out.printf("depth %2d %,16d nodes %,10d ms %,14d nps%n", positionDepth, nodes, elapsedMillis, nodes * 1000 / elapsedMillis);
+            }
+            for(int d = 0; d < Math.min(found.length, counts.length); d++){
+                if(counts[d] >= 0 && found[d] >= 0 && found[d] != counts[d]){
+                    out.println("MISMATCH at depth " + (d + 1) + ": expected " + counts[d] + ", found " + found[d]);
+                    match = false;
+                }
+            }
+            totalNodes += found[found.length - 1];
+        }
+        long elapsedMillis = Math.max(1, (System.nanoTime() - startTime) / 1000000);
+        out.printf("%d positions, %,d nodes at the deepest ply, %,d ms, %,d nps%n", positions.size(), totalNodes, elapsedMillis, totalNodes * 1000 / elapsedMillis);
+        out.println(match ? "all counts match" : "counts do not match");
+        return match ? EXIT_OK : EXIT_MISMATCH;
+    }
+
+    /**
+     * Reads the expected counts from the operations of an EPD line, eg. "D1 20" and "D2 400"
+     *
+     * @param fields the line split at ';', the first field holds the position
+     *
+     * @return the counts indexed by depth - 1, -1 where a depth has no count
+     */
+    private static long[] parseExpected(String[] fields){
+        long[] counts = new long[0];
+        for(int i = 1; i < fields.length; i++){
+            String[] operation = fields[i].trim().split("\\s+");
+            if(operation.length != 2 || !operation[0].startsWith("D")){
+                continue;
+            }
+            int depth = Integer.parseInt(operation[0].substring(1));
+            if(depth > counts.length){
+                int oldLength = counts.length;
+                counts = Arrays.copyOf(counts, depth);
+                Arrays.fill(counts, oldLength, depth, -1L);
+            }
+            counts[depth - 1] = Long.parseLong(operation[1]);
+        }
+        return counts;
+    }
+
+    /**
+     * Counts the moves at every ply up to a depth in one walk of the tree
+     * the cache only counts the deepest ply, the plies above it are counted once without it
+     *
+     * @return the number of legal moves at every ply, index 0 holds the root moves
+     */
+    private static long[] counts(Board board, int colour, int depth, int threads, PerftCache cache){
+        if(cache == null){
+            return threads > 1 ? ParallelPerft.perft(board, colour, depth, threads) : ParallelPerft.perft(board, colour, depth);
+        }
+        long[] totals = new long[depth];
+        if(depth > 1){
+            long[] shallower = threads > 1 ? ParallelPerft.perft(board, colour, depth - 1, threads) : ParallelPerft.perft(board, colour, depth - 1);
+            System.arraycopy(shallower, 0, totals, 0, depth - 1);
+        }
+        totals[depth - 1] = count(board, colour, depth, threads, cache);
+        return totals;
+    }
+
+    /**
+     * Counts the leaf nodes at a depth with the counter that fits the options
+     */
+    private static long count(Board board, int colour, int depth, int threads, PerftCache cache){
+        if(depth == 0){
+            return 1;
+        }
+        if(cache != null){
+            return threads > 1 ? ParallelPerft.perftHashed(board, colour, depth, threads, cache) : ParallelPerft.perftHashed(board, colour, depth, cache);
+        }
+        long[] totals = threads > 1 ? ParallelPerft.perft(board, colour, depth, threads) : ParallelPerft.perft(board, colour, depth);
+        return totals[depth - 1];
+    }
+
+    /**
+     * Prints the number of leaf nodes below every legal root move
+     *
+     * @return the number of leaf nodes at the depth
+     */
+    private static long divide(PrintStream out, Board board, int colour, int depth, int threads, PerftCache cache){
+        int[] moves = new int[Moves.MAX_MOVES];
+        int count = Moves.generateLegalMoves(board, colour, moves);
+        String[] names = new String[count];
+        long[] nodes = new long[count];
+        long total = 0;
+        long startTime = System.nanoTime();
+        for(int i = 0; i < count; i++){
+            names[i] = Move.toString(moves[i]);
+            nodes[i] = count(Moves.makeMove(board, moves[i]), colour ^ 1, depth - 1, threads, cache);
+            total += nodes[i];
+        }
+        long elapsedMillis = Math.max(1, (System.nanoTime() - startTime) / 1000000);
+        // Sorted by move, so the output can be compared line by line with other engines
+        Integer[] order = new Integer[count];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, (a, b) -> names[a].compareTo(names[b]));
+        for(int i : order){
+            out.println(names[i] + ": " + nodes[i]);
+        }
+        out.printf("depth %2d %,16d nodes %,10d ms %,14d nps, %d moves%n", depth, total, elapsedMillis, total * 1000 / elapsedMillis, count);
+        return total;
+    }
+
+    /**
+     * Prints the captures, checks, checkmates and special moves at every ply
+     *
+     * @return the number of moves at every ply
+     */
+    private static long[] details(PrintStream out, Board board, int colour, int depth, int threads, boolean legal){
+        long startTime = System.nanoTime();
+        PerftStats stats = threads > 1 ? ParallelPerft.perftStats(board, colour, depth, threads, legal) : ParallelPerft.perftStats(board, colour, depth, legal);
+        long elapsedMillis = Math.max(1, (System.nanoTime() - startTime) / 1000000);
+        for(int kind = 0; kind < PerftStats.KINDS; kind++){
+            out.printf("%-11s%s%n", PerftStats.NAMES[kind], Arrays.toString(stats.get(kind)));
+        }
+        long nodes = Arrays.stream(stats.get(PerftStats.NODES)).sum();
+        out.println("time " + elapsedMillis + " ms, " + (nodes * 1000 / elapsedMillis) + " nodes per second");
+        return stats.get(PerftStats.NODES);
+    }
+
+}
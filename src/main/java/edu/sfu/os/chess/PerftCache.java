@@ -0,0 +1,78 @@
+package edu.sfu.os.chess;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size cache of perft subtree counts, keyed by the Zobrist key of a position and the remaining depth.
+ *
+ * Every entry is two longs, the key xored with the data and the data itself, the data holds the count and the depth.
+ * A reader only accepts an entry if key xor data gives back its own key, so an entry that was half written by another thread
+ * is seen as a miss instead of a wrong count. No locks are needed and the threads of {@link ParallelPerft} share one cache.
+ *
+ * Entries are kept in buckets of two, the first slot keeps the deepest subtree and the second one is always replaced.
+ */
+public class PerftCache {
+
+    // Longs per entry and per bucket
+    private static final int ENTRY_SIZE = 2;
+    private static final int BUCKET_SIZE = 2 * ENTRY_SIZE;
+    // Bits of the data that hold the depth, the count is stored above them
+    private static final int DEPTH_BITS = 8;
+    private static final long DEPTH_MASK = (1L << DEPTH_BITS) - 1;
+
+    private final long[] table;
+    private final long bucketMask;
+
+    /**
+     * @param megabytes memory budget, rounded down to a power of two number of buckets
+     */
+    public PerftCache(int megabytes){
+        long buckets = Long.highestOneBit(Math.max(1L, (long)megabytes * 1024 * 1024 / (BUCKET_SIZE * Long.BYTES)));
+        // A Java array holds less than 2^31 longs
+        buckets = Math.min(buckets, 1L << 28);
+        table = new long[(int)(buckets * BUCKET_SIZE)];
+        bucketMask = buckets - 1;
+    }
+
+    /**
+     * Looks up the number of leaf nodes below a position
+     *
+     * @param key the Zobrist key of the position, side to move included
+     * @param depth the remaining depth
+     *
+     * @return the cached count, or -1 if it is not in the cache
+     */
+    public long probe(long key, int depth){
+        int bucket = (int)(key & bucketMask) * BUCKET_SIZE;
+        for(int entry = bucket; entry < bucket + BUCKET_SIZE; entry += ENTRY_SIZE){
+            long data = table[entry + 1];
+            if((table[entry] ^ data) == key && (data & DEPTH_MASK) == depth){
+                return data >>> DEPTH_BITS;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Stores the number of leaf nodes below a position
+     *
+     * @param key the Zobrist key of the position, side to move included
+     * @param depth the remaining depth
+     * @param count the number of leaf nodes
+     */
+    public void store(long key, int depth, long count){
+        int bucket = (int)(key & bucketMask) * BUCKET_SIZE;
+        long data = count << DEPTH_BITS | depth;
+        // The first slot is only replaced by a subtree at least as deep
+        int entry = (table[bucket + 1] & DEPTH_MASK) <= depth ? bucket : bucket + ENTRY_SIZE;
+        table[entry] = key ^ data;
+        table[entry + 1] = data;
+    }
+
+    /**
+     * Empties the cache
+     */
+    public void clear(){
+        Arrays.fill(table, 0L);
+    }
+}
@@ -0,0 +1,401 @@
+package edu.sfu.os.chess;
+
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/** Counts a deep perft with several worker processes on one host, a run that is stopped can be continued later.
+ *
+ * java -cp target/classes edu.sfu.os.chess.PerftCoordinator --dir DIR --depth N [options]
+ *
+ *   --dir DIR            directory of the job, created if it does not exist
+ *   --fen "FEN"          position to count, the start position if no position is given
+ *   --depth N            number of plies to count
+ *   --split N            plies played by the coordinator, the positions below them are the work items, 2 by default
+ *   --shards N           number of shard files the work items are dealt into, 64 by default
+ *   --workers N          worker processes that run at the same time, all cores by default
+ *   --threads N          threads of every worker, 1 by default
+ *   --hash MB            subtree cache of every worker
+ *   --expect N           expected number of leaf nodes
+ *
+ * The first run writes the job to DIR: job.properties with the position and depth, and shard-NNNN.txt files with one
+ * work item per line, the moves from the root to a position at the split depth. Each shard is counted by a worker process
+ * started from the same class path. The worker appends every counted item to shard-NNNN.partial and writes the total of
+ * the shard to shard-NNNN.done when it is finished.
+ *
+ * A later run with the same DIR skips the finished shards and the counted items of the others, so a killed coordinator
+ * or worker only loses the items that were being counted. When every shard is done the totals are added up and printed.
+ *
+ * The exit code is 0 if the count is complete and matches --expect, 1 on a mismatch, 2 on bad arguments or a job
+ * that does not match the arguments and 3 if a worker failed, the run can then be continued.
+ */
+public class PerftCoordinator {
+
+    public static final int DEFAULT_SPLIT = 2;
+    public static final int DEFAULT_SHARDS = 64;
+    public static final int EXIT_INCOMPLETE = 3;
+
+    private static final String JOB_FILE = "job.properties";
+    private static final String USAGE = "usage: PerftCoordinator --dir DIR --depth N [--fen FEN] [--split N] [--shards N] [--workers N] [--threads N] [--hash MB] [--expect N]\n"
+            + "       PerftCoordinator --worker SHARD [--threads N] [--hash MB]";
+
+    public static void main( String[] args ){
+        System.exit(run(args, System.out));
+    }
+
+    /**
+     * Runs the coordinator or a worker with command line arguments, see the class comment
+     *
+     * @param args the arguments
+     * @param out where the progress and the result are printed
+     *
+     * @return the exit code
+     */
+    public static int run(String[] args, PrintStream out){
+        BitMasks.initBitMasks();
+
+        Path dir = null;
+        Path worker = null;
+        String fen = Perft.START_POSITION;
+        int depth = 0;
+        int split = DEFAULT_SPLIT;
+        int shards = DEFAULT_SHARDS;
+        int workers = Runtime.getRuntime().availableProcessors();
+        int threads = 1;
+        int hashMegabytes = 0;
+        long expected = -1;
+
+        try{
+            for(int i = 0; i < args.length; i++){
+                switch(args[i]){
+                    case "--dir" -> dir = Path.of(args[++i]);
+                    case "--worker" -> worker = Path.of(args[++i]);
+                    case "--fen" -> fen = args[++i];
+                    case "--depth" -> depth = Integer.parseInt(args[++i]);
+                    case "--split" -> split = Integer.parseInt(args[++i]);
+                    case "--shards" -> shards = Integer.parseInt(args[++i]);
+                    case "--workers" -> workers = Integer.parseInt(args[++i]);
+                    case "--threads" -> threads = Integer.parseInt(args[++i]);
+                    case "--hash" -> hashMegabytes = Integer.parseInt(args[++i]);
+                    case "--expect" -> expected = Long.parseLong(args[++i]);
+                    default -> throw new IllegalArgumentException("unknown option " + args[i]);
+                }
+            }
+            if(threads < 1 || hashMegabytes < 0){
+                throw new IllegalArgumentException("invalid option value");
+            }
+            if(worker == null && (dir == null || split < 1 || depth <= split || shards < 1 || workers < 1)){
+                throw new IllegalArgumentException("--dir is needed and the depth has to be larger than the split");
+            }
+        }
+        catch(IllegalArgumentException | ArrayIndexOutOfBoundsException e){
+            out.println(e.getMessage() == null ? "missing option value" : e.getMessage());
+            out.println(USAGE);
+            return Perft.EXIT_USAGE;
+        }
+
+        try{
+            if(worker != null){
+                countShard(out, worker, threads, hashMegabytes);
+                return Perft.EXIT_OK;
+            }
+            return coordinate(out, dir, fen, depth, split, shards, workers, threads, hashMegabytes, expected);
+        }
+        catch(IOException | RuntimeException e){
+            out.println("perft job failed: " + e);
+            return Perft.EXIT_USAGE;
+        }
+    }
+
+    /**
+     * Creates or checks the job, counts the shards that are not done with worker processes and merges the totals
+     *
+     * @return the exit code
+     */
+    private static int coordinate(PrintStream out, Path dir, String fen, int depth, int split, int shards, int workers,
+                                  int threads, int hashMegabytes, long expected) throws IOException{
+        Path jobFile = dir.resolve(JOB_FILE);
+        if(Files.exists(jobFile)){
+            Properties job = readJob(dir);
+            if(!job.getProperty("fen").equals(fen) || Integer.parseInt(job.getProperty("depth")) != depth
+                    || Integer.parseInt(job.getProperty("split")) != split){
+                out.println(dir + " holds a different job: " + job);
+                return Perft.EXIT_USAGE;
+            }
+            shards = Integer.parseInt(job.getProperty("shards"));
+            out.println("continuing the job in " + dir);
+        }
+        else{
+            createJob(dir, fen, depth, split, shards);
+            out.println("created " + shards + " shards in " + dir);
+        }
+
+        List<Integer> pending = new ArrayList<>();
+        for(int shard = 0; shard < shards; shard++){
+            if(!Files.exists(shardFile(dir, shard, ".done"))){
+                pending.add(shard);
+            }
+        }
+        out.println(pending.size() + " of " + shards + " shards left to count");
+
+        long startTime = System.nanoTime();
+        List<Integer> failed = runWorkers(out, dir, pending, workers, threads, hashMegabytes);
+        long elapsedMillis = Math.max(1, (System.nanoTime() - startTime) / 1000000);
+        if(!failed.isEmpty()){
+            out.println("shards " + failed + " failed, see their .log files, run again to continue");
+            return EXIT_INCOMPLETE;
+        }
+
+        long nodes = 0;
+        for(int shard = 0; shard < shards; shard++){
+            nodes += Long.parseLong(Files.readString(shardFile(dir, shard, ".done")).trim());
+        }
+        out.printf("depth %2d %,16d nodes %,10d ms in this run%n", depth, nodes, elapsedMillis);
+        if(expected >= 0 && nodes != expected){
+            out.println("MISMATCH: expected " + expected + ", found " + nodes);
+            return Perft.EXIT_MISMATCH;
+        }
+        return Perft.EXIT_OK;
+    }
+
+    /**
+     * Writes the job file and deals the positions at the split depth into the shard files
+     */
+    private static void createJob(Path dir, String fen, int depth, int split, int shards) throws IOException{
+        FENParser parser = new FENParser(fen);
+        List<String> items = new ArrayList<>();
+        enumerate(parser.getBitboards(), parser.getSideToMove(), split, "", items);
+
+        Files.createDirectories(dir);
+        List<StringBuilder> contents = new ArrayList<>();
+        for(int shard = 0; shard < shards; shard++){
+            contents.add(new StringBuilder());
+        }
+        // Dealt round robin, so neighbouring subtrees of similar size end up in different shards
+        for(int i = 0; i < items.size(); i++){
+            contents.get(i % shards).append(items.get(i)).append('\n');
+        }
+        for(int shard = 0; shard < shards; shard++){
+            writeAtomically(shardFile(dir, shard, ".txt"), contents.get(shard).toString());
+        }
+
+        // The job file is written last, a job without it is created again from scratch
+        Properties job = new Properties();
+        job.setProperty("fen", fen);
+        job.setProperty("depth", Integer.toString(depth));
+        job.setProperty("split", Integer.toString(split));
+        job.setProperty("shards", Integer.toString(shards));
+        Path temporary = dir.resolve(JOB_FILE + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)){
+            job.store(writer, "perft job");
+        }
+        Files.move(temporary, dir.resolve(JOB_FILE), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Collects the move sequences that lead to every position the given number of plies below a position
+     *
+     * @param board the position, it is back in its starting state when the walk returns
+     * @param colour the side to move
+     * @param plies the plies left to play
+     * @param path the moves played so far, separated by spaces
+     * @param items where the move sequences are added
+     */
+    private static void enumerate(Board board, int colour, int plies, String path, List<String> items){
+        if(plies == 0){
+            items.add(path);
+            return;
+        }
+        int[] moves = new int[Moves.MAX_MOVES];
+        int count = Moves.generateLegalMoves(board, colour, moves);
+        for(int i = 0; i < count; i++){
+            board.makeMove(moves[i]);
+            enumerate(board, colour ^ 1, plies - 1, path.isEmpty() ? Move.toString(moves[i]) : path + " " + Move.toString(moves[i]), items);
+            board.unmakeMove();
+        }
+    }
+
+    /**
+     * Counts the shards with at most the given number of worker processes at a time
+     *
+     * @return the shards whose worker failed
+     */
+    private static List<Integer> runWorkers(PrintStream out, Path dir, List<Integer> pending, int workers, int threads,
+                                            int hashMegabytes) throws IOException{
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        String classPath;
+        try{
+            classPath = Path.of(PerftCoordinator.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+        }
+        catch(URISyntaxException e){
+            throw new IOException(e);
+        }
+
+        Map<Process, Integer> running = new ConcurrentHashMap<>();
+        // Workers must not outlive a coordinator that is stopped, their progress is kept in the .partial files
+        Thread stopWorkers = new Thread(() -> running.keySet().forEach(Process::destroy));
+        Runtime.getRuntime().addShutdownHook(stopWorkers);
+        List<Integer> failed = new ArrayList<>();
+        int next = 0;
+        int finished = 0;
+        try{
+            while(next < pending.size() || !running.isEmpty()){
+                while(next < pending.size() && running.size() < workers){
+                    int shard = pending.get(next++);
+                    Process process = new ProcessBuilder(java, "-cp", classPath, PerftCoordinator.class.getName(),
+                            "--worker", shardFile(dir, shard, ".txt").toString(),
+                            "--threads", Integer.toString(threads), "--hash", Integer.toString(hashMegabytes))
+                            .redirectErrorStream(true)
+                            .redirectOutput(shardFile(dir, shard, ".log").toFile())
+                            .start();
+                    running.put(process, shard);
+                }
+                CompletableFuture.anyOf(running.keySet().stream().map(Process::onExit).toArray(CompletableFuture[]::new)).join();
+                for(Process process : new ArrayList<>(running.keySet())){
+                    if(!process.isAlive()){
+                        int shard = running.remove(process);
+                        finished++;
+                        if(process.exitValue() != 0){
+                            failed.add(shard);
+                        }
+                        out.println("shard " + shard + (process.exitValue() == 0 ? " done" : " failed") + ", " + finished + "/" + pending.size());
+                    }
+                }
+            }
+        }
+        finally{
+            running.keySet().forEach(Process::destroy);
+            Runtime.getRuntime().removeShutdownHook(stopWorkers);
+        }
+        return failed;
+    }
+
+    /**
+     * Counts the work items of a shard that are not in its .partial file yet and writes the total to its .done file
+     *
+     * @param out where the count of every item is printed
+     * @param shard the shard file
+     * @param threads threads to count with
+     * @param hashMegabytes size of the subtree cache, 0 for none
+     */
+    static void countShard(PrintStream out, Path shard, int threads, int hashMegabytes) throws IOException{
+        Path dir = shard.toAbsolutePath().getParent();
+        Properties job = readJob(dir);
+        FENParser parser = new FENParser(job.getProperty("fen"));
+        int remaining = Integer.parseInt(job.getProperty("depth")) - Integer.parseInt(job.getProperty("split"));
+        PerftCache cache = hashMegabytes > 0 ? new PerftCache(hashMegabytes) : null;
+
+        String name = shard.getFileName().toString().replace(".txt", "");
+        Path partial = dir.resolve(name + ".partial");
+        Path done = dir.resolve(name + ".done");
+        List<String> items = Files.readAllLines(shard);
+        long[] counts = readPartial(partial, items.size());
+
+        long total = 0;
+        for(int i = 0; i < items.size(); i++){
+            if(counts[i] < 0){
+                Board board = new Board(parser.getBitboards());
+                int colour = replay(board, parser.getSideToMove(), items.get(i));
+                if(cache != null){
+                    counts[i] = threads > 1 ? ParallelPerft.perftHashed(board, colour, remaining, threads, cache) : ParallelPerft.perftHashed(board, colour, remaining, cache);
+                }
+                else{
+                    long[] totals = threads > 1 ? ParallelPerft.perft(board, colour, remaining, threads) : ParallelPerft.perft(board, colour, remaining);
+                    counts[i] = totals[remaining - 1];
+                }
+                // One line per item, synced so the count survives a crash of the host
+                Files.writeString(partial, i + " " + counts[i] + "\n", StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.SYNC);
+                out.println(items.get(i) + ": " + counts[i]);
+            }
+            total += counts[i];
+        }
+        writeAtomically(done, total + "\n");
+    }
+
+    /**
+     * Reads the counted work items of a shard
+     *
+     * @return the count of every item, -1 for the items that are not counted yet
+     */
+    private static long[] readPartial(Path partial, int items) throws IOException{
+        long[] counts = new long[items];
+        Arrays.fill(counts, -1L);
+        if(!Files.exists(partial)){
+            return counts;
+        }
+        String content = Files.readString(partial);
+        // A line without its newline was cut off when the worker was killed
+        int end = content.lastIndexOf('\n');
+        for(String line : content.substring(0, end + 1).split("\n")){
+            String[] fields = line.trim().split(" ");
+            if(fields.length == 2){
+                counts[Integer.parseInt(fields[0])] = Long.parseLong(fields[1]);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Plays a sequence of moves in coordinate notation on a board
+     *
+     * @param board the board the moves are played on
+     * @param colour the side to move
+     * @param path the moves separated by spaces, eg. "e2e4 e7e5"
+     *
+     * @return the side to move after the moves
+     */
+    static int replay(Board board, int colour, String path){
+        int[] moves = new int[Moves.MAX_MOVES];
+        for(String notation : path.trim().split(" ")){
+            int count = Moves.generateLegalMoves(board, colour, moves);
+            int i = 0;
+            while(i < count && !Move.toString(moves[i]).equals(notation)){
+                i++;
+            }
+            if(i == count){
+                throw new IllegalArgumentException("illegal move " + notation + " in " + path);
+            }
+            board.makeMove(moves[i]);
+            colour ^= 1;
+        }
+        return colour;
+    }
+
+    private static Properties readJob(Path dir) throws IOException{
+        Properties job = new Properties();
+        try (Reader reader = Files.newBufferedReader(dir.resolve(JOB_FILE), StandardCharsets.UTF_8)){
+            job.load(reader);
+        }
+        return job;
+    }
+
+    private static Path shardFile(Path dir, int shard, String suffix){
+        return dir.resolve(String.format("shard-%04d%s", shard, suffix));
+    }
+
+    /**
+     * Writes a file through a temporary file, so a reader sees either the whole file or none
+     */
+    private static void writeAtomically(Path file, String content) throws IOException{
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.writeString(temporary, content, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.SYNC);
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
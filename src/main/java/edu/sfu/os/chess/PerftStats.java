@@ -0,0 +1,100 @@
+package edu.sfu.os.chess;
+
+/**
+ * Per-ply perft statistics: nodes, captures, en passant captures, castles, promotions, checks and checkmates.
+ *
+ * The counts are plain longs in one array. Every thread collects into its own PerftStats and the collectors are added up
+ * when the threads are done, like a {@link java.util.concurrent.atomic.LongAdder}, so counting needs neither boxing nor
+ * synchronization.
+ */
+public final class PerftStats {
+
+    // Kinds of counts, in the order they are printed
+    public static final int NODES = 0;
+    public static final int CAPTURES = 1;
+    public static final int EN_PASSANT = 2;
+    public static final int CASTLES = 3;
+    public static final int PROMOTIONS = 4;
+    public static final int CHECKS = 5;
+    public static final int CHECKMATES = 6;
+    public static final int KINDS = 7;
+
+    public static final String[] NAMES = {"nodes", "captures", "en passant", "castles", "promotions", "checks", "checkmates"};
+
+    private final int depth;
+    // Indexed by ply * KINDS + kind
+    private final long[] counts;
+
+    /**
+     * @param depth number of plies to count
+     */
+    public PerftStats(int depth){
+        this.depth = depth;
+        this.counts = new long[depth * KINDS];
+    }
+
+    public int depth(){
+        return depth;
+    }
+
+    /**
+     * Counts a legal move
+     *
+     * @param ply the ply of the move, 0 for the root moves
+     * @param move the move
+     * @param check whether the move gives check
+     * @param mate whether the move gives checkmate
+     */
+    public void record(int ply, int move, boolean check, boolean mate){
+        int base = ply * KINDS;
+        counts[base + NODES]++;
+        if(Move.isCapture(move)){
+            counts[base + CAPTURES]++;
+        }
+        switch(Move.flag(move)){
+            case Move.EN_PASSANT -> counts[base + EN_PASSANT]++;
+            case Move.CASTLE -> counts[base + CASTLES]++;
+            case Move.PROMOTION -> counts[base + PROMOTIONS]++;
+        }
+        if(check){
+            counts[base + CHECKS]++;
+            if(mate){
+                counts[base + CHECKMATES]++;
+            }
+        }
+    }
+
+    /**
+     * Adds the counts of another collector of the same depth to this one
+     *
+     * @param other the collector to add, left unchanged
+     */
+    public void add(PerftStats other){
+        for(int i = 0; i < counts.length; i++){
+            counts[i] += other.counts[i];
+        }
+    }
+
+    /**
+     * @param kind one of the kinds, eg. {@link #CAPTURES}
+     * @param ply the ply, 0 for the root moves
+     *
+     * @return the count of that kind at that ply
+     */
+    public long get(int kind, int ply){
+        return counts[ply * KINDS + kind];
+    }
+
+    /**
+     * @param kind one of the kinds, eg. {@link #CAPTURES}
+     *
+     * @return the counts of that kind at every ply
+     */
+    public long[] get(int kind){
+        long[] perPly = new long[depth];
+        for(int ply = 0; ply < depth; ply++){
+            perPly[ply] = get(kind, ply);
+        }
+        return perPly;
+    }
+}
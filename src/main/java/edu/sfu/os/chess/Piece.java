@@ -0,0 +1,84 @@
+package edu.sfu.os.chess;
+
+/**
+ * Integer codes for pieces, used by the packed move format in {@link Move} and as the index into {@link Board#pieces}.
+ *
+ * 0 Wpawn, 1 Wknight, 2 Wbishop, 3 Wrook, 4 Wqueen, 5 Wking, 6 Bpawn, 7 Bknight, 8 Bbishop,
+ * 9 Brook, 10 Bqueen, 11 Bking.
+ *
+ * A piece code is colour * 6 + type, see {@link #of(int, int)}.
+ */
+public final class Piece {
+
+    // Colours
+    public static final int WHITE = 0;
+    public static final int BLACK = 1;
+
+    // Piece types
+    public static final int PAWN = 0;
+    public static final int KNIGHT = 1;
+    public static final int BISHOP = 2;
+    public static final int ROOK = 3;
+    public static final int QUEEN = 4;
+    public static final int KING = 5;
+
+    public static final int WP = 0;
+    public static final int WN = 1;
+    public static final int WB = 2;
+    public static final int WR = 3;
+    public static final int WQ = 4;
+    public static final int WK = 5;
+    public static final int BP = 6;
+    public static final int BN = 7;
+    public static final int BB = 8;
+    public static final int BR = 9;
+    public static final int BQ = 10;
+    public static final int BK = 11;
+    // Marks an empty square, or no piece in a move field
+    public static final int EMPTY = 12;
+
+    private Piece(){}
+
+    /**
+     * @param colour {@link #WHITE} or {@link #BLACK}
+     * @param type one of {@link #PAWN}, {@link #KNIGHT}, {@link #BISHOP}, {@link #ROOK}, {@link #QUEEN}, {@link #KING}
+     * @return the piece code
+     */
+    public static int of(int colour, int type){
+        return colour * 6 + type;
+    }
+
+    /**
+     * @param piece a piece code, not {@link #EMPTY}
+     * @return {@link #WHITE} or {@link #BLACK}
+     */
+    public static int colour(int piece){
+        return piece / 6;
+    }
+
+    /**
+     * @param piece a piece code, not {@link #EMPTY}
+     * @return the type of the piece, eg. {@link #PAWN}
+     */
+    public static int type(int piece){
+        return piece % 6;
+    }
+
+    /**
+     * @param piece a piece code
+     * @return true if the piece code belongs to white
+     */
+    public static boolean isWhite(int piece){
+        return piece <= WK;
+    }
+
+    /**
+     * Given a piece code, returns the character used for it in FEN and in {@link BoardGeneration}
+     *
+     * @param piece a piece code
+     * @return uppercase for white, lowercase for black and a space for {@link #EMPTY}
+     */
+    public static char toChar(int piece){
+        return "PNBRQKpnbrqk ".charAt(piece);
+    }
+}
@@ -0,0 +1,504 @@
+package edu.sfu.os.chess;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Negamax alpha-beta search with iterative deepening and principal variation search.
+ *
+ * Every iteration searches the whole tree one ply deeper than the one before, the transposition table carries the best moves
+ * of the earlier iterations over, so the first move tried at a node is usually the best one. The first move of a node is
+ * searched with the full window, the others with a null window around alpha, a move that beats alpha is searched again
+ * with the full window.
+ *
+ * The moves come from one {@link MovePicker} per ply, ordered with the killers, history and countermoves of a
+ * {@link MoveOrdering}, and are made and unmade on a single board, the search allocates nothing
+ * once it is running. A Search is used by one thread, several searches can share a {@link TranspositionTable}.
+ *
+ * {@link ParallelSearch} runs one Search per thread. The helpers skip some depths of the iterative deepening, so at any time
+ * the threads work on different depths and fill the shared table with different parts of the tree.
+ */
+public final class Search {
+
+    public static final int MAX_PLY = 128;
+    public static final int INFINITE = 32000;
+    // Score of the side to move when it is mated at the root, a mate n plies from the root scores MATE - n
+    public static final int MATE = 31000;
+    // Scores beyond this are mates
+    public static final int MATE_BOUND = MATE - MAX_PLY;
+    public static final int DRAW = 0;
+
+    // Nodes between two looks at the clock
+    private static final int CHECK_INTERVAL = 1024;
+    // Positional gain a capture in the quiescence search may bring on top of the material, delta pruning
+    private static final int DELTA_MARGIN = 200;
+    // Which depths a helper skips, by helper index: depth d is skipped if (d + phase) / size is odd
+    private static final int[] SKIP_SIZE = {1, 1, 2, 2, 2, 2, 3, 3, 3, 3, 3, 3, 4, 4, 4, 4, 4, 4, 4, 4};
+    private static final int[] SKIP_PHASE = {0, 1, 0, 1, 2, 3, 0, 1, 2, 3, 4, 5, 0, 1, 2, 3, 4, 5, 6, 7};
+
+    private final TranspositionTable table;
+    private final MovePicker[] pickers = new MovePicker[MAX_PLY];
+    // Triangular principal variation table, pv[ply] holds the best line from ply onwards
+    private final int[][] pv = new int[MAX_PLY + 1][MAX_PLY + 1];
+    private final int[] pvLength = new int[MAX_PLY + 1];
+    // Keys of the positions from the root, to find repetitions
+    private final long[] keys = new long[MAX_PLY + 1];
+    // The move played at every ply, to look up countermoves
+    private final int[] moveStack = new int[MAX_PLY + 1];
+    // Quiet moves searched at every ply without a cutoff, their history is lowered when a later one cuts off
+    private final int[][] quietsTried = new int[MAX_PLY][Moves.MAX_MOVES];
+    private final MoveOrdering ordering = new MoveOrdering();
+    // 0 for the main search, the helpers of a ParallelSearch count from 1
+    private final int helper;
+    private final AtomicBoolean stopRequested;
+    // Milliseconds from the start to the end of every finished iteration, indexed by depth
+    private final long[] depthMillis = new long[MAX_PLY];
+
+    private PrintStream output;
+    private Board board;
+    private int rootColour;
+    private long nodes;
+    // The part of the nodes in the quiescence search
+    private long quiescenceNodes;
+    private long nodeLimit;
+    private long deadline;
+    private boolean canStop;
+    private boolean stopped;
+
+    /**
+     * @param table the transposition table, it can be shared with other searches
+     */
+    public Search(TranspositionTable table){
+        this(table, 0, new AtomicBoolean());
+    }
+
+    /**
+     * @param helper 0 for the main search, from 1 for the helpers that skip some depths
+     * @param stopRequested the stop flag, shared by the threads of a ParallelSearch
+     */
+    Search(TranspositionTable table, int helper, AtomicBoolean stopRequested){
+        this.table = table;
+        this.helper = helper;
+        this.stopRequested = stopRequested;
+        for(int ply = 0; ply < MAX_PLY; ply++){
+            pickers[ply] = new MovePicker();
+        }
+    }
+
+    /**
+     * @param output where a line is printed after every iteration, null for none
+     */
+    public void setOutput(PrintStream output){
+        this.output = output;
+    }
+
+    /**
+     * Makes a running search return as soon as possible, it can be called from any thread
+     */
+    public void stop(){
+        stopRequested.set(true);
+    }
+
+    /**
+     * Given a Chess Board, searches for the best move until one of the limits is reached
+     *
+     * @param currentPosition a Chess Board, left unchanged
+     * @param colour the side to move
+     * @param limits when to stop, the first iteration is always finished
+     *
+     * @return the result of the deepest finished iteration
+     */
+    public SearchResult search(Board currentPosition, int colour, SearchLimits limits){
+        stopRequested.set(false);
+        table.newSearch();
+        return run(currentPosition, colour, limits, System.nanoTime());
+    }
+
+    /**
+     * Runs the iterative deepening, the caller resets the stop flag and starts a new generation of the table
+     *
+     * @param startTime System.nanoTime() at the start of the search, the time limit counts from it
+     */
+    SearchResult run(Board currentPosition, int colour, SearchLimits limits, long startTime){
+        setRoot(currentPosition, colour);
+        nodeLimit = limits.nodes > 0 ? limits.nodes : Long.MAX_VALUE;
+        deadline = limits.millis > 0 ? startTime + limits.millis * 1000000 : Long.MAX_VALUE;
+        Arrays.fill(depthMillis, -1);
+
+        int maxDepth = limits.depth > 0 ? Math.min(limits.depth, MAX_PLY - 1) : MAX_PLY - 1;
+        SearchResult result = new SearchResult(Move.NONE, DRAW, new int[0], 0, 0, 0, 0, 0, 0);
+        for(int depth = 1; depth <= maxDepth; depth++){
+            if(skip(depth)){
+                continue;
+            }
+            int score = negamax(colour, depth, -INFINITE, INFINITE, 0, true);
+            if(stopped){
+                break;
+            }
+            int[] line = new int[pvLength[0]];
+            System.arraycopy(pv[0], 0, line, 0, line.length);
+            long elapsedMillis = (System.nanoTime() - startTime) / 1000000;
+            result = new SearchResult(line.length > 0 ? line[0] : Move.NONE, score, line, depth, nodes, quiescenceNodes,
+                    ordering.cutoffs(), ordering.firstMoveCutoffs(), elapsedMillis);
+            depthMillis[depth] = elapsedMillis;
+            if(output != null){
+                output.println("info " + result);
+            }
+            canStop = true;
+            // No moves, or a mate that a deeper search cannot change
+            if(line.length == 0 || Math.abs(score) >= MATE_BOUND && MATE - Math.abs(score) <= depth){
+                break;
+            }
+        }
+        return new SearchResult(result.bestMove, result.score, result.pv, result.depth, nodes, quiescenceNodes,
+                ordering.cutoffs(), ordering.firstMoveCutoffs(), (System.nanoTime() - startTime) / 1000000);
+    }
+
+    /**
+     * Sets up a position to search the root moves of one by one with searchMove, without limits
+     *
+     * @param currentPosition a Chess Board, left unchanged
+     * @param colour the side to move
+     */
+    void setRoot(Board currentPosition, int colour){
+        board = new Board(currentPosition);
+        board.updateKey(colour);
+        rootColour = colour;
+        ordering.clear();
+        nodes = 0;
+        quiescenceNodes = 0;
+        nodeLimit = Long.MAX_VALUE;
+        deadline = Long.MAX_VALUE;
+        canStop = false;
+        stopped = false;
+        keys[0] = board.key;
+    }
+
+    /**
+     * Searches a legal move of the position given to setRoot, the root node itself is not counted
+     *
+     * @param move a legal move of the root
+     * @param depth remaining depth at the root
+     *
+     * @return the score of the move from the side to move at the root, only exact if it lies between alpha and beta
+     */
+    int searchMove(int move, int depth, int alpha, int beta){
+        board.makeMove(move);
+        keys[1] = board.key;
+        moveStack[0] = move;
+        int score = -negamax(rootColour ^ 1, depth - 1, -beta, -alpha, 1, beta - alpha > 1);
+        board.unmakeMove();
+        return score;
+    }
+
+    /**
+     * @return the move followed by the best line found after it by the last searchMove
+     */
+    int[] line(int move){
+        int[] line = new int[pvLength[1] + 1];
+        line[0] = move;
+        System.arraycopy(pv[1], 0, line, 1, pvLength[1]);
+        return line;
+    }
+
+    /**
+     * @return the nodes searched since the position was set up
+     */
+    long nodes(){
+        return nodes;
+    }
+
+    /**
+     * @return the killers, history and countermoves of the search, with its cutoff counts
+     */
+    MoveOrdering ordering(){
+        return ordering;
+    }
+
+    /**
+     * @return the part of the nodes searched by the quiescence search
+     */
+    long quiescenceNodes(){
+        return quiescenceNodes;
+    }
+
+    /**
+     * @return milliseconds from the start of the last search to the end of the iteration of every depth, -1 for the depths
+     * that were skipped or not finished
+     */
+    long[] depthMillis(){
+        return depthMillis;
+    }
+
+    /**
+     * @return true if a helper leaves out the iteration of a depth, the main search never skips one
+     */
+    private boolean skip(int depth){
+        if(helper == 0){
+            return false;
+        }
+        int i = (helper - 1) % SKIP_SIZE.length;
+        return ((depth + SKIP_PHASE[i]) / SKIP_SIZE[i]) % 2 != 0;
+    }
+
+    /**
+     * Searches a position with make/unmake
+     *
+     * @param colour the side to move
+     * @param depth remaining depth
+     * @param alpha the score the side to move already has elsewhere
+     * @param beta the score the opponent already has elsewhere
+     * @param ply distance from the root
+     * @param pvNode true if the window is open, false for a null window search
+     *
+     * @return the score from the side to move, only exact if it lies between alpha and beta
+     */
+    private int negamax(int colour, int depth, int alpha, int beta, int ply, boolean pvNode){
+        pvLength[ply] = 0;
+        if(stopped || shouldStop()){
+            stopped = true;
+            return DRAW;
+        }
+        if(ply > 0 && isRepetition(ply)){
+            return DRAW;
+        }
+        boolean inCheck = Moves.checkers(board, colour) != 0;
+        // Checks are searched one ply deeper, so a check at the horizon is not mistaken for a quiet position
+        if(inCheck){
+            depth++;
+        }
+
+        // The quiescence search counts the node itself
+        if(depth <= 0){
+            return quiescence(colour, alpha, beta, ply);
+        }
+        nodes++;
+        if(ply >= MAX_PLY - 1){
+            return Evaluation.evaluate(board, colour);
+        }
+
+        long key = board.key;
+        long entry = table.probe(key);
+        int hashMove = TranspositionTable.move(entry);
+        if(entry != 0 && !pvNode && TranspositionTable.depth(entry) >= depth){
+            int score = fromTable(TranspositionTable.score(entry), ply);
+            int bound = TranspositionTable.bound(entry);
+            if(bound == TranspositionTable.EXACT
+                    || bound == TranspositionTable.LOWER && score >= beta
+                    || bound == TranspositionTable.UPPER && score <= alpha){
+                return score;
+            }
+        }
+
+        int previousMove = ply > 0 ? moveStack[ply - 1] : Move.NONE;
+        MovePicker picker = pickers[ply];
+        picker.init(board, colour, hashMove, ordering.killer(ply, 0), ordering.killer(ply, 1),
+                ordering.counterMove(previousMove), ordering.history());
+        int originalAlpha = alpha;
+        int bestScore = -INFINITE;
+        int bestMove = Move.NONE;
+        int legalMoves = 0;
+        int quietCount = 0;
+        int move;
+        while((move = picker.next()) != Move.NONE){
+            board.makeMove(move);
+            if(Moves.checkers(board, colour) != 0){
+                board.unmakeMove();
+                continue;
+            }
+            legalMoves++;
+            keys[ply + 1] = board.key;
+            moveStack[ply] = move;
+            int score;
+            if(legalMoves == 1){
+                score = -negamax(colour ^ 1, depth - 1, -beta, -alpha, ply + 1, pvNode);
+            }
+            else{
+                score = -negamax(colour ^ 1, depth - 1, -alpha - 1, -alpha, ply + 1, false);
+                if(score > alpha && score < beta){
+                    score = -negamax(colour ^ 1, depth - 1, -beta, -alpha, ply + 1, true);
+                }
+            }
+            board.unmakeMove();
+            if(stopped){
+                return DRAW;
+            }
+
+            if(score > bestScore){
+                bestScore = score;
+                bestMove = move;
+                if(score > alpha){
+                    alpha = score;
+                    updatePv(ply, move);
+                    if(alpha >= beta){
+                        ordering.cutoff(legalMoves == 1);
+                        if(isQuiet(move)){
+                            ordering.update(ply, colour, move, previousMove, depth, quietsTried[ply], quietCount);
+                        }
+                        break;
+                    }
+                }
+            }
+            if(isQuiet(move)){
+                quietsTried[ply][quietCount++] = move;
+            }
+        }
+
+        if(legalMoves == 0){
+            return inCheck ? -MATE + ply : DRAW;
+        }
+
+        int bound = bestScore >= beta ? TranspositionTable.LOWER : bestScore > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+        table.store(key, bestMove, toTable(bestScore, ply), Math.min(depth, TranspositionTable.MAX_DEPTH), bound);
+        return bestScore;
+    }
+
+    /**
+     * Searches the captures and promotions of a position until it is quiet, so the evaluation at the horizon is not taken
+     * in the middle of an exchange
+     *
+     * The side to move can stand pat, take the static evaluation instead of capturing, unless it is in check, then every
+     * move is searched. Captures that cannot bring the score up to alpha even with a margin are pruned without being made.
+     *
+     * @return the score from the side to move, only exact if it lies between alpha and beta
+     */
+    private int quiescence(int colour, int alpha, int beta, int ply){
+        pvLength[ply] = 0;
+        if(stopped || shouldStop()){
+            stopped = true;
+            return DRAW;
+        }
+        nodes++;
+        quiescenceNodes++;
+        if(ply >= MAX_PLY - 1){
+            return Evaluation.evaluate(board, colour);
+        }
+
+        boolean inCheck = Moves.checkers(board, colour) != 0;
+        int standPat = -INFINITE;
+        MovePicker picker = pickers[ply];
+        if(inCheck){
+            picker.init(board, colour, Move.NONE, Move.NONE, Move.NONE);
+        }
+        else{
+            standPat = Evaluation.evaluate(board, colour);
+            if(standPat >= beta){
+                return standPat;
+            }
+            alpha = Math.max(alpha, standPat);
+            picker.initQuiescence(board, colour);
+        }
+
+        int bestScore = standPat;
+        int legalMoves = 0;
+        int move;
+        while((move = picker.next()) != Move.NONE){
+            if(!inCheck && standPat + materialGain(move) + DELTA_MARGIN <= alpha){
+                continue;
+            }
+            board.makeMove(move);
+            if(Moves.checkers(board, colour) != 0){
+                board.unmakeMove();
+                continue;
+            }
+            legalMoves++;
+            int score = -quiescence(colour ^ 1, -beta, -alpha, ply + 1);
+            board.unmakeMove();
+            if(stopped){
+                return DRAW;
+            }
+
+            if(score > bestScore){
+                bestScore = score;
+                if(score > alpha){
+                    alpha = score;
+                    updatePv(ply, move);
+                    if(alpha >= beta){
+                        break;
+                    }
+                }
+            }
+        }
+
+        if(inCheck && legalMoves == 0){
+            return -MATE + ply;
+        }
+        return bestScore;
+    }
+
+    private static boolean isQuiet(int move){
+        return !Move.isCapture(move) && Move.flag(move) != Move.PROMOTION;
+    }
+
+    /**
+     * @return the material a capture or promotion wins at most, the value of the captured piece and what the pawn gains
+     */
+    private static int materialGain(int move){
+        int captured = Move.captured(move);
+        int gain = captured == Piece.EMPTY ? 0 : Evaluation.PIECE_VALUE[Piece.type(captured)];
+        if(Move.flag(move) == Move.PROMOTION){
+            gain += Evaluation.PIECE_VALUE[Piece.type(Move.promotion(move))] - Evaluation.PIECE_VALUE[Piece.PAWN];
+        }
+        return gain;
+    }
+
+    /**
+     * @return true once a limit is reached, never during the first iteration of the main search
+     */
+    private boolean shouldStop(){
+        if(!canStop){
+            // The helpers stop whenever the main search is done
+            return helper != 0 && stopRequested.get();
+        }
+        if(stopRequested.get() || nodes >= nodeLimit){
+            return true;
+        }
+        return (nodes & (CHECK_INTERVAL - 1)) == 0 && System.nanoTime() >= deadline;
+    }
+
+    /**
+     * @return true if the position at the ply already occurred on the way from the root with the same side to move
+     */
+    private boolean isRepetition(int ply){
+        long key = keys[ply];
+        for(int i = ply - 4; i >= 0; i -= 2){
+            if(keys[i] == key){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Makes a move followed by the best line of the next ply the best line of this ply
+     */
+    private void updatePv(int ply, int move){
+        pv[ply][0] = move;
+        System.arraycopy(pv[ply + 1], 0, pv[ply], 1, pvLength[ply + 1]);
+        pvLength[ply] = pvLength[ply + 1] + 1;
+    }
+
+    /**
+     * Mate scores are stored as the distance from the node rather than from the root
+     */
+    private static int toTable(int score, int ply){
+        if(score >= MATE_BOUND){
+            return score + ply;
+        }
+        if(score <= -MATE_BOUND){
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int fromTable(int score, int ply){
+        if(score >= MATE_BOUND){
+            return score - ply;
+        }
+        if(score <= -MATE_BOUND){
+            return score + ply;
+        }
+        return score;
+    }
+}
@@ -0,0 +1,34 @@
+package edu.sfu.os.chess;
+
+/**
+ * When a search stops: a maximum depth, a number of nodes or a time, whichever comes first. A limit of 0 is no limit.
+ */
+public final class SearchLimits {
+
+    public final int depth;
+    public final long nodes;
+    public final long millis;
+
+    /**
+     * @param depth deepest iteration, 0 for up to {@link Search#MAX_PLY}
+     * @param nodes nodes to search, 0 for any number
+     * @param millis time to search in milliseconds, 0 for no time limit
+     */
+    public SearchLimits(int depth, long nodes, long millis){
+        this.depth = depth;
+        this.nodes = nodes;
+        this.millis = millis;
+    }
+
+    public static SearchLimits depth(int depth){
+        return new SearchLimits(depth, 0, 0);
+    }
+
+    public static SearchLimits nodes(long nodes){
+        return new SearchLimits(0, nodes, 0);
+    }
+
+    public static SearchLimits millis(long millis){
+        return new SearchLimits(0, 0, millis);
+    }
+}
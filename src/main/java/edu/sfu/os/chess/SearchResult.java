@@ -0,0 +1,70 @@
+package edu.sfu.os.chess;
+
+import java.util.Locale;
+
+/**
+ * Result of the deepest finished iteration of a search.
+ */
+public final class SearchResult {
+
+    // Best move, Move.NONE if the side to move has no legal move
+    public final int bestMove;
+    // Score in centipawns from the side to move, see Search.MATE for mate scores
+    public final int score;
+    // Principal variation, starting with the best move
+    public final int[] pv;
+    public final int depth;
+    // Nodes of the whole search, the unfinished iteration included
+    public final long nodes;
+    // The part of the nodes searched by the quiescence search
+    public final long quiescenceNodes;
+    // Beta cutoffs of the search, without the quiescence search, and how many of them came from the first move
+    public final long cutoffs;
+    public final long firstMoveCutoffs;
+    public final long millis;
+
+    public SearchResult(int bestMove, int score, int[] pv, int depth, long nodes, long quiescenceNodes, long cutoffs, long firstMoveCutoffs, long millis){
+        this.bestMove = bestMove;
+        this.score = score;
+        this.pv = pv;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.quiescenceNodes = quiescenceNodes;
+        this.cutoffs = cutoffs;
+        this.firstMoveCutoffs = firstMoveCutoffs;
+        this.millis = millis;
+    }
+
+    /**
+     * @return the share of the beta cutoffs that came from the first move tried, the higher the better the move ordering
+     */
+    public double firstMoveCutoffRate(){
+        return cutoffs == 0 ? 0 : (double)firstMoveCutoffs / cutoffs;
+    }
+
+    /**
+     * @return the result in the style of a UCI info line,
+     * eg. "depth 5 score cp 30 nodes 12000 qnodes 7000 firstcutoff 91.5% time 40 nps 300000 pv e2e4 e7e5"
+     */
+    @Override
+    public String toString(){
+        StringBuilder line = new StringBuilder("depth " + depth);
+        if(Math.abs(score) >= Search.MATE_BOUND){
+            // Moves, not plies, negative if the side to move is mated
+            int plies = Search.MATE - Math.abs(score);
+            line.append(" score mate ").append(score > 0 ? (plies + 1) / 2 : -plies / 2);
+        }
+        else{
+            line.append(" score cp ").append(score);
+        }
+        line.append(" nodes ").append(nodes).append(" qnodes ").append(quiescenceNodes);
+        line.append(String.format(Locale.ROOT, " firstcutoff %.1f%%", 100 * firstMoveCutoffRate()));
+        line.append(" time ").append(millis);
+        line.append(" nps ").append(nodes * 1000 / Math.max(1, millis));
+        line.append(" pv");
+        for(int move : pv){
+            line.append(' ').append(Move.toString(move));
+        }
+        return line.toString();
+    }
+}
@@ -0,0 +1,255 @@
+package edu.sfu.os.chess;
+
+import java.util.Arrays;
+import java.util.stream.LongStream;
+
+/**
+ * Transposition table of the search, shared by all search threads without locks.
+ *
+ * An entry is two longs, the key xored with the data and the data itself. The data packs the best move, the score, the
+ * depth, the bound and the generation of the search that stored it, see {@link #pack}. A reader only accepts an entry if
+ * key xor data gives back its own key, an entry that was half written by another thread is a miss, never a wrong score.
+ *
+ * Four entries make a bucket of 64 bytes, the size of a cache line. A position can be stored in any entry of its bucket, a store
+ * replaces the entry of the same position, an empty one or else the one with the least depth, where every search since
+ * it was stored counts as {@link #AGE_PENALTY} plies less. A shallower bound that is not exact does not replace an entry
+ * of the same position from the current search, only its move is taken.
+ *
+ * The entries live in a long[] on the heap. The data of an array starts after its header and the garbage collector moves
+ * it, so a bucket usually spans two cache lines. {@link OffHeapTranspositionTable} keeps the entries in direct memory
+ * aligned to 64 bytes instead, there every bucket is exactly one cache line.
+ */
+public class TranspositionTable {
+
+    // Bounds of a score, NONE is only used for empty entries
+    public static final int NONE = 0;
+    public static final int UPPER = 1;
+    public static final int LOWER = 2;
+    public static final int EXACT = 3;
+
+    // Plies of depth one search of age is worth when an entry is replaced
+    public static final int AGE_PENALTY = 8;
+    public static final int MAX_DEPTH = 255;
+
+    // Longs per entry and per bucket
+    static final int ENTRY_SIZE = 2;
+    static final int BUCKET_ENTRIES = 4;
+    static final int BUCKET_SIZE = BUCKET_ENTRIES * ENTRY_SIZE;
+    // A Java array holds less than 2^31 longs
+    private static final long MAX_HEAP_BUCKETS = 1L << 27;
+    // Longs cleared by one task of clear()
+    private static final long CLEAR_BLOCK = 1L << 22;
+
+    // Layout of the data, the move takes the low 32 bits
+    private static final int SCORE_SHIFT = 32;
+    private static final int DEPTH_SHIFT = 48;
+    private static final int BOUND_SHIFT = 56;
+    private static final int GENERATION_SHIFT = 58;
+    private static final int GENERATION_MASK = 63;
+
+    // null if the entries are not kept on the heap
+    private final long[] table;
+    private final long bucketMask;
+    private int generation;
+
+    /**
+     * @param megabytes memory budget, rounded down to a power of two number of buckets
+     */
+    public TranspositionTable(int megabytes){
+        this(bucketCount(megabytes, MAX_HEAP_BUCKETS), true);
+    }
+
+    /**
+     * @param buckets number of buckets, a power of two
+     * @param onHeap true to allocate the entries in a long[], false if a subclass keeps them elsewhere
+     */
+    protected TranspositionTable(long buckets, boolean onHeap){
+        table = onHeap ? new long[(int)(buckets * BUCKET_SIZE)] : null;
+        bucketMask = buckets - 1;
+    }
+
+    /**
+     * @return the number of buckets that fit in the memory budget, rounded down to a power of two
+     */
+    static long bucketCount(long megabytes, long maxBuckets){
+        long buckets = Long.highestOneBit(Math.max(1L, megabytes * 1024 * 1024 / (BUCKET_SIZE * Long.BYTES)));
+        return Math.min(buckets, maxBuckets);
+    }
+
+    /**
+     * Reads one long of the entries. A subclass that keeps the entries elsewhere overrides the three hooks read,
+     * {@link #write} and {@link #clearRange}.
+     *
+     * @param index index of the long, an entry takes two
+     */
+    protected long read(long index){
+        return table[(int)index];
+    }
+
+    /**
+     * Writes one long of the entries, the second hook a subclass overrides
+     *
+     * @param index index of the long, an entry takes two
+     */
+    protected void write(long index, long value){
+        table[(int)index] = value;
+    }
+
+    /**
+     * Sets the longs from one index up to another one to 0, the third hook a subclass overrides. clear() calls it from
+     * several threads at once for separate ranges.
+     */
+    protected void clearRange(long from, long to){
+        Arrays.fill(table, (int)from, (int)to, 0L);
+    }
+
+    /**
+     * Looks up a position
+     *
+     * @param key the Zobrist key of the position, see {@link Board#key}
+     *
+     * @return the data of the entry, decoded with {@link #move}, {@link #score}, {@link #depth} and {@link #bound},
+     * or 0 if the position is not in the table
+     */
+    public long probe(long key){
+        long bucket = (key & bucketMask) * BUCKET_SIZE;
+        for(long entry = bucket; entry < bucket + BUCKET_SIZE; entry += ENTRY_SIZE){
+            long data = read(entry + 1);
+            if((read(entry) ^ data) == key && data != 0){
+                return data;
+            }
+        }
+        return 0L;
+    }
+
+    /**
+     * Stores a search result
+     *
+     * @param key the Zobrist key of the position
+     * @param move the best move, or {@link Move#NONE} to keep the move stored for the position
+     * @param score the score, it has to fit in a short
+     * @param depth the remaining depth of the search, 0 to {@link #MAX_DEPTH}
+     * @param bound {@link #UPPER}, {@link #LOWER} or {@link #EXACT}
+     */
+    public void store(long key, int move, int score, int depth, int bound){
+        long bucket = (key & bucketMask) * BUCKET_SIZE;
+        long replace = bucket;
+        int worst = Integer.MAX_VALUE;
+        for(long entry = bucket; entry < bucket + BUCKET_SIZE; entry += ENTRY_SIZE){
+            long data = read(entry + 1);
+            if(data == 0){
+                replace = entry;
+                break;
+            }
+            if((read(entry) ^ data) == key){
+                if(move == Move.NONE){
+                    move = move(data);
+                }
+                // A shallower bound of this search is worth less than what is stored, only its move is newer
+                if(depth < depth(data) && bound != EXACT && generation(data) == generation){
+                    if(move != move(data)){
+                        data = pack(move, score(data), depth(data), bound(data), generation);
+                        write(entry, key ^ data);
+                        write(entry + 1, data);
+                    }
+                    return;
+                }
+                replace = entry;
+                break;
+            }
+            int age = (generation - generation(data)) & GENERATION_MASK;
+            int value = depth(data) - AGE_PENALTY * age;
+            if(value < worst){
+                worst = value;
+                replace = entry;
+            }
+        }
+        long data = pack(move, score, depth, bound, generation);
+        write(replace, key ^ data);
+        write(replace + 1, data);
+    }
+
+    /**
+     * Starts a new search, entries of older searches are replaced first
+     */
+    public void newSearch(){
+        generation = (generation + 1) & GENERATION_MASK;
+    }
+
+    /**
+     * @return the generation of the current search, see {@link #newSearch()}
+     */
+    protected int currentGeneration(){
+        return generation;
+    }
+
+    /**
+     * Continues with the generation of an earlier search, eg. of a table that was saved
+     */
+    protected void setGeneration(int generation){
+        this.generation = generation & GENERATION_MASK;
+    }
+
+    /**
+     * Empties the table, for a new game, large tables are cleared by all cores
+     */
+    public void clear(){
+        long size = capacity() * ENTRY_SIZE;
+        LongStream.range(0, (size + CLEAR_BLOCK - 1) / CLEAR_BLOCK).parallel()
+                .forEach(block -> clearRange(block * CLEAR_BLOCK, Math.min(size, (block + 1) * CLEAR_BLOCK)));
+        generation = 0;
+    }
+
+    /**
+     * @return the permille of the first thousand entries that were stored by the current search
+     */
+    public int hashfull(){
+        int entries = (int)Math.min(1000, capacity());
+        int used = 0;
+        for(int i = 0; i < entries; i++){
+            long data = read((long)i * ENTRY_SIZE + 1);
+            if(data != 0 && generation(data) == generation){
+                used++;
+            }
+        }
+        return used * 1000 / entries;
+    }
+
+    /**
+     * @return the number of entries of the table
+     */
+    public long capacity(){
+        return (bucketMask + 1) * BUCKET_ENTRIES;
+    }
+
+    /**
+     * Packs the fields of an entry into one long
+     */
+    static long pack(int move, int score, int depth, int bound, int generation){
+        return (move & 0xFFFFFFFFL)
+                | (score & 0xFFFFL) << SCORE_SHIFT
+                | (long)(depth & 0xFF) << DEPTH_SHIFT
+                | (long)bound << BOUND_SHIFT
+                | (long)generation << GENERATION_SHIFT;
+    }
+
+    public static int move(long data){
+        return (int)data;
+    }
+
+    public static int score(long data){
+        return (short)(data >>> SCORE_SHIFT);
+    }
+
+    public static int depth(long data){
+        return (int)(data >>> DEPTH_SHIFT) & 0xFF;
+    }
+
+    public static int bound(long data){
+        return (int)(data >>> BOUND_SHIFT) & 3;
+    }
+
+    static int generation(long data){
+        return (int)(data >>> GENERATION_SHIFT) & GENERATION_MASK;
+    }
+}
@@ -0,0 +1,179 @@
+package edu.sfu.os.chess;
+
+/**
+ * Zobrist keys, a 64 bit hash of a position built by xoring one random number per feature of the position.
+ *
+ * The features are the piece on every square, black to move, the four castling rights and the file of a pawn that can be
+ * taken en passant. Two positions with the same legal moves and the same future get the same key, so the castling rights
+ * are derived from {@link Board#castleCheck} and the en passant file is only included if an enemy pawn could take it.
+ *
+ * The numbers come from a fixed seed, so a key is the same in every run.
+ *
+ * {@link Board#key} is kept up to date by {@link Board#makeMove(int)} with {@link #moveKey(int)} and the other helpers
+ * here, {@link #key(Board, int)} computes it from scratch when a position is set up and to check the incremental key.
+ */
+public final class Zobrist {
+
+    // Indexed by piece code and square
+    public static final long[][] PIECE_SQUARE = new long[12][64];
+    // Xored in when black is to move
+    public static final long BLACK_TO_MOVE;
+    // Indexed by a bitmask of the castling rights that are left, see castleRights
+    public static final long[] CASTLE_RIGHTS = new long[16];
+    public static final long[] EN_PASSANT_FILE = new long[8];
+
+    // Castling masks in the order of the bits of castleRights
+    private static final long[] CASTLE_MASKS = {BitMasks.W_K_Castle, BitMasks.W_Q_Castle, BitMasks.B_K_Castle, BitMasks.B_Q_Castle};
+    // Squares of the kings and rooks that castle, the rights only change when a move touches one of them
+    public static final long CASTLE_SQUARES = BitMasks.W_K_Castle | BitMasks.W_Q_Castle | BitMasks.B_K_Castle | BitMasks.B_Q_Castle;
+
+    private static long seed = 0x3C6EF372FE94F82AL;
+
+    static{
+        for(int piece = Piece.WP; piece <= Piece.BK; piece++){
+            for(int square = 0; square < 64; square++){
+                PIECE_SQUARE[piece][square] = nextRandom();
+            }
+        }
+        BLACK_TO_MOVE = nextRandom();
+        long[] rights = new long[CASTLE_MASKS.length];
+        for(int i = 0; i < rights.length; i++){
+            rights[i] = nextRandom();
+        }
+        // One key per combination, so the rights can be changed with a single xor
+        for(int combination = 0; combination < CASTLE_RIGHTS.length; combination++){
+            for(int i = 0; i < rights.length; i++){
+                if((combination & 1 << i) != 0){
+                    CASTLE_RIGHTS[combination] ^= rights[i];
+                }
+            }
+        }
+        for(int file = 0; file < EN_PASSANT_FILE.length; file++){
+            EN_PASSANT_FILE[file] = nextRandom();
+        }
+    }
+
+    private Zobrist(){}
+
+    /**
+     * SplitMix64, small and good enough to fill the key tables
+     */
+    private static long nextRandom(){
+        long z = (seed += 0x9E3779B97F4A7C15L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Given a Chess Board and the side to move, computes its key from scratch
+     *
+     * @param currentPosition a Chess Board
+     * @param colour the side to move
+     *
+     * @return the Zobrist key of the position
+     */
+    public static long key(Board currentPosition, int colour){
+        long key = 0L;
+        for(int piece = Piece.WP; piece <= Piece.BK; piece++){
+            long bb = currentPosition.pieces[piece];
+            while(bb != 0){
+                key ^= PIECE_SQUARE[piece][Long.numberOfTrailingZeros(bb)];
+                bb &= bb - 1;
+            }
+        }
+        if(colour == Piece.BLACK){
+            key ^= BLACK_TO_MOVE;
+        }
+        key ^= CASTLE_RIGHTS[castleRights(currentPosition)];
+        int file = enPassantFile(currentPosition, colour);
+        if(file >= 0){
+            key ^= EN_PASSANT_FILE[file];
+        }
+        return key;
+    }
+
+    /**
+     * @param currentPosition a Chess Board
+     * @return a bitmask of the castling rights left, bit 0 white king side, 1 white queen side, 2 black king side, 3 black queen side
+     */
+    public static int castleRights(Board currentPosition){
+        return castleRights(currentPosition.castleCheck);
+    }
+
+    /**
+     * @param castleCheck the castling state, see {@link Board#castleCheck}
+     * @return a bitmask of the castling rights left, see {@link #castleRights(Board)}
+     */
+    public static int castleRights(long castleCheck){
+        int rights = 0;
+        for(int i = 0; i < CASTLE_MASKS.length; i++){
+            if((castleCheck & CASTLE_MASKS[i]) == 0){
+                rights |= 1 << i;
+            }
+        }
+        return rights;
+    }
+
+    /**
+     * Given a Chess Board, returns the file of the pawn that can be taken en passant
+     *
+     * @param currentPosition a Chess Board
+     * @param colour the side to move
+     *
+     * @return the file of the pawn, 0 for file A, or -1 if no own pawn could take a pawn en passant
+     */
+    public static int enPassantFile(Board currentPosition, int colour){
+        long enPassant = Moves.enPassantPawn(currentPosition, colour);
+        if(enPassant == 0){
+            return -1;
+        }
+        // An own pawn has to stand right next to it
+        long neighbours = ((enPassant << 1) & ~BitMasks.FILE_A) | ((enPassant >>> 1) & ~BitMasks.FILE_H);
+        if((neighbours & currentPosition.pieces[Piece.of(colour, Piece.PAWN)]) == 0){
+            return -1;
+        }
+        return Long.numberOfTrailingZeros(enPassant) % 8;
+    }
+
+    /**
+     * Given a packed move, returns the change of the piece keys, the pieces that leave and enter squares
+     *
+     * @param move a packed move
+     *
+     * @return the xor of the piece keys that change, the side, castling and en passant keys are not included
+     */
+    public static long moveKey(int move){
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int piece = Move.piece(move);
+        int captured = Move.captured(move);
+        long key = PIECE_SQUARE[piece][from];
+        switch(Move.flag(move)){
+            case Move.EN_PASSANT -> key ^= PIECE_SQUARE[piece][to] ^ PIECE_SQUARE[captured][Move.enPassantCaptureSquare(move)];
+            case Move.CASTLE -> {
+                long rookMove = Move.castleRookMove(move);
+                int rook = Piece.of(Piece.colour(piece), Piece.ROOK);
+                key ^= PIECE_SQUARE[piece][to]
+                        ^ PIECE_SQUARE[rook][Long.numberOfTrailingZeros(rookMove)]
+                        ^ PIECE_SQUARE[rook][63 - Long.numberOfLeadingZeros(rookMove)];
+            }
+            case Move.PROMOTION -> key ^= PIECE_SQUARE[Move.promotion(move)][to];
+            default -> key ^= PIECE_SQUARE[piece][to];
+        }
+        if(captured != Piece.EMPTY && Move.flag(move) != Move.EN_PASSANT){
+            key ^= PIECE_SQUARE[captured][to];
+        }
+        return key;
+    }
+
+    /**
+     * @param currentPosition a Chess Board
+     * @param colour the side to move
+     * @return the en passant key of the position, 0 if no pawn can be taken en passant
+     */
+    public static long enPassantKey(Board currentPosition, int colour){
+        int file = enPassantFile(currentPosition, colour);
+        return file >= 0 ? EN_PASSANT_FILE[file] : 0L;
+    }
+}
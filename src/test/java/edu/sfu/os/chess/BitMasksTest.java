@@ -0,0 +1,100 @@
+package edu.sfu.os.chess;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit test for BitMasks
+ */
+public class BitMasksTest {
+
+    /**
+     * This is run before running other tests
+     */
+    @Before
+    public void setUpBeforeTest(){
+        BitMasks.initBitMasks();
+    }
+
+    /**
+     * Walks every ray from a square until it leaves the board or hits a piece
+     */
+    private static long slowAttacks(int index, long occupied, int[][] directions){
+        long attacks = 0L;
+        int file = index % 8;
+        int rank = index / 8;
+        for(int[] d : directions){
+            int f = file + d[0];
+            int r = rank + d[1];
+            while(f >= 0 && f < 8 && r >= 0 && r < 8){
+                long square = 1L << (r * 8 + f);
+                attacks |= square;
+                if((occupied & square) != 0){
+                    break;
+                }
+                f += d[0];
+                r += d[1];
+            }
+        }
+        return attacks;
+    }
+
+    @Test
+    public void testMagicAttacksMatchRayWalk(){
+        int[][] rookDirections = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+        int[][] bishopDirections = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+        Random random = new Random(42);
+        for(int i = 0; i < 64; i++){
+            for(int j = 0; j < 200; j++){
+                long occupied = random.nextLong() & random.nextLong();
+                assertEquals(slowAttacks(i, occupied, rookDirections), BitMasks.rookAttacks(i, occupied));
+                assertEquals(slowAttacks(i, occupied, bishopDirections), BitMasks.bishopAttacks(i, occupied));
+            }
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCollidingMagicIsRejected(){
+        long[] magics = BitMasks.BISHOP_MAGIC.clone();
+        // Maps every occupancy of a8 to the same entry
+        magics[0] = 0L;
+        BitMasks.buildAttackTable(BitMasks.BISHOP_MASK, false, magics, new int[64], new int[64]);
+    }
+
+    @Test
+    public void testQueenAttacksOnEmptyBoard(){
+        // d4 sees 27 squares on an empty board
+        assertEquals(27, Long.bitCount(BitMasks.queenAttacks(35, 0L)));
+        // a8 rook sees its rank and file
+        assertEquals(BitMasks.RANK_8 ^ 1L | BitMasks.FILE_A ^ 1L, BitMasks.rookAttacks(0, 0L));
+    }
+
+    @Test
+    public void testLeaperAttacks(){
+        // a8 corner, knight reaches b6 and c7, king reaches b8, a7 and b7
+        assertEquals(1L << 17 | 1L << 10, BitMasks.KNIGHT_ATTACKS[0]);
+        assertEquals(1L << 1 | 1L << 8 | 1L << 9, BitMasks.KING_ATTACKS[0]);
+        // d4 in the middle of the board
+        assertEquals(8, Long.bitCount(BitMasks.KNIGHT_ATTACKS[35]));
+        assertEquals(8, Long.bitCount(BitMasks.KING_ATTACKS[35]));
+        // a white pawn on e2 attacks d3 and f3, a black pawn on h7 attacks g6 only
+        assertEquals(1L << 43 | 1L << 45, BitMasks.PAWN_ATTACKS[0][52]);
+        assertEquals(1L << 22, BitMasks.PAWN_ATTACKS[1][15]);
+    }
+
+    @Test
+    public void testBetweenAndLine(){
+        // a8 and h1 share the long diagonal
+        assertEquals(6, Long.bitCount(BitMasks.BETWEEN[0][63]));
+        assertEquals(8, Long.bitCount(BitMasks.LINE[0][63]));
+        // neighbours have nothing between them
+        assertEquals(0L, BitMasks.BETWEEN[0][1]);
+        assertEquals(BitMasks.RANK_8, BitMasks.LINE[0][1]);
+        // a knight jump is not a line
+        assertEquals(0L, BitMasks.LINE[0][17]);
+    }
+}
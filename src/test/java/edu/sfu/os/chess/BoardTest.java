@@ -0,0 +1,115 @@
+package edu.sfu.os.chess;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit test for Board
+ */
+public class BoardTest {
+
+    /**
+     * This is run before running other tests
+     */
+    @Before
+    public void setUpBeforeTest(){
+        BitMasks.initBitMasks();
+    }
+
+    private static Board kiwipete(){
+        String[][] chessBoard ={
+                {"r"," "," "," ","k"," "," ","r"},
+                {"p"," ","p","p","q","p","b"," "},
+                {"b","n"," "," ","p","n","p"," "},
+                {" "," "," ","P","N"," "," "," "},
+                {" ","p"," "," ","P"," "," "," "},
+                {" "," ","N"," "," ","Q"," ","p"},
+                {"P","P","P","B","B","P","P","P"},
+                {"R"," "," "," ","K"," "," ","R"}};
+        return BoardGeneration.arrayToBitboards(chessBoard);
+    }
+
+    private static void assertSameBoard(Board expected, Board actual){
+        assertArrayEquals(expected.pieces, actual.pieces);
+        assertArrayEquals(expected.occupancy, actual.occupancy);
+        assertEquals(expected.allPieces, actual.allPieces);
+        assertArrayEquals(expected.mailbox, actual.mailbox);
+        assertEquals(expected.lastMove, actual.lastMove);
+        assertEquals(expected.castleCheck, actual.castleCheck);
+        assertEquals(expected.key, actual.key);
+    }
+
+    @Test
+    public void testMakeMatchesCopyMake(){
+        Board currentPosition = kiwipete();
+        int[] moveBuffer = new int[Moves.MAX_MOVES];
+        int count = Moves.generateAllMoves(currentPosition, Piece.WHITE, moveBuffer);
+        for(int i = 0; i < count; i++){
+            Board expected = Moves.makeMove(currentPosition, moveBuffer[i]);
+            Board board = new Board(currentPosition);
+            board.makeMove(moveBuffer[i]);
+            assertSameBoard(expected, board);
+            assertIncrementalState(board);
+        }
+    }
+
+    /**
+     * The incrementally updated occupancy and mailbox match ones recomputed from the piece bitboards
+     */
+    private static void assertIncrementalState(Board board){
+        Board recomputed = new Board(board.pieces);
+        assertArrayEquals(recomputed.occupancy, board.occupancy);
+        assertEquals(recomputed.allPieces, board.allPieces);
+        assertArrayEquals(recomputed.mailbox, board.mailbox);
+    }
+
+    @Test
+    public void testUnmakeRestoresBoard(){
+        Board currentPosition = kiwipete();
+        Board original = new Board(currentPosition);
+        int[] whiteMoves = new int[Moves.MAX_MOVES];
+        int[] blackMoves = new int[Moves.MAX_MOVES];
+        int whiteCount = Moves.generateAllMoves(currentPosition, Piece.WHITE, whiteMoves);
+        for(int i = 0; i < whiteCount; i++){
+            currentPosition.makeMove(whiteMoves[i]);
+            Board afterWhite = new Board(currentPosition);
+            int blackCount = Moves.generateAllMoves(currentPosition, Piece.BLACK, blackMoves);
+            for(int j = 0; j < blackCount; j++){
+                currentPosition.makeMove(blackMoves[j]);
+                assertEquals(2, currentPosition.getUndoCount());
+                assertIncrementalState(currentPosition);
+                currentPosition.unmakeMove();
+                assertSameBoard(afterWhite, currentPosition);
+            }
+            currentPosition.unmakeMove();
+            assertSameBoard(original, currentPosition);
+        }
+        assertEquals(0, currentPosition.getUndoCount());
+    }
+
+    @Test
+    public void testFullUndoStack(){
+        Board currentPosition = kiwipete();
+        int knight = Piece.of(Piece.WHITE, Piece.KNIGHT);
+        // The c3 knight goes to b1 and back
+        int out = Move.encode(42, 57, knight, Piece.EMPTY, Piece.EMPTY, Move.NORMAL);
+        int back = Move.encode(57, 42, knight, Piece.EMPTY, Piece.EMPTY, Move.NORMAL);
+        for(int i = 0; i < Board.MAX_UNDO; i++){
+            currentPosition.makeMove(i % 2 == 0 ? out : back);
+        }
+        Board full = new Board(currentPosition);
+        try{
+            currentPosition.makeMove(out);
+            fail("expected IllegalStateException");
+        }
+        catch(IllegalStateException e){
+            // expected
+        }
+        assertEquals(Board.MAX_UNDO, currentPosition.getUndoCount());
+        assertSameBoard(full, currentPosition);
+    }
+}
@@ -0,0 +1,69 @@
+package edu.sfu.os.chess;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit test for DeterministicSearch
+ */
+public class DeterministicSearchTest {
+
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -";
+
+    /**
+     * This is run before running other tests
+     */
+    @Before
+    public void setUpBeforeTest(){
+        BitMasks.initBitMasks();
+    }
+
+    private static SearchResult search(DeterministicSearch search, String fen, int depth){
+        FENParser parser = new FENParser(fen);
+        return search.search(parser.getBitboards(), parser.getSideToMove(), depth);
+    }
+
+    @Test
+    public void testMateInTwo(){
+        SearchResult result = search(new DeterministicSearch(16, 3), "r2qkb1r/pp2nppp/3p4/2pNN1B1/2BnP3/3P4/PPP2PPP/R2bK2R w KQkq - 1 0", 4);
+        assertEquals("d5f6", Move.toString(result.bestMove));
+        assertEquals(Search.MATE - 3, result.score);
+        assertEquals(3, result.pv.length);
+    }
+
+    @Test
+    public void testNoMoves(){
+        SearchResult result = search(new DeterministicSearch(1, 2), "rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 1 3", 3);
+        assertEquals(Move.NONE, result.bestMove);
+        assertEquals(-Search.MATE, result.score);
+    }
+
+    @Test
+    public void testRepeatable(){
+        for(int threads = 1; threads <= 4; threads += 3){
+            SearchResult first = search(new DeterministicSearch(16, threads), KIWIPETE, 5);
+            DeterministicSearch search = new DeterministicSearch(16, threads);
+            for(int run = 0; run < 2; run++){
+                // The same search object twice, the tables are cleared in between
+                SearchResult result = search(search, KIWIPETE, 5);
+                assertEquals(first.bestMove, result.bestMove);
+                assertEquals(first.score, result.score);
+                assertArrayEquals(first.pv, result.pv);
+                assertEquals(first.nodes, result.nodes);
+                assertEquals(6, search.timeToDepth().length);
+            }
+        }
+    }
+
+    @Test
+    public void testSameScoreAsSearch(){
+        // The mate is found whatever the order the threads search the moves in
+        FENParser parser = new FENParser("r2qkb1r/pp2nppp/3p4/2pNN1B1/2BnP3/3P4/PPP2PPP/R2bK2R w KQkq - 1 0");
+        SearchResult single = new Search(new TranspositionTable(16)).search(parser.getBitboards(), parser.getSideToMove(), SearchLimits.depth(3));
+        SearchResult parallel = new DeterministicSearch(16, 4).search(parser.getBitboards(), parser.getSideToMove(), 3);
+        assertEquals(single.score, parallel.score);
+    }
+}
@@ -0,0 +1,85 @@
+package edu.sfu.os.chess;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit test for the Engine command line
+ */
+public class EngineTest {
+
+    // Nf6+ gxf6 Bxf7#
+    private static final String MATE_IN_TWO = "r2qkb1r/pp2nppp/3p4/2pNN1B1/2BnP3/3P4/PPP2PPP/R2bK2R w KQkq - 1 0";
+
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    private final PrintStream out = new PrintStream(output, true);
+
+    @Test
+    public void testSearch(){
+        assertEquals(Engine.EXIT_OK, Engine.run(new String[]{"--depth", "4", "--fen", MATE_IN_TWO, "--hash", "1"}, out));
+        assertTrue(output.toString().contains("bestmove d5f6"));
+    }
+
+    @Test
+    public void testBoard(){
+        assertEquals(Engine.EXIT_OK, Engine.run(new String[]{"--depth", "1", "--fen", MATE_IN_TWO, "--hash", "1"}, out));
+        assertFalse(output.toString().contains("[r,  ,  , q, k, b,  , r]"));
+        // Only drawn when asked for, and on the given stream
+        assertEquals(Engine.EXIT_OK, Engine.run(new String[]{"--depth", "1", "--fen", MATE_IN_TWO, "--hash", "1", "--board"}, out));
+        assertTrue(output.toString().contains("[r,  ,  , q, k, b,  , r]"));
+    }
+
+    @Test
+    public void testOffHeap(){
+        assertEquals(Engine.EXIT_OK, Engine.run(new String[]{"--depth", "4", "--fen", MATE_IN_TWO, "--hash", "4", "--off-heap", "--threads", "2"}, out));
+        assertTrue(output.toString().contains("bestmove d5f6"));
+        assertTrue(output.toString().contains("timetodepth"));
+        assertEquals(Engine.EXIT_OK, Engine.run(new String[]{"--depth", "4", "--fen", MATE_IN_TWO, "--hash", "4", "--large-pages", "--threads", "2", "--deterministic"}, out));
+        assertTrue(output.toString().contains("bestmove d5f6"));
+    }
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testHashFile() throws Exception{
+        String file = folder.getRoot().toPath().resolve("engine.tt").toString();
+        String[] args = {"--depth", "4", "--fen", MATE_IN_TWO, "--hash", "1", "--hash-file", file};
+        assertEquals(Engine.EXIT_OK, Engine.run(args, out));
+        assertTrue(output.toString().contains("hash file " + file + " cold"));
+        assertTrue(output.toString().contains("bestmove d5f6"));
+        assertTrue(Files.size(folder.getRoot().toPath().resolve("engine.tt")) > 1024 * 1024);
+
+        // The second run maps the entries of the first one back
+        output.reset();
+        assertEquals(Engine.EXIT_OK, Engine.run(args, out));
+        assertTrue(output.toString().contains("hash file " + file + " warm"));
+        assertTrue(output.toString().contains("bestmove d5f6"));
+
+        assertEquals(Engine.EXIT_USAGE, Engine.run(new String[]{"--hash-file", file, "--deterministic"}, out));
+    }
+
+    @Test
+    public void testTableKinds(){
+        assertEquals(TranspositionTable.class, Engine.newTable(1, false, false).getClass());
+        assertEquals(OffHeapTranspositionTable.class, Engine.newTable(1, true, false).getClass());
+        assertEquals(OffHeapTranspositionTable.class, Engine.newTable(1, false, true).getClass());
+    }
+
+    @Test
+    public void testUsage(){
+        assertEquals(Engine.EXIT_USAGE, Engine.run(new String[]{"--hash"}, out));
+        assertEquals(Engine.EXIT_USAGE, Engine.run(new String[]{"--hash", "0"}, out));
+        assertEquals(Engine.EXIT_USAGE, Engine.run(new String[]{"--bogus"}, out));
+        assertTrue(output.toString().contains("usage: Engine"));
+    }
+}
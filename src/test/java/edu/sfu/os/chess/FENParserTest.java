@@ -5,7 +5,6 @@ import org.junit.Test;
 import static org.junit.Assert.*;
 
 /**Unit test for FENParser.
- * Currently not testing side, castling and en passant due to the methods being placeholder
  */
 public class FENParserTest {
 
@@ -14,18 +13,18 @@ public class FENParserTest {
         String fenString = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
         FENParser parser = new FENParser(fenString);
         Board bitboards = parser.getBitboards();
-        assertEquals(71776119061217280L,bitboards.WP);
-        assertEquals(4755801206503243776L,bitboards.WN);
-        assertEquals(2594073385365405696L,bitboards.WB);
-        assertEquals(-9151314442816847872L,bitboards.WR);
-        assertEquals(576460752303423488L, bitboards.WQ);
-        assertEquals(1152921504606846976L,bitboards.WK);
-        assertEquals(65280,bitboards.BP);
-        assertEquals(66,bitboards.BN);
-        assertEquals(36,bitboards.BB);
-        assertEquals(129,bitboards.BR);
-        assertEquals(8, bitboards.BQ);
-        assertEquals(16,bitboards.BK);
+        assertEquals(71776119061217280L,bitboards.pieces[Piece.WP]);
+        assertEquals(4755801206503243776L,bitboards.pieces[Piece.WN]);
+        assertEquals(2594073385365405696L,bitboards.pieces[Piece.WB]);
+        assertEquals(-9151314442816847872L,bitboards.pieces[Piece.WR]);
+        assertEquals(576460752303423488L, bitboards.pieces[Piece.WQ]);
+        assertEquals(1152921504606846976L,bitboards.pieces[Piece.WK]);
+        assertEquals(65280,bitboards.pieces[Piece.BP]);
+        assertEquals(66,bitboards.pieces[Piece.BN]);
+        assertEquals(36,bitboards.pieces[Piece.BB]);
+        assertEquals(129,bitboards.pieces[Piece.BR]);
+        assertEquals(8, bitboards.pieces[Piece.BQ]);
+        assertEquals(16,bitboards.pieces[Piece.BK]);
         long[] expectedBitBoards = {71776119061217280L, 4755801206503243776L, 2594073385365405696L, -9151314442816847872L
                 , 576460752303423488L, 1152921504606846976L, 65280, 66, 36, 129, 8, 16 };
     }
@@ -83,18 +82,18 @@ public class FENParserTest {
         String fenString = "b1k2rn1/4q3/3p4/p4p2/2P2P1R/PRBP2N1/4PK2/2Q5 b - f4 10 30";
         FENParser parser = new FENParser(fenString);
         Board bitboards = parser.getBitboards();
-        assertEquals(4513649850843136L,bitboards.WP);
-        assertEquals(70368744177664L,bitboards.WN);
-        assertEquals(4398046511104L,bitboards.WB);
-        assertEquals(2748779069440L,bitboards.WR);
-        assertEquals(288230376151711744L, bitboards.WQ);
-        assertEquals(9007199254740992L,bitboards.WK);
-        assertEquals(554172416,bitboards.BP);
-        assertEquals(64,bitboards.BN);
-        assertEquals(1,bitboards.BB);
-        assertEquals(32,bitboards.BR);
-        assertEquals(4096, bitboards.BQ);
-        assertEquals(4,bitboards.BK);
+        assertEquals(4513649850843136L,bitboards.pieces[Piece.WP]);
+        assertEquals(70368744177664L,bitboards.pieces[Piece.WN]);
+        assertEquals(4398046511104L,bitboards.pieces[Piece.WB]);
+        assertEquals(2748779069440L,bitboards.pieces[Piece.WR]);
+        assertEquals(288230376151711744L, bitboards.pieces[Piece.WQ]);
+        assertEquals(9007199254740992L,bitboards.pieces[Piece.WK]);
+        assertEquals(554172416,bitboards.pieces[Piece.BP]);
+        assertEquals(64,bitboards.pieces[Piece.BN]);
+        assertEquals(1,bitboards.pieces[Piece.BB]);
+        assertEquals(32,bitboards.pieces[Piece.BR]);
+        assertEquals(4096, bitboards.pieces[Piece.BQ]);
+        assertEquals(4,bitboards.pieces[Piece.BK]);
         long[] expectedBitBoards = {4513649850843136L, 70368744177664L, 4398046511104L, 2748779069440L
                 , 288230376151711744L, 9007199254740992L, 554172416, 64, 1, 32, 4096, 4 };
     }
@@ -146,4 +145,41 @@ public class FENParserTest {
         String enPassant = parser.getEnPassant();
         assertEquals("f4",enPassant);
     }
+
+    @Test
+    public void testCastleCheck() {
+        assertEquals(0L, new FENParser("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1").getBitboards().castleCheck);
+        // Only white king side and black queen side left
+        Board bitboards = new FENParser("r3k2r/8/8/8/8/8/8/R3K2R w Kq - 0 1").getBitboards();
+        assertEquals(1L << 56 | 1L << 7, bitboards.castleCheck);
+        assertEquals(0L, bitboards.castleCheck & BitMasks.W_K_Castle);
+        assertEquals(0L, bitboards.castleCheck & BitMasks.B_Q_Castle);
+        assertNotEquals(0L, bitboards.castleCheck & BitMasks.W_Q_Castle);
+        assertNotEquals(0L, bitboards.castleCheck & BitMasks.B_K_Castle);
+    }
+
+    @Test
+    public void testEnPassantMove() {
+        // White pawn e2-e4, black can take it from d4
+        Board bitboards = new FENParser("4k3/8/8/8/3pP3/8/8/4K3 b - e3 0 1").getBitboards();
+        assertEquals(1L << 52 | 1L << 36, bitboards.lastMove);
+        // Black pawn d7-d5, white can take it from e5
+        bitboards = new FENParser("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 2").getBitboards();
+        assertEquals(1L << 11 | 1L << 27, bitboards.lastMove);
+        assertEquals(0L, new FENParser("4k3/8/8/8/8/8/8/4K3 w - - 0 1").getBitboards().lastMove);
+    }
+
+    @Test
+    public void testSideToMove() {
+        assertEquals(Piece.WHITE, new FENParser("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1").getSideToMove());
+        assertEquals(Piece.BLACK, new FENParser("b1k2rn1/4q3/3p4/p4p2/2P2P1R/PRBP2N1/4PK2/2Q5 b - f4 10 30").getSideToMove());
+    }
+
+    @Test
+    public void testWithoutMoveCounters() {
+        FENParser parser = new FENParser("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -");
+        assertEquals(0, parser.getHalfmoveClock());
+        assertEquals(1, parser.getFullmoveCounter());
+        assertEquals(Piece.WHITE, parser.getSideToMove());
+    }
 }
@@ -0,0 +1,93 @@
+package edu.sfu.os.chess;
+
+
+/** Microbenchmark of the knight and king move generators and the king safety functions.
+ * Also times the shift-and-mask attack sets against the lookups in {@link BitMasks}, so the two can be compared on one machine.
+ * Run the main method, a few warmup rounds are done before timing so the JIT has compiled the code.
+ */
+public class LeaperBenchmark {
+
+    static final String[] POSITIONS = {
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "r2q1rk1/pP1p2pp/Q4n2/bbp1p3/Np6/1B3NBn/pPPP1PPP/R3K2R b KQ - 0 1",
+            "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8"
+    };
+    static final int ROUNDS = 5;
+    static final int ITERATIONS = 2000000;
+
+    public static void main( String[] args ) {
+        BitMasks.initBitMasks();
+        Board[] boards = new Board[POSITIONS.length];
+        for (int i = 0; i < POSITIONS.length; i++) {
+            boards[i] = new FENParser(POSITIONS[i]).getBitboards();
+        }
+        int[] moveBuffer = new int[Moves.MAX_MOVES];
+
+        for (int round = 0; round < ROUNDS; round++) {
+            long sink = 0;
+
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                Board board = boards[i % boards.length];
+                sink += Moves.generatePieceMoves(board, Piece.WHITE, Piece.KNIGHT, moveBuffer, 0);
+                sink += Moves.generatePieceMoves(board, Piece.BLACK, Piece.KNIGHT, moveBuffer, 0);
+                sink += Moves.generateKingMoves(board, Piece.WHITE, moveBuffer, 0);
+                sink += Moves.generateKingMoves(board, Piece.BLACK, moveBuffer, 0);
+            }
+            long generators = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                Board board = boards[i % boards.length];
+                sink += Moves.kingSafety(board, Piece.WHITE) ^ Moves.kingSafety(board, Piece.BLACK);
+            }
+            long kingSafety = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                int square = i & 63;
+                sink += knightAttacksByShift(1L << square) ^ kingAttacksByShift(1L << square);
+            }
+            long shifts = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                int square = i & 63;
+                sink += BitMasks.KNIGHT_ATTACKS[square] ^ BitMasks.KING_ATTACKS[square];
+            }
+            long lookups = System.nanoTime() - start;
+
+            System.out.println("round " + round
+                    + ": generators " + generators / ITERATIONS + " ns/position"
+                    + ", king safety " + kingSafety / ITERATIONS + " ns/position"
+                    + ", shift attacks " + shifts * 1000 / ITERATIONS + " ps/square"
+                    + ", table attacks " + lookups * 1000 / ITERATIONS + " ps/square"
+                    + " (" + (sink & 1) + ")");
+        }
+    }
+
+    // The shift-and-mask attack sets the generators used before the tables
+    static long knightAttacksByShift(long knights){
+        return (knights >>> 15 & ~BitMasks.FILE_A)
+                | (knights >>> 6 & ~BitMasks.FILE_AB)
+                | (knights << 10 & ~BitMasks.FILE_AB)
+                | (knights << 17 & ~BitMasks.FILE_A)
+                | (knights << 15 & ~BitMasks.FILE_H)
+                | (knights << 6 & ~BitMasks.FILE_GH)
+                | (knights >>> 10 & ~BitMasks.FILE_GH)
+                | (knights >>> 17 & ~BitMasks.FILE_H);
+    }
+
+    static long kingAttacksByShift(long kings){
+        return (kings >>> 9 & ~BitMasks.FILE_H)
+                | (kings >>> 8)
+                | (kings >>> 7 & ~BitMasks.FILE_A)
+                | (kings >>> 1 & ~BitMasks.FILE_H)
+                | (kings << 1 & ~BitMasks.FILE_A)
+                | (kings << 7 & ~BitMasks.FILE_H)
+                | (kings << 8)
+                | (kings << 9 & ~BitMasks.FILE_A);
+    }
+}
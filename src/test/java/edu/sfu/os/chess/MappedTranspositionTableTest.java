@@ -0,0 +1,81 @@
+package edu.sfu.os.chess;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit test for MappedTranspositionTable, runs the tests of TranspositionTable on a table in a file
+ */
+public class MappedTranspositionTableTest extends TranspositionTableTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * @return a table of 1 MB in 32 mappings, so the tests cross from one mapping to the next
+     */
+    @Override
+    protected TranspositionTable newTable(){
+        try{
+            return MappedTranspositionTable.open(folder.newFile().toPath(), 1, 12);
+        }
+        catch(IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Test
+    public void testWarmStart() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("tt.bin");
+        try(MappedTranspositionTable table = MappedTranspositionTable.open(file, 1, 12)){
+            assertFalse(table.isWarm());
+            table.newSearch();
+            table.store(42L, MOVE, -300, 9, TranspositionTable.LOWER);
+        }
+
+        try(MappedTranspositionTable table = MappedTranspositionTable.open(file, 1, 12)){
+            assertTrue(table.isWarm());
+            long data = table.probe(42L);
+            assertEquals(MOVE, TranspositionTable.move(data));
+            assertEquals(-300, TranspositionTable.score(data));
+            assertEquals(9, TranspositionTable.depth(data));
+            assertEquals(TranspositionTable.LOWER, TranspositionTable.bound(data));
+            // The generation is kept, the entry belongs to the current search
+            assertEquals(1, table.currentGeneration());
+        }
+
+        // Another size does not fit the stored entries
+        try(MappedTranspositionTable table = MappedTranspositionTable.open(file, 2, 12)){
+            assertFalse(table.isWarm());
+            assertEquals(0L, table.probe(42L));
+        }
+    }
+
+    @Test
+    public void testVersionMismatch() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("tt.bin");
+        try(MappedTranspositionTable table = MappedTranspositionTable.open(file, 1, 12)){
+            table.store(42L, MOVE, 1, 1, TranspositionTable.EXACT);
+        }
+        // Overwrite the version field
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)){
+            channel.write(ByteBuffer.allocate(4).putInt(0, -1), 8);
+        }
+        try(MappedTranspositionTable table = MappedTranspositionTable.open(file, 1, 12)){
+            assertFalse(table.isWarm());
+            assertEquals(0L, table.probe(42L));
+        }
+    }
+}
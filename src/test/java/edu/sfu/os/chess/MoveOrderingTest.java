@@ -0,0 +1,71 @@
+package edu.sfu.os.chess;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit test for MoveOrdering
+ */
+public class MoveOrderingTest {
+
+    private static final int E2E4 = Move.encode(52, 36, Piece.WP, Piece.EMPTY, Piece.EMPTY, Move.DOUBLE_PUSH);
+    private static final int G1F3 = Move.encode(62, 45, Piece.WN, Piece.EMPTY, Piece.EMPTY, Move.NORMAL);
+    private static final int B1C3 = Move.encode(57, 42, Piece.WN, Piece.EMPTY, Piece.EMPTY, Move.NORMAL);
+    private static final int E7E5 = Move.encode(12, 28, Piece.BP, Piece.EMPTY, Piece.EMPTY, Move.DOUBLE_PUSH);
+
+    @Test
+    public void testKillers(){
+        MoveOrdering ordering = new MoveOrdering();
+        assertEquals(Move.NONE, ordering.killer(3, 0));
+        ordering.update(3, Piece.WHITE, G1F3, Move.NONE, 2, new int[0], 0);
+        ordering.update(3, Piece.WHITE, B1C3, Move.NONE, 2, new int[0], 0);
+        assertEquals(B1C3, ordering.killer(3, 0));
+        assertEquals(G1F3, ordering.killer(3, 1));
+        // The same killer again does not push the other one out
+        ordering.update(3, Piece.WHITE, B1C3, Move.NONE, 2, new int[0], 0);
+        assertEquals(G1F3, ordering.killer(3, 1));
+        assertEquals(Move.NONE, ordering.killer(4, 0));
+    }
+
+    @Test
+    public void testCounterMoves(){
+        MoveOrdering ordering = new MoveOrdering();
+        assertEquals(Move.NONE, ordering.counterMove(E7E5));
+        assertEquals(Move.NONE, ordering.counterMove(Move.NONE));
+        ordering.update(1, Piece.WHITE, G1F3, E7E5, 2, new int[0], 0);
+        assertEquals(G1F3, ordering.counterMove(E7E5));
+        ordering.clear();
+        assertEquals(Move.NONE, ordering.counterMove(E7E5));
+    }
+
+    @Test
+    public void testHistory(){
+        MoveOrdering ordering = new MoveOrdering();
+        // e2e4 was tried first, g1f3 cut off
+        ordering.update(0, Piece.WHITE, G1F3, Move.NONE, 4, new int[]{E2E4}, 1);
+        assertTrue(ordering.history(Piece.WHITE, G1F3) > 0);
+        assertTrue(ordering.history(Piece.WHITE, E2E4) < 0);
+        assertEquals(0, ordering.history(Piece.BLACK, G1F3));
+
+        // Scores never leave the limits
+        for(int i = 0; i < 10000; i++){
+            ordering.update(0, Piece.WHITE, G1F3, Move.NONE, 50, new int[]{E2E4}, 1);
+        }
+        assertTrue(ordering.history(Piece.WHITE, G1F3) <= MoveOrdering.HISTORY_MAX);
+        assertTrue(ordering.history(Piece.WHITE, E2E4) >= -MoveOrdering.HISTORY_MAX);
+    }
+
+    @Test
+    public void testCutoffs(){
+        MoveOrdering ordering = new MoveOrdering();
+        ordering.cutoff(true);
+        ordering.cutoff(true);
+        ordering.cutoff(false);
+        assertEquals(3, ordering.cutoffs());
+        assertEquals(2, ordering.firstMoveCutoffs());
+        ordering.clear();
+        assertEquals(0, ordering.cutoffs());
+    }
+}
@@ -0,0 +1,220 @@
+package edu.sfu.os.chess;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit test for MovePicker
+ */
+public class MovePickerTest {
+
+    /**
+     * This is run before running other tests
+     */
+    @Before
+    public void setUpBeforeTest(){
+        BitMasks.initBitMasks();
+    }
+
+    private static Board kiwipete(){
+        String[][] chessBoard ={
+                {"r"," "," "," ","k"," "," ","r"},
+                {"p"," ","p","p","q","p","b"," "},
+                {"b","n"," "," ","p","n","p"," "},
+                {" "," "," ","P","N"," "," "," "},
+                {" ","p"," "," ","P"," "," "," "},
+                {" "," ","N"," "," ","Q"," ","p"},
+                {"P","P","P","B","B","P","P","P"},
+                {"R"," "," "," ","K"," "," ","R"}};
+        return BoardGeneration.arrayToBitboards(chessBoard);
+    }
+
+    /**
+     * Returns every move the picker hands out, in order
+     */
+    private static int[] pickAll(MovePicker picker){
+        int[] picked = new int[Moves.MAX_MOVES];
+        int count = 0;
+        int move;
+        while((move = picker.next()) != Move.NONE){
+            picked[count++] = move;
+        }
+        return Arrays.copyOf(picked, count);
+    }
+
+    private static int[] sortedMoves(Board currentPosition, int colour){
+        int[] moveBuffer = new int[Moves.MAX_MOVES];
+        int[] moves = Arrays.copyOf(moveBuffer, Moves.generateAllMoves(currentPosition, colour, moveBuffer));
+        Arrays.sort(moves);
+        return moves;
+    }
+
+    @Test
+    public void testPicksEveryMoveOnce(){
+        Board currentPosition = kiwipete();
+        MovePicker picker = new MovePicker();
+        for(int colour = Piece.WHITE; colour <= Piece.BLACK; colour++){
+            picker.init(currentPosition, colour, Move.NONE, Move.NONE, Move.NONE);
+            int[] picked = pickAll(picker);
+            Arrays.sort(picked);
+            assertArrayEquals(sortedMoves(currentPosition, colour), picked);
+            assertEquals(MovePicker.DONE, picker.stage());
+        }
+        // Every reply to every white move
+        for(int move : sortedMoves(currentPosition, Piece.WHITE)){
+            currentPosition.makeMove(move);
+            picker.init(currentPosition, Piece.BLACK, Move.NONE, Move.NONE, Move.NONE);
+            int[] picked = pickAll(picker);
+            Arrays.sort(picked);
+            assertArrayEquals(sortedMoves(currentPosition, Piece.BLACK), picked);
+            currentPosition.unmakeMove();
+        }
+    }
+
+    @Test
+    public void testStageOrder(){
+        Board currentPosition = kiwipete();
+        int[] moveBuffer = new int[Moves.MAX_MOVES];
+        int count = Moves.generateQuiets(currentPosition, Piece.WHITE, moveBuffer, 0);
+        int hashMove = moveBuffer[count - 1];
+        int killer = moveBuffer[0];
+
+        MovePicker picker = new MovePicker();
+        picker.init(currentPosition, Piece.WHITE, hashMove, killer, Move.NONE);
+        int[] picked = pickAll(picker);
+
+        assertEquals(hashMove, picked[0]);
+        // The captures come next, the killer is the first quiet move
+        int firstQuiet = 1;
+        while(Move.isCapture(picked[firstQuiet])){
+            firstQuiet++;
+        }
+        assertEquals(killer, picked[firstQuiet]);
+
+        Arrays.sort(picked);
+        assertArrayEquals(sortedMoves(currentPosition, Piece.WHITE), picked);
+    }
+
+    @Test
+    public void testMovesFromOtherPositionsAreSkipped(){
+        Board currentPosition = kiwipete();
+        // White pawn a2-a4 and a black move, neither can be played by black here
+        int whiteMove = Move.encode(48, 32, Piece.WP, Piece.EMPTY, Piece.EMPTY, Move.DOUBLE_PUSH);
+        int blockedMove = Move.encode(0, 24, Piece.BR, Piece.EMPTY, Piece.EMPTY, Move.NORMAL);
+
+        MovePicker picker = new MovePicker();
+        picker.init(currentPosition, Piece.BLACK, whiteMove, blockedMove, whiteMove);
+        int[] picked = pickAll(picker);
+        Arrays.sort(picked);
+        assertArrayEquals(sortedMoves(currentPosition, Piece.BLACK), picked);
+    }
+
+    @Test
+    public void testLosingCapturesLast(){
+
+        // Qxd5 loses the queen to the pawn on c6, exd5 wins a pawn
+        String[][] chessBoard ={
+                {" "," "," "," ","k"," "," "," "},
+                {" "," "," "," "," "," "," "," "},
+                {" "," ","p"," "," "," "," "," "},
+                {" "," "," ","p"," "," "," "," "},
+                {" "," "," "," ","P"," "," "," "},
+                {" "," "," "," "," "," "," "," "},
+                {" "," "," ","Q"," "," "," "," "},
+                {" "," "," "," ","K"," "," "," "}};
+
+        Board currentPosition = BoardGeneration.arrayToBitboards(chessBoard);
+        MovePicker picker = new MovePicker();
+        picker.init(currentPosition, Piece.WHITE, Move.NONE, Move.NONE, Move.NONE);
+        int[] picked = pickAll(picker);
+
+        assertEquals("e4d5", Move.toString(picked[0]));
+        assertEquals("d2d5", Move.toString(picked[picked.length - 1]));
+        assertTrue(MovePicker.see(currentPosition, picked[picked.length - 1]) < 0);
+    }
+
+    @Test
+    public void testStaticExchange(){
+
+        String[][] chessBoard ={
+                {" "," "," "," ","k"," "," "," "},
+                {" "," "," "," "," "," "," "," "},
+                {" "," "," "," "," "," "," "," "},
+                {" "," "," ","p"," "," "," "," "},
+                {" "," ","P"," "," "," "," "," "},
+                {" "," "," "," "," "," "," "," "},
+                {" "," "," ","R"," "," "," "," "},
+                {" "," "," ","R"," ","K"," "," "}};
+
+        Board currentPosition = BoardGeneration.arrayToBitboards(chessBoard);
+        // Undefended pawn
+        assertEquals(100, MovePicker.see(currentPosition, Move.encode(34, 27, Piece.WP, Piece.BP, Piece.EMPTY, Move.NORMAL)));
+        assertEquals(100, MovePicker.see(currentPosition, Move.encode(51, 27, Piece.WR, Piece.BP, Piece.EMPTY, Move.NORMAL)));
+
+        // Same pawn defended by a pawn on e6, the rook is lost for two pawns while taking with the pawn wins one
+        currentPosition.pieces[Piece.BP] |= 1L << 20;
+        currentPosition.updateOccupancy();
+        assertEquals(100, MovePicker.see(currentPosition, Move.encode(34, 27, Piece.WP, Piece.BP, Piece.EMPTY, Move.NORMAL)));
+        assertEquals(100 - 500 + 100, MovePicker.see(currentPosition, Move.encode(51, 27, Piece.WR, Piece.BP, Piece.EMPTY, Move.NORMAL)));
+    }
+
+    @Test
+    public void testQuiescence(){
+        Board currentPosition = kiwipete();
+        MovePicker picker = new MovePicker();
+        int[] moveBuffer = new int[Moves.MAX_MOVES];
+        for(int colour = Piece.WHITE; colour <= Piece.BLACK; colour++){
+            picker.initQuiescence(currentPosition, colour);
+            int[] picked = pickAll(picker);
+            assertEquals(MovePicker.DONE, picker.stage());
+            for(int move : picked){
+                assertTrue(Move.isCapture(move) || Move.flag(move) == Move.PROMOTION);
+            }
+            // Every capture that does not lose material and every promotion
+            int count = Moves.generateCapturesAndPromotions(currentPosition, colour, moveBuffer, 0);
+            int expected = 0;
+            for(int i = 0; i < count; i++){
+                if(Move.flag(moveBuffer[i]) == Move.PROMOTION || MovePicker.see(currentPosition, moveBuffer[i]) >= 0){
+                    expected++;
+                }
+            }
+            assertTrue(expected > 0);
+            assertEquals(expected, picked.length);
+        }
+    }
+
+    @Test
+    public void testHistoryAndCounterMove(){
+        Board currentPosition = kiwipete();
+        int[] moveBuffer = new int[Moves.MAX_MOVES];
+        int count = Moves.generateQuiets(currentPosition, Piece.WHITE, moveBuffer, 0);
+        int counterMove = moveBuffer[count - 1];
+        int[] history = new int[2 * 64 * 64];
+        for(int i = 0; i < count; i++){
+            history[MoveOrdering.historyIndex(Piece.WHITE, moveBuffer[i])] = i;
+        }
+
+        MovePicker picker = new MovePicker();
+        picker.init(currentPosition, Piece.WHITE, Move.NONE, Move.NONE, Move.NONE, counterMove, history);
+        int[] picked = pickAll(picker);
+
+        int firstQuiet = 0;
+        while(Move.isCapture(picked[firstQuiet])){
+            firstQuiet++;
+        }
+        assertEquals(counterMove, picked[firstQuiet]);
+        // The other quiet moves by falling history
+        for(int i = 1; i < count - 1; i++){
+            assertEquals(moveBuffer[count - 1 - i], picked[firstQuiet + i]);
+        }
+
+        Arrays.sort(picked);
+        assertArrayEquals(sortedMoves(currentPosition, Piece.WHITE), picked);
+    }
+}
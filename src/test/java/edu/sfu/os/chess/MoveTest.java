@@ -0,0 +1,35 @@
+package edu.sfu.os.chess;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for the packed move format
+ */
+public class MoveTest {
+
+    @Test
+    public void testEncodeDecode(){
+        // e7 to d8, capturing a rook and promoting to a queen
+        int move = Move.encode(12, 3, Piece.WP, Piece.BR, Piece.WQ, Move.PROMOTION);
+        assertEquals(12, Move.from(move));
+        assertEquals(3, Move.to(move));
+        assertEquals(Piece.WP, Move.piece(move));
+        assertEquals(Piece.BR, Move.captured(move));
+        assertEquals(Piece.WQ, Move.promotion(move));
+        assertEquals(Move.PROMOTION, Move.flag(move));
+        assertTrue(Move.isCapture(move));
+        assertEquals("e7d8q", Move.toString(move));
+    }
+
+    @Test
+    public void testQuietMove(){
+        // e2 to e4
+        int move = Move.encode(52, 36, Piece.WP, Piece.EMPTY, Piece.EMPTY, Move.DOUBLE_PUSH);
+        assertFalse(Move.isCapture(move));
+        assertEquals(1L << 52 | 1L << 36, Move.toMoveMask(move));
+        assertEquals("e2e4", Move.toString(move));
+        assertNotEquals(Move.NONE, move);
+    }
+}
@@ -4,9 +4,13 @@ package edu.sfu.os.chess;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.List;
 
 import static edu.sfu.os.chess.Moves.*;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 import static edu.sfu.os.chess.MovesAsStrings.generateMovesWPAsStrings;
 
 /**
@@ -307,4 +311,280 @@ public class MovesTest{
         }
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGenerateAllMovesIntoBuffer(){
+
+        Board currentPosition = BoardGeneration.initiateStandardChess();
+        int[] moveBuffer = new int[MAX_MOVES];
+
+        assertEquals(20, generateAllMoves(currentPosition, Piece.WHITE, moveBuffer));
+        assertEquals(20, generateAllMoves(currentPosition, Piece.BLACK, moveBuffer));
+    }
+
+    @Test
+    public void testBufferMatchesListMoves(){
+
+        String[][] chessBoard ={
+                {"r"," "," "," ","k"," "," ","r"},
+                {"p"," ","p","p","q","p","b"," "},
+                {"b","n"," "," ","p","n","p"," "},
+                {" "," "," ","P","N"," "," "," "},
+                {" ","p"," "," ","P"," "," "," "},
+                {" "," ","N"," "," ","Q"," ","p"},
+                {"P","P","P","B","B","P","P","P"},
+                {"R"," "," "," ","K"," "," ","R"}};
+
+        Board currentPosition = BoardGeneration.arrayToBitboards(chessBoard);
+        int[] moveBuffer = new int[MAX_MOVES];
+
+        int whiteCount = generateAllMoves(currentPosition, Piece.WHITE, moveBuffer);
+        assertEquals(generateAllWhiteMoves(currentPosition).size() + generateAllWhiteSpecialMoves(currentPosition).size(), whiteCount);
+        for(int i = 0; i < whiteCount; i++){
+            int move = moveBuffer[i];
+            assertEquals(pieceAt(currentPosition, Move.from(move)), Move.piece(move));
+            if(Move.flag(move) != Move.EN_PASSANT){
+                assertEquals(pieceAt(currentPosition, Move.to(move)), Move.captured(move));
+            }
+        }
+
+        int blackCount = generateAllMoves(currentPosition, Piece.BLACK, moveBuffer);
+        assertEquals(generateAllBlackMoves(currentPosition).size() + generateAllBlackSpecialMoves(currentPosition).size(), blackCount);
+    }
+
+    @Test
+    public void testMakeMoveMatchesMoveWhite(){
+
+        Board currentPosition = BoardGeneration.initiateStandardChess();
+        int[] moveBuffer = new int[MAX_MOVES];
+        int count = generatePawnMoves(currentPosition, Piece.WHITE, moveBuffer, 0);
+
+        for(int i = 0; i < count; i++){
+            Board expected = moveWhite(currentPosition, Move.toMoveMask(moveBuffer[i]));
+            Board actual = makeMove(currentPosition, moveBuffer[i]);
+            assertEquals(expected.pieces[Piece.WP], actual.pieces[Piece.WP]);
+            assertEquals(expected.lastMove, actual.lastMove);
+            assertEquals(expected.castleCheck, actual.castleCheck);
+        }
+    }
+
+    /**
+     * Returns the number of pseudo-legal moves that do not leave the king in check, found by playing every move
+     */
+    private static int countByMakeMove(Board currentPosition, int colour){
+        int[] moveBuffer = new int[MAX_MOVES];
+        int count = generateAllMoves(currentPosition, colour, moveBuffer);
+        int legal = 0;
+        for(int i = 0; i < count; i++){
+            currentPosition.makeMove(moveBuffer[i]);
+            long kingSafety = kingSafety(currentPosition, colour) & currentPosition.pieces[Piece.of(colour, Piece.KING)];
+            if(kingSafety == 0){
+                legal++;
+            }
+            currentPosition.unmakeMove();
+        }
+        return legal;
+    }
+
+    @Test
+    public void testLegalMovesMatchMakeMove(){
+
+        String[][] chessBoard ={
+                {"r"," "," "," ","k"," "," ","r"},
+                {"p"," ","p","p","q","p","b"," "},
+                {"b","n"," "," ","p","n","p"," "},
+                {" "," "," ","P","N"," "," "," "},
+                {" ","p"," "," ","P"," "," "," "},
+                {" "," ","N"," "," ","Q"," ","p"},
+                {"P","P","P","B","B","P","P","P"},
+                {"R"," "," "," ","K"," "," ","R"}};
+
+        Board currentPosition = BoardGeneration.arrayToBitboards(chessBoard);
+        int[] whiteMoves = new int[MAX_MOVES];
+        int[] blackMoves = new int[MAX_MOVES];
+        int whiteCount = generateLegalMoves(currentPosition, Piece.WHITE, whiteMoves);
+        assertEquals(48, whiteCount);
+        // Every reply, including the ones to checks and the ones of pinned pieces
+        for(int i = 0; i < whiteCount; i++){
+            currentPosition.makeMove(whiteMoves[i]);
+            assertEquals(countByMakeMove(currentPosition, Piece.BLACK), generateLegalMoves(currentPosition, Piece.BLACK, blackMoves));
+            currentPosition.unmakeMove();
+        }
+    }
+
+    /**
+     * Returns the moves of a buffer as a sorted array
+     */
+    private static int[] sorted(int[] moveBuffer, int count){
+        int[] moves = Arrays.copyOf(moveBuffer, count);
+        Arrays.sort(moves);
+        return moves;
+    }
+
+    /**
+     * Checks the capture and quiet check generators against the full generator, in a position and after every move from it
+     */
+    private static void assertTacticalGenerators(Board currentPosition, int colour){
+        int[] allMoves = new int[MAX_MOVES];
+        int[] expectedCaptures = new int[MAX_MOVES];
+        int[] expectedChecks = new int[MAX_MOVES];
+        int count = generateAllMoves(currentPosition, colour, allMoves);
+        int captureCount = 0;
+        int checkCount = 0;
+        for(int i = 0; i < count; i++){
+            int move = allMoves[i];
+            if(Move.isCapture(move) || Move.flag(move) == Move.PROMOTION){
+                expectedCaptures[captureCount++] = move;
+                continue;
+            }
+            currentPosition.makeMove(move);
+            if(Move.flag(move) != Move.CASTLE && checkers(currentPosition, colour ^ 1) != 0){
+                expectedChecks[checkCount++] = move;
+            }
+            currentPosition.unmakeMove();
+        }
+
+        int[] moveBuffer = new int[MAX_MOVES];
+        assertArrayEquals(sorted(expectedCaptures, captureCount), sorted(moveBuffer, generateCapturesAndPromotions(currentPosition, colour, moveBuffer, 0)));
+        assertArrayEquals(sorted(expectedChecks, checkCount), sorted(moveBuffer, generateQuietChecks(currentPosition, colour, moveBuffer, 0)));
+    }
+
+    @Test
+    public void testCapturesAndQuietChecks(){
+
+        String[][] chessBoard ={
+                {"r"," "," "," ","k"," "," ","r"},
+                {"p"," ","p","p","q","p","b"," "},
+                {"b","n"," "," ","p","n","p"," "},
+                {" "," "," ","P","N"," "," "," "},
+                {" ","p"," "," ","P"," "," "," "},
+                {" "," ","N"," "," ","Q"," ","p"},
+                {"P","P","P","B","B","P","P","P"},
+                {"R"," "," "," ","K"," "," ","R"}};
+
+        Board currentPosition = BoardGeneration.arrayToBitboards(chessBoard);
+        int[] moveBuffer = new int[MAX_MOVES];
+        int count = generateAllMoves(currentPosition, Piece.WHITE, moveBuffer);
+        assertTacticalGenerators(currentPosition, Piece.WHITE);
+        for(int i = 0; i < count; i++){
+            currentPosition.makeMove(moveBuffer[i]);
+            assertTacticalGenerators(currentPosition, Piece.BLACK);
+            currentPosition.unmakeMove();
+        }
+    }
+
+    @Test
+    public void testQuietDiscoveredChecks(){
+
+        // Every knight move uncovers the rook, b5-b6 uncovers the bishop
+        String[][] chessBoard ={
+                {" "," "," "," ","k"," "," "," "},
+                {" "," "," "," "," "," "," "," "},
+                {" "," "," "," ","N"," "," "," "},
+                {" ","P"," "," "," "," "," "," "},
+                {"B"," "," "," ","R"," "," "," "},
+                {" "," "," "," "," "," "," "," "},
+                {" "," "," "," "," "," "," "," "},
+                {" "," "," "," "," "," "," ","K"}};
+
+        Board currentPosition = BoardGeneration.arrayToBitboards(chessBoard);
+        assertTacticalGenerators(currentPosition, Piece.WHITE);
+        int[] moveBuffer = new int[MAX_MOVES];
+        assertEquals(9, generateQuietChecks(currentPosition, Piece.WHITE, moveBuffer, 0));
+
+        // The king uncovers the rook, but may not step next to the other king
+        String[][] kingBoard ={
+                {" "," "," "," "," "," "," "," "},
+                {" "," "," "," "," "," "," "," "},
+                {" "," "," "," "," "," "," "," "},
+                {"k"," ","K"," "," "," "," ","R"},
+                {" "," "," "," "," "," "," "," "},
+                {" "," "," "," "," "," "," "," "},
+                {" "," "," "," "," "," "," "," "},
+                {" "," "," "," "," "," "," "," "}};
+
+        currentPosition = BoardGeneration.arrayToBitboards(kingBoard);
+        assertTacticalGenerators(currentPosition, Piece.WHITE);
+        assertEquals(4, generateQuietChecks(currentPosition, Piece.WHITE, moveBuffer, 0));
+    }
+
+    /**
+     * Compares the legal move count with the generated legal moves in every position up to the given depth
+     */
+    private static void assertCountMatches(Board currentPosition, int colour, int depth){
+        int[] moveBuffer = new int[MAX_MOVES];
+        int count = generateLegalMoves(currentPosition, colour, moveBuffer);
+        assertEquals(count, countLegalMoves(currentPosition, colour));
+        if(depth > 1){
+            for(int i = 0; i < count; i++){
+                currentPosition.makeMove(moveBuffer[i]);
+                assertCountMatches(currentPosition, colour ^ 1, depth - 1);
+                currentPosition.unmakeMove();
+            }
+        }
+    }
+
+    @Test
+    public void testCountLegalMoves(){
+
+        String[][] kiwipete ={
+                {"r"," "," "," ","k"," "," ","r"},
+                {"p"," ","p","p","q","p","b"," "},
+                {"b","n"," "," ","p","n","p"," "},
+                {" "," "," ","P","N"," "," "," "},
+                {" ","p"," "," ","P"," "," "," "},
+                {" "," ","N"," "," ","Q"," ","p"},
+                {"P","P","P","B","B","P","P","P"},
+                {"R"," "," "," ","K"," "," ","R"}};
+        assertCountMatches(BoardGeneration.arrayToBitboards(kiwipete), Piece.WHITE, 3);
+
+        // Pins along the rank of the king and en passant captures that expose it
+        String[][] endgame ={
+                {" "," "," "," "," "," "," "," "},
+                {" "," ","p"," "," "," "," "," "},
+                {" "," "," ","p"," "," "," "," "},
+                {"K","P"," "," "," "," "," ","r"},
+                {" ","R"," "," "," ","p"," ","k"},
+                {" "," "," "," "," "," "," "," "},
+                {" "," "," "," ","P"," ","P"," "},
+                {" "," "," "," "," "," "," "," "}};
+        assertCountMatches(BoardGeneration.arrayToBitboards(endgame), Piece.WHITE, 4);
+
+        // Promotions with and without capture on both sides
+        String[][] promotions ={
+                {"r"," "," "," ","k"," "," ","r"},
+                {"P","p","p","p"," ","p","p","p"},
+                {" ","b"," "," "," ","n","b","N"},
+                {"n","P"," "," "," "," "," "," "},
+                {"B","B","P"," ","P"," "," "," "},
+                {"q"," "," "," "," ","N"," "," "},
+                {"P","p"," ","P"," "," ","P","P"},
+                {"R"," "," ","Q"," ","R","K"," "}};
+        assertCountMatches(BoardGeneration.arrayToBitboards(promotions), Piece.WHITE, 3);
+    }
+
+    @Test
+    public void testLegalEnPassantDiscoveredCheck(){
+
+        // Taking c6 en passant would leave both pawns off the fifth rank and expose the king to the rook
+        String[][] chessBoard ={
+                {" "," "," "," "," "," "," "," "},
+                {" "," "," "," "," "," "," "," "},
+                {" "," "," ","p"," "," "," "," "},
+                {"K","P","p"," "," "," "," ","r"},
+                {" ","R"," "," ","P","p"," ","k"},
+                {" "," "," "," "," "," "," "," "},
+                {" "," "," "," "," "," ","P"," "},
+                {" "," "," "," "," "," "," "," "}};
+
+        Board currentPosition = BoardGeneration.arrayToBitboards(chessBoard);
+        currentPosition.castleCheck = -1L;
+        currentPosition.lastMove = 1L << 10 | 1L << 26;
+        int[] moveBuffer = new int[MAX_MOVES];
+        int count = generateLegalMoves(currentPosition, Piece.WHITE, moveBuffer);
+        assertEquals(countByMakeMove(currentPosition, Piece.WHITE), count);
+        for(int i = 0; i < count; i++){
+            assertNotEquals(Move.EN_PASSANT, Move.flag(moveBuffer[i]));
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package edu.sfu.os.chess;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit test for OffHeapTranspositionTable, runs the tests of TranspositionTable on a table in direct memory
+ */
+public class OffHeapTranspositionTableTest extends TranspositionTableTest {
+
+    /**
+     * @return a table of 1 MB in 32 buffers, so the tests cross from one buffer to the next
+     */
+    @Override
+    protected TranspositionTable newTable(){
+        return new OffHeapTranspositionTable(1, false, 12);
+    }
+
+    @Test
+    public void testLargePages(){
+        TranspositionTable table = new OffHeapTranspositionTable(4, true);
+        assertEquals(4L * 1024 * 1024 / 16, table.capacity());
+        table.store(42L, Move.NONE, 7, 3, TranspositionTable.EXACT);
+        assertEquals(7, TranspositionTable.score(table.probe(42L)));
+    }
+}
@@ -0,0 +1,94 @@
+package edu.sfu.os.chess;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit test for ParallelPerft
+ */
+public class ParallelPerftTest {
+
+    /**
+     * This is run before running other tests
+     */
+    @Before
+    public void setUpBeforeTest(){
+        BitMasks.initBitMasks();
+    }
+
+    private static Board kiwipete(){
+        String[][] chessBoard ={
+                {"r"," "," "," ","k"," "," ","r"},
+                {"p"," ","p","p","q","p","b"," "},
+                {"b","n"," "," ","p","n","p"," "},
+                {" "," "," ","P","N"," "," "," "},
+                {" ","p"," "," ","P"," "," "," "},
+                {" "," ","N"," "," ","Q"," ","p"},
+                {"P","P","P","B","B","P","P","P"},
+                {"R"," "," "," ","K"," "," ","R"}};
+        return BoardGeneration.arrayToBitboards(chessBoard);
+    }
+
+    @Test
+    public void testStartPosition(){
+        Board currentPosition = BoardGeneration.initiateStandardChess();
+        long[] expected = {20, 400, 8902, 197281};
+        assertArrayEquals(expected, ParallelPerft.perft(currentPosition, Piece.WHITE, 4));
+        assertArrayEquals(expected, ParallelPerft.perft(currentPosition, Piece.WHITE, 4, 4));
+    }
+
+    @Test
+    public void testParallelMatchesSequential(){
+        Board currentPosition = kiwipete();
+        Board original = new Board(currentPosition);
+        long[] expected = {48, 2039, 97862};
+        assertArrayEquals(expected, ParallelPerft.perft(currentPosition, Piece.WHITE, 3));
+        for(int depth = 0; depth <= 3; depth++){
+            assertArrayEquals(ParallelPerft.perft(currentPosition, Piece.WHITE, depth), ParallelPerft.perft(currentPosition, Piece.WHITE, depth, 3));
+        }
+        assertArrayEquals(original.pieces, currentPosition.pieces);
+    }
+
+    @Test
+    public void testHashedMatchesPerft(){
+        Board currentPosition = kiwipete();
+        // A tiny cache, so entries get replaced all the time
+        PerftCache cache = new PerftCache(1);
+        assertEquals(4085603L, ParallelPerft.perftHashed(currentPosition, Piece.WHITE, 4, cache));
+        // The second run is answered from the cache
+        assertEquals(4085603L, ParallelPerft.perftHashed(currentPosition, Piece.WHITE, 4, cache));
+        cache.clear();
+        assertEquals(4085603L, ParallelPerft.perftHashed(currentPosition, Piece.WHITE, 4, 3, cache));
+        assertEquals(197281L, ParallelPerft.perftHashed(BoardGeneration.initiateStandardChess(), Piece.WHITE, 4, 2, cache));
+    }
+
+    @Test
+    public void testStats(){
+        Board currentPosition = kiwipete();
+        PerftStats stats = ParallelPerft.perftStats(currentPosition, Piece.WHITE, 3, true);
+        assertArrayEquals(new long[]{48, 2039, 97862}, stats.get(PerftStats.NODES));
+        assertArrayEquals(new long[]{8, 351, 17102}, stats.get(PerftStats.CAPTURES));
+        assertArrayEquals(new long[]{0, 1, 45}, stats.get(PerftStats.EN_PASSANT));
+        assertArrayEquals(new long[]{2, 91, 3162}, stats.get(PerftStats.CASTLES));
+        assertArrayEquals(new long[]{0, 0, 0}, stats.get(PerftStats.PROMOTIONS));
+        assertArrayEquals(new long[]{0, 3, 993}, stats.get(PerftStats.CHECKS));
+        assertArrayEquals(new long[]{0, 0, 1}, stats.get(PerftStats.CHECKMATES));
+
+        // The threads and the pseudo-legal moves give the same counts
+        PerftStats parallel = ParallelPerft.perftStats(currentPosition, Piece.WHITE, 3, 3, true);
+        PerftStats pseudoLegal = ParallelPerft.perftStats(currentPosition, Piece.WHITE, 3, 2, false);
+        for(int kind = 0; kind < PerftStats.KINDS; kind++){
+            assertArrayEquals(stats.get(kind), parallel.get(kind));
+            assertArrayEquals(stats.get(kind), pseudoLegal.get(kind));
+        }
+
+        // Fool's mate and the other mates at ply 4 of the start position
+        stats = ParallelPerft.perftStats(BoardGeneration.initiateStandardChess(), Piece.WHITE, 4, 2, true);
+        assertArrayEquals(new long[]{0, 0, 34, 1576}, stats.get(PerftStats.CAPTURES));
+        assertArrayEquals(new long[]{0, 0, 12, 469}, stats.get(PerftStats.CHECKS));
+        assertArrayEquals(new long[]{0, 0, 0, 8}, stats.get(PerftStats.CHECKMATES));
+    }
+}
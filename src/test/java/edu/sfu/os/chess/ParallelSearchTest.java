@@ -0,0 +1,90 @@
+package edu.sfu.os.chess;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit test for ParallelSearch
+ */
+public class ParallelSearchTest {
+
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -";
+
+    /**
+     * This is run before running other tests
+     */
+    @Before
+    public void setUpBeforeTest(){
+        BitMasks.initBitMasks();
+    }
+
+    private static boolean helpersRunning(){
+        for(Thread thread : Thread.getAllStackTraces().keySet()){
+            if(thread.getName().startsWith("search-helper-") && thread.isAlive()){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void testMateInTwo(){
+        FENParser parser = new FENParser("r2qkb1r/pp2nppp/3p4/2pNN1B1/2BnP3/3P4/PPP2PPP/R2bK2R w KQkq - 1 0");
+        ParallelSearch search = new ParallelSearch(new TranspositionTable(16), 4);
+        SearchResult result = search.search(parser.getBitboards(), parser.getSideToMove(), SearchLimits.depth(4));
+        assertEquals("d5f6", Move.toString(result.bestMove));
+        assertEquals(Search.MATE - 3, result.score);
+        assertFalse(helpersRunning());
+    }
+
+    @Test
+    public void testTimeToDepth(){
+        FENParser parser = new FENParser(KIWIPETE);
+        ParallelSearch search = new ParallelSearch(new TranspositionTable(16), 3);
+        SearchResult result = search.search(parser.getBitboards(), parser.getSideToMove(), SearchLimits.depth(4));
+        assertTrue(result.depth >= 4);
+        assertTrue(result.bestMove != Move.NONE);
+
+        long[] timeToDepth = search.timeToDepth();
+        assertEquals(result.depth + 1, timeToDepth.length);
+        for(int depth = 1; depth < timeToDepth.length; depth++){
+            assertTrue(timeToDepth[depth] >= timeToDepth[depth - 1]);
+            assertTrue(timeToDepth[depth] <= result.millis);
+        }
+        assertFalse(helpersRunning());
+    }
+
+    @Test
+    public void testStop() throws InterruptedException{
+        FENParser parser = new FENParser(KIWIPETE);
+        ParallelSearch search = new ParallelSearch(new TranspositionTable(16), 3);
+        SearchResult[] result = new SearchResult[1];
+        Thread thread = new Thread(() -> result[0] = search.search(parser.getBitboards(), parser.getSideToMove(), SearchLimits.depth(0)));
+        thread.start();
+        Thread.sleep(200);
+        search.stop();
+        thread.join(5000);
+        assertFalse(thread.isAlive());
+        assertTrue(result[0].bestMove != Move.NONE);
+        assertFalse(helpersRunning());
+
+        // The flag is cleared by the next search
+        result[0] = search.search(parser.getBitboards(), parser.getSideToMove(), SearchLimits.millis(100));
+        assertTrue(result[0].depth >= 2);
+        assertFalse(helpersRunning());
+    }
+
+    @Test
+    public void testOneThread(){
+        FENParser parser = new FENParser(KIWIPETE);
+        SearchResult single = new Search(new TranspositionTable(16)).search(parser.getBitboards(), parser.getSideToMove(), SearchLimits.depth(4));
+        SearchResult parallel = new ParallelSearch(new TranspositionTable(16), 1).search(parser.getBitboards(), parser.getSideToMove(), SearchLimits.depth(4));
+        assertEquals(single.bestMove, parallel.bestMove);
+        assertEquals(single.score, parallel.score);
+        assertEquals(single.nodes, parallel.nodes);
+    }
+}
@@ -0,0 +1,96 @@
+package edu.sfu.os.chess;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit test for PerftCoordinator
+ */
+public class PerftCoordinatorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    private final PrintStream out = new PrintStream(output, true);
+
+    /**
+     * This is run before running other tests
+     */
+    @Before
+    public void setUpBeforeTest(){
+        BitMasks.initBitMasks();
+    }
+
+    private int coordinate(Path dir, String depth, String expect){
+        return PerftCoordinator.run(new String[]{"--dir", dir.toString(), "--depth", depth, "--split", "2", "--shards", "5",
+                "--workers", "2", "--expect", expect}, out);
+    }
+
+    @Test
+    public void testRunAndResume() throws IOException {
+        Path dir = folder.getRoot().toPath().resolve("job");
+        assertEquals(Perft.EXIT_OK, coordinate(dir, "4", "197281"));
+        assertTrue(output.toString().contains("5 of 5 shards left"));
+
+        // A worker that was killed after its first item: no total and a line that was cut off
+        Path done = dir.resolve("shard-0001.done");
+        String total = Files.readString(done);
+        Files.delete(done);
+        Path partial = dir.resolve("shard-0001.partial");
+        String firstLine = Files.readAllLines(partial).get(0);
+        Files.writeString(partial, firstLine + "\n1 12");
+
+        output.reset();
+        assertEquals(Perft.EXIT_OK, coordinate(dir, "4", "197281"));
+        assertTrue(output.toString().contains("1 of 5 shards left"));
+        assertEquals(total, Files.readString(done));
+        // Only the items after the first one were counted again
+        assertEquals(firstLine, Files.readAllLines(partial).get(0));
+        assertEquals(Files.readAllLines(dir.resolve("shard-0001.txt")).size(), Files.readAllLines(partial).size());
+
+        // The directory holds a job of another depth
+        assertEquals(Perft.EXIT_USAGE, coordinate(dir, "3", "8902"));
+    }
+
+    @Test
+    public void testWorkerInProcess() throws IOException {
+        Path dir = folder.getRoot().toPath();
+        // One shard that no worker process has counted yet
+        assertEquals(Perft.EXIT_OK, coordinate(dir, "3", "8902"));
+        Path done = dir.resolve("shard-0003.done");
+        String total = Files.readString(done);
+        Files.delete(done);
+        Files.delete(dir.resolve("shard-0003.partial"));
+        output.reset();
+        PerftCoordinator.countShard(out, dir.resolve("shard-0003.txt"), 2, 1);
+        assertEquals(total, Files.readString(done));
+        // One line per item, on the given stream
+        assertEquals(Files.readAllLines(dir.resolve("shard-0003.txt")).size(), output.toString().lines().count());
+    }
+
+    @Test
+    public void testReplay(){
+        Board currentPosition = BoardGeneration.initiateStandardChess();
+        assertEquals(Piece.BLACK, PerftCoordinator.replay(currentPosition, Piece.WHITE, "e2e4 e7e5 g1f3"));
+        assertEquals(Piece.WN, Moves.pieceAt(currentPosition, 45));
+        assertEquals(Piece.BP, Moves.pieceAt(currentPosition, 28));
+    }
+
+    @Test
+    public void testUsage(){
+        assertEquals(Perft.EXIT_USAGE, PerftCoordinator.run(new String[]{"--depth", "4"}, out));
+        assertEquals(Perft.EXIT_USAGE, PerftCoordinator.run(new String[]{"--dir", folder.getRoot().toString(), "--depth", "2"}, out));
+    }
+}
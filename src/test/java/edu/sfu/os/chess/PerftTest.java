@@ -0,0 +1,72 @@
+package edu.sfu.os.chess;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit test for the Perft command line tool
+ */
+public class PerftTest {
+
+    private static final String SUITE = "src/test/resources/perft.epd";
+
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    private final PrintStream out = new PrintStream(output, true);
+
+    @Test
+    public void testSuite(){
+        assertEquals(Perft.EXIT_OK, Perft.run(new String[]{"--epd", SUITE, "--depth", "3", "--threads", "2"}, out));
+        assertTrue(output.toString().contains("7 positions"));
+    }
+
+    @Test
+    public void testHashedSuite(){
+        assertEquals(Perft.EXIT_OK, Perft.run(new String[]{"--epd", SUITE, "--depth", "3", "--threads", "1", "--hash", "1"}, out));
+    }
+
+    @Test
+    public void testMismatch(){
+        assertEquals(Perft.EXIT_MISMATCH, Perft.run(new String[]{"--depth", "2", "--expect", "20,401"}, out));
+        assertTrue(output.toString().contains("MISMATCH at depth 2: expected 401, found 400"));
+    }
+
+    @Test
+    public void testZeroCountIsMismatch(){
+        // White is mated, a count of 0 nodes must not pass for any expected count
+        String foolsMate = "rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 1 3";
+        assertEquals(Perft.EXIT_MISMATCH, Perft.run(new String[]{"--fen", foolsMate, "--expect", "5,100"}, out));
+        assertTrue(output.toString().contains("MISMATCH at depth 1: expected 5, found 0"));
+        assertTrue(output.toString().contains("counts do not match"));
+        assertEquals(Perft.EXIT_OK, Perft.run(new String[]{"--fen", foolsMate, "--expect", "0,0"}, out));
+    }
+
+    @Test
+    public void testDivide(){
+        String kiwipete = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -";
+        assertEquals(Perft.EXIT_OK, Perft.run(new String[]{"--fen", kiwipete, "--depth", "2", "--expect", "48,2039", "--divide"}, out));
+        // e1g1 is castling, a2a3 a quiet pawn move
+        assertTrue(output.toString().contains("e1g1: 43"));
+        assertTrue(output.toString().contains("a2a3: 44"));
+    }
+
+    @Test
+    public void testDetails(){
+        String kiwipete = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -";
+        assertEquals(Perft.EXIT_OK, Perft.run(new String[]{"--fen", kiwipete, "--depth", "3", "--expect", "48,2039,97862", "--details", "--pseudo-legal"}, out));
+        assertTrue(output.toString().contains("castles    [2, 91, 3162]"));
+        assertTrue(output.toString().contains("en passant [0, 1, 45]"));
+        assertTrue(output.toString().contains("checks     [0, 3, 993]"));
+    }
+
+    @Test
+    public void testUsage(){
+        assertEquals(Perft.EXIT_USAGE, Perft.run(new String[]{"--depth"}, out));
+        assertEquals(Perft.EXIT_USAGE, Perft.run(new String[]{"--threads", "0"}, out));
+        assertEquals(Perft.EXIT_USAGE, Perft.run(new String[]{"--epd", "missing.epd"}, out));
+    }
+}
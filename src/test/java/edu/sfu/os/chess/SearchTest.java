@@ -0,0 +1,126 @@
+package edu.sfu.os.chess;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit test for Search
+ */
+public class SearchTest {
+
+    /**
+     * This is run before running other tests
+     */
+    @Before
+    public void setUpBeforeTest(){
+        BitMasks.initBitMasks();
+    }
+
+    private static SearchResult search(String fen, SearchLimits limits){
+        FENParser parser = new FENParser(fen);
+        return new Search(new TranspositionTable(16)).search(parser.getBitboards(), parser.getSideToMove(), limits);
+    }
+
+    /**
+     * Plays the principal variation and checks that every move is legal
+     */
+    private static void assertLegalPv(String fen, int[] pv){
+        FENParser parser = new FENParser(fen);
+        Board board = parser.getBitboards();
+        int colour = parser.getSideToMove();
+        int[] moves = new int[Moves.MAX_MOVES];
+        for(int move : pv){
+            int count = Moves.generateLegalMoves(board, colour, moves);
+            boolean legal = false;
+            for(int i = 0; i < count; i++){
+                legal |= moves[i] == move;
+            }
+            assertTrue(Move.toString(move) + " is not legal", legal);
+            board.makeMove(move);
+            colour ^= 1;
+        }
+    }
+
+    @Test
+    public void testMateInOne(){
+        // Scholar's mate, Qxf7#
+        String fen = "r1bqkb1r/pppp1ppp/2n2n2/4p2Q/2B1P3/8/PPPP1PPP/RNB1K1NR w KQkq - 4 4";
+        SearchResult result = search(fen, SearchLimits.depth(4));
+        assertEquals("h5f7", Move.toString(result.bestMove));
+        assertEquals(Search.MATE - 1, result.score);
+        assertTrue(result.toString().contains("score mate 1"));
+    }
+
+    @Test
+    public void testMateInTwo(){
+        // Nf6+ gxf6 Bxf7#
+        String fen = "r2qkb1r/pp2nppp/3p4/2pNN1B1/2BnP3/3P4/PPP2PPP/R2bK2R w KQkq - 1 0";
+        SearchResult result = search(fen, SearchLimits.depth(4));
+        assertEquals("d5f6", Move.toString(result.bestMove));
+        assertEquals(Search.MATE - 3, result.score);
+        assertEquals(3, result.pv.length);
+        assertLegalPv(fen, result.pv);
+    }
+
+    @Test
+    public void testMatedAndStalemate(){
+        // Fool's mate, white is mated
+        SearchResult result = search("rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 1 3", SearchLimits.depth(3));
+        assertEquals(Move.NONE, result.bestMove);
+        assertEquals(-Search.MATE, result.score);
+
+        result = search("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1", SearchLimits.depth(3));
+        assertEquals(Move.NONE, result.bestMove);
+        assertEquals(Search.DRAW, result.score);
+    }
+
+    @Test
+    public void testWinsMaterial(){
+        // The queen on d5 is only defended by nothing, Rxd5
+        String fen = "4k3/8/8/3q4/8/8/8/3RK3 w - - 0 1";
+        SearchResult result = search(fen, SearchLimits.depth(3));
+        assertEquals("d1d5", Move.toString(result.bestMove));
+        assertLegalPv(fen, result.pv);
+    }
+
+    @Test
+    public void testQuiescence(){
+        // Qxe5 wins a pawn at depth 1, but dxe5 takes the queen back
+        String fen = "k7/8/3p4/4p3/8/8/1Q6/4K3 w - - 0 1";
+        SearchResult result = search(fen, SearchLimits.depth(1));
+        assertTrue(result.bestMove != Move.NONE);
+        assertTrue(!"b2e5".equals(Move.toString(result.bestMove)));
+        assertTrue(result.quiescenceNodes > 0);
+        assertTrue(result.quiescenceNodes < result.nodes);
+
+        // Rxd5 still wins the queen for the rook, but exd5 leaves black a pawn up, not white a rook up
+        result = search("4k3/8/4p3/3q4/8/8/8/3RK3 w - - 0 1", SearchLimits.depth(1));
+        assertEquals("d1d5", Move.toString(result.bestMove));
+        assertTrue(result.score < 0);
+        assertTrue(result.score > -Evaluation.PIECE_VALUE[Piece.ROOK]);
+    }
+
+    @Test
+    public void testLimits(){
+        String fen = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -";
+        SearchResult result = search(fen, SearchLimits.depth(4));
+        assertEquals(4, result.depth);
+        assertLegalPv(fen, result.pv);
+        assertTrue(result.cutoffs > 0);
+        assertTrue(result.firstMoveCutoffRate() > 0.5 && result.firstMoveCutoffRate() <= 1);
+
+        // The node limit stops the search soon after it is reached, the first iteration always finishes
+        result = search(fen, SearchLimits.nodes(20000));
+        assertTrue(result.nodes < 20000 + 100);
+        assertTrue(result.depth >= 1);
+        assertLegalPv(fen, result.pv);
+
+        long start = System.nanoTime();
+        result = search(fen, SearchLimits.millis(200));
+        assertTrue((System.nanoTime() - start) / 1000000 < 1000);
+        assertTrue(result.bestMove != Move.NONE);
+    }
+}
@@ -0,0 +1,156 @@
+package edu.sfu.os.chess;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit test for TranspositionTable
+ */
+public class TranspositionTableTest {
+
+    static final int MOVE = Move.encode(52, 36, Piece.WP, Piece.EMPTY, Piece.EMPTY, Move.DOUBLE_PUSH);
+    private static final int OTHER_MOVE = Move.encode(62, 45, Piece.WN, Piece.EMPTY, Piece.EMPTY, Move.NORMAL);
+
+    /**
+     * @return a table of 1 MB, subclasses test other kinds of tables
+     */
+    protected TranspositionTable newTable(){
+        return new TranspositionTable(1);
+    }
+
+    @Test
+    public void testStoreAndProbe(){
+        TranspositionTable table = newTable();
+        long key = 0x123456789ABCDEFL;
+        assertEquals(0L, table.probe(key));
+
+        table.store(key, MOVE, -1234, 7, TranspositionTable.LOWER);
+        long data = table.probe(key);
+        assertEquals(MOVE, TranspositionTable.move(data));
+        assertEquals(-1234, TranspositionTable.score(data));
+        assertEquals(7, TranspositionTable.depth(data));
+        assertEquals(TranspositionTable.LOWER, TranspositionTable.bound(data));
+        // Same bucket, different key
+        assertEquals(0L, table.probe(key ^ 1L << 40));
+
+        // A result without a move keeps the move that was stored
+        table.store(key, Move.NONE, 50, 8, TranspositionTable.UPPER);
+        data = table.probe(key);
+        assertEquals(MOVE, TranspositionTable.move(data));
+        assertEquals(50, TranspositionTable.score(data));
+        assertEquals(TranspositionTable.UPPER, TranspositionTable.bound(data));
+
+        table.clear();
+        assertEquals(0L, table.probe(key));
+    }
+
+    @Test
+    public void testClear(){
+        TranspositionTable table = newTable();
+        for(long key = 0; key < table.capacity(); key++){
+            table.store(key * 0x9E3779B97F4A7C15L, MOVE, 1, 1, TranspositionTable.EXACT);
+        }
+        table.clear();
+        for(long key = 0; key < table.capacity(); key++){
+            assertEquals(0L, table.probe(key * 0x9E3779B97F4A7C15L));
+        }
+        assertEquals(0, table.hashfull());
+    }
+
+    @Test
+    public void testReplacement(){
+        TranspositionTable table = newTable();
+        long bucket = table.capacity() / 4;
+        // Four positions fill one bucket, the shallowest one is replaced by a fifth
+        for(int i = 0; i < 4; i++){
+            table.store(5 + i * bucket, MOVE, i, 10 - i, TranspositionTable.EXACT);
+        }
+        table.store(5 + 4 * bucket, OTHER_MOVE, 4, 1, TranspositionTable.EXACT);
+        assertEquals(0L, table.probe(5 + 3 * bucket));
+        for(int i : new int[]{0, 1, 2, 4}){
+            assertEquals(i, TranspositionTable.score(table.probe(5 + i * bucket)));
+        }
+
+        // After two searches the deepest entry counts as shallower than the new ones
+        table.newSearch();
+        table.newSearch();
+        table.store(5 + 1 * bucket, MOVE, 1, 9, TranspositionTable.EXACT);
+        table.store(5 + 2 * bucket, MOVE, 2, 8, TranspositionTable.EXACT);
+        table.store(5 + 4 * bucket, MOVE, 4, 1, TranspositionTable.EXACT);
+        table.store(5 + 5 * bucket, MOVE, 5, 2, TranspositionTable.EXACT);
+        assertEquals(0L, table.probe(5));
+        assertEquals(5, TranspositionTable.score(table.probe(5 + 5 * bucket)));
+    }
+
+    @Test
+    public void testShallowBoundKeepsDeepEntry(){
+        TranspositionTable table = newTable();
+        long key = 0x123456789ABCDEFL;
+        table.store(key, MOVE, 300, 12, TranspositionTable.EXACT);
+
+        // A shallow bound of the same search only brings a new move
+        table.store(key, OTHER_MOVE, -50, 1, TranspositionTable.UPPER);
+        long data = table.probe(key);
+        assertEquals(OTHER_MOVE, TranspositionTable.move(data));
+        assertEquals(300, TranspositionTable.score(data));
+        assertEquals(12, TranspositionTable.depth(data));
+        assertEquals(TranspositionTable.EXACT, TranspositionTable.bound(data));
+
+        // A shallow exact score replaces it
+        table.store(key, MOVE, 20, 2, TranspositionTable.EXACT);
+        assertEquals(2, TranspositionTable.depth(table.probe(key)));
+
+        // So does a shallow bound of a later search
+        table.store(key, MOVE, 300, 12, TranspositionTable.EXACT);
+        table.newSearch();
+        table.store(key, Move.NONE, -50, 1, TranspositionTable.LOWER);
+        data = table.probe(key);
+        assertEquals(MOVE, TranspositionTable.move(data));
+        assertEquals(1, TranspositionTable.depth(data));
+        assertEquals(TranspositionTable.LOWER, TranspositionTable.bound(data));
+    }
+
+    @Test
+    public void testHashfull(){
+        TranspositionTable table = newTable();
+        assertEquals(0, table.hashfull());
+        for(long key = 0; key < table.capacity() / 4; key++){
+            table.store(key, MOVE, 0, 1, TranspositionTable.EXACT);
+        }
+        assertEquals(250, table.hashfull());
+        table.newSearch();
+        assertEquals(0, table.hashfull());
+    }
+
+    @Test
+    public void testConcurrentAccess() throws InterruptedException {
+        // A small table, so the threads write to the same buckets all the time
+        TranspositionTable table = newTable();
+        AtomicLong wrongHits = new AtomicLong();
+        Thread[] threads = new Thread[4];
+        for(int t = 0; t < threads.length; t++){
+            final long seed = t;
+            threads[t] = new Thread(() -> {
+                long key = seed;
+                for(int i = 0; i < 200000; i++){
+                    key = key * 6364136223846793005L + 1442695040888963407L;
+                    long probeKey = key & 0xFFFFFL;
+                    long data = table.probe(probeKey);
+                    // Every writer stores a score and depth derived from the key, a hit has to match them
+                    if(data != 0 && (TranspositionTable.score(data) != (short)probeKey || TranspositionTable.depth(data) != (int)(probeKey & 0xFF))){
+                        wrongHits.incrementAndGet();
+                    }
+                    table.store(probeKey, MOVE, (short)probeKey, (int)(probeKey & 0xFF), TranspositionTable.EXACT);
+                }
+            });
+            threads[t].start();
+        }
+        for(Thread thread : threads){
+            thread.join();
+        }
+        assertEquals(0L, wrongHits.get());
+    }
+}
@@ -0,0 +1,117 @@
+package edu.sfu.os.chess;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * Unit test for Zobrist
+ */
+public class ZobristTest {
+
+    /**
+     * This is run before running other tests
+     */
+    @Before
+    public void setUpBeforeTest(){
+        BitMasks.initBitMasks();
+    }
+
+    private static int move(Board currentPosition, int from, int to){
+        int piece = Moves.pieceAt(currentPosition, from);
+        int flag = Piece.type(piece) == Piece.PAWN && Math.abs(from - to) == 16 ? Move.DOUBLE_PUSH : Move.NORMAL;
+        return Move.encode(from, to, piece, Moves.pieceAt(currentPosition, to), Piece.EMPTY, flag);
+    }
+
+    @Test
+    public void testTranspositionsShareKey(){
+        Board first = BoardGeneration.initiateStandardChess();
+        Board second = BoardGeneration.initiateStandardChess();
+        long startKey = Zobrist.key(first, Piece.WHITE);
+        assertNotEquals(startKey, Zobrist.key(first, Piece.BLACK));
+
+        // Nf3 Nf6 Nc3 and Nc3 Nf6 Nf3
+        first.makeMove(move(first, 62, 45));
+        first.makeMove(move(first, 6, 21));
+        first.makeMove(move(first, 57, 42));
+        second.makeMove(move(second, 57, 42));
+        second.makeMove(move(second, 6, 21));
+        second.makeMove(move(second, 62, 45));
+        assertEquals(Zobrist.key(first, Piece.BLACK), Zobrist.key(second, Piece.BLACK));
+
+        // Rook out and back loses the castling right
+        first.makeMove(move(first, 7, 6));
+        first.makeMove(move(first, 45, 62));
+        first.makeMove(move(first, 6, 7));
+        first.makeMove(move(first, 62, 45));
+        assertNotEquals(Zobrist.key(first, Piece.BLACK), Zobrist.key(second, Piece.BLACK));
+    }
+
+    @Test
+    public void testEnPassantFile(){
+        Board currentPosition = BoardGeneration.initiateStandardChess();
+        // e4, nothing can take it
+        currentPosition.makeMove(move(currentPosition, 52, 36));
+        assertEquals(-1, Zobrist.enPassantFile(currentPosition, Piece.BLACK));
+        // ... a6, e5, d5 which the pawn on e5 can take
+        currentPosition.makeMove(move(currentPosition, 8, 16));
+        currentPosition.makeMove(move(currentPosition, 36, 28));
+        currentPosition.makeMove(move(currentPosition, 11, 27));
+        assertEquals(3, Zobrist.enPassantFile(currentPosition, Piece.WHITE));
+    }
+
+    /**
+     * Walks every move sequence and compares the key kept by makeMove with one computed from scratch
+     */
+    private static void assertIncrementalKey(Board currentPosition, int colour, int depth){
+        assertEquals(Zobrist.key(currentPosition, colour), currentPosition.key);
+        if(depth == 0){
+            return;
+        }
+        int[] moves = new int[Moves.MAX_MOVES];
+        int count = Moves.generateLegalMoves(currentPosition, colour, moves);
+        for(int i = 0; i < count; i++){
+            long key = currentPosition.key;
+            currentPosition.makeMove(moves[i]);
+            assertIncrementalKey(currentPosition, colour ^ 1, depth - 1);
+            currentPosition.unmakeMove();
+            assertEquals(key, currentPosition.key);
+        }
+    }
+
+    @Test
+    public void testIncrementalKey(){
+        // Castling, promotions with captures and en passant captures that are only legal on some files
+        String[] positions = {
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -",
+                "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - -",
+                "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3"};
+        for(String fen : positions){
+            FENParser parser = new FENParser(fen);
+            assertIncrementalKey(parser.getBitboards(), parser.getSideToMove(), 3);
+        }
+    }
+
+    @Test
+    public void testKeyOfSetUpPositions(){
+        // The en passant square and the side to move come from the FEN string
+        FENParser parser = new FENParser("rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3");
+        assertEquals(Zobrist.key(parser.getBitboards(), Piece.WHITE), parser.getBitboards().key);
+        assertEquals(5, Zobrist.enPassantFile(parser.getBitboards(), Piece.WHITE));
+        parser = new FENParser("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1");
+        assertEquals(Zobrist.key(parser.getBitboards(), Piece.BLACK), parser.getBitboards().key);
+
+        // The copy-make routines for masks compute the key of the new board
+        Board start = BoardGeneration.initiateStandardChess();
+        assertEquals(Zobrist.key(start, Piece.WHITE), start.key);
+        Board afterE4 = Moves.moveWhite(start, 1L << 52 | 1L << 36);
+        assertEquals(parser.getBitboards().key, afterE4.key);
+        Board made = BoardGeneration.initiateStandardChess();
+        made.makeMove(move(made, 52, 36));
+        made.makeMove(move(made, 12, 28));
+        assertEquals(made.key, Moves.moveBlack(afterE4, 1L << 12 | 1L << 28).key);
+    }
+}